@@ -0,0 +1,34 @@
+package org.example;
+
+/**
+ * Prépare des parties avec un serpent de longueur donnée, entièrement déplié
+ * sur un plateau assez grand pour lui.
+ */
+final class BenchBoards {
+    private BenchBoards() {
+    }
+
+    // Côté du plateau (en pixels) dont la boucle de CyclePilot fait environ deux fois le corps
+    static int boardSizeFor(int length) {
+        int side = (int) Math.ceil(Math.sqrt(400.0 * length) / 100) * 100;
+        return Math.max(600, side);
+    }
+
+    static SnakeEngine longSnake(int length, Difficulty difficulty, CyclePilot[] pilotOut) {
+        int side = boardSizeFor(length);
+        SnakeEngine engine = new SnakeEngine(side, side, difficulty, 42L);
+        for (int i = engine.getLength(); i < length; i++) {
+            engine.getBody().grow();
+        }
+        CyclePilot pilot = new CyclePilot(side, side);
+        double unfolded = (length - 1) * (double) SnakeEngine.DOT_SIZE;
+        while (engine.getBody().headDistance() < unfolded + SnakeEngine.DOT_SIZE) {
+            engine.step(pilot.next(engine));
+            if (!engine.isAlive()) {
+                throw new IllegalStateException("Le serpent de " + length + " segments n'a pas pu être déplié");
+            }
+        }
+        pilotOut[0] = pilot;
+        return engine;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+/**
+ * Pilote de benchmark qui parcourt le plateau en boucle sans jamais se
+ * mordre : des allers-retours horizontaux espacés de 20 pixels du haut vers
+ * le bas, puis une remontée par la colonne de gauche laissée libre.
+ * La boucle est plus longue que le corps tant que le plateau vient de
+ * {@link BenchBoards#boardSizeFor(int)}.
+ */
+final class CyclePilot {
+    private static final int ROW_SPACING = 2 * SnakeEngine.DOT_SIZE;
+    private static final int RETURN_MARGIN = 3 * SnakeEngine.DOT_SIZE;
+
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+
+    private double targetY;
+    private boolean returning;
+    private Direction nextHorizontal = Direction.LEFT;
+
+    CyclePilot(int width, int height) {
+        xMin = RETURN_MARGIN;
+        xMax = width - 4 * SnakeEngine.DOT_SIZE;
+        yMin = RETURN_MARGIN;
+        yMax = height - 4 * SnakeEngine.DOT_SIZE;
+    }
+
+    Direction next(SnakeEngine engine) {
+        double x = engine.segmentX(0);
+        double y = engine.segmentY(0);
+        switch (engine.getDirection()) {
+            case RIGHT:
+                if (x >= xMax) {
+                    return down(y, Direction.RIGHT);
+                }
+                break;
+            case LEFT:
+                if (returning && x <= xMin) {
+                    return Direction.UP;
+                }
+                if (!returning && x <= xMin + RETURN_MARGIN) {
+                    return down(y, Direction.LEFT);
+                }
+                break;
+            case DOWN:
+                if (y >= targetY) {
+                    if (y >= yMax) {
+                        returning = true;
+                        return Direction.LEFT;
+                    }
+                    return nextHorizontal;
+                }
+                break;
+            case UP:
+                if (y <= yMin) {
+                    returning = false;
+                    return Direction.RIGHT;
+                }
+                break;
+        }
+        return null;
+    }
+
+    private Direction down(double y, Direction from) {
+        targetY = y + ROW_SPACING;
+        nextHorizontal = from.opposite();
+        return Direction.DOWN;
+    }
+}
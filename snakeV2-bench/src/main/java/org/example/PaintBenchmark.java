@@ -0,0 +1,53 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu d'une image de jeu complète dans une BufferedImage hors écran,
+ * par le même code que paintComponent().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+    @Param({"3", "100", "1000", "10000"})
+    int length;
+
+    @Param({"EASY", "EXPERT"})
+    Difficulty difficulty;
+
+    private SnakeEngine engine;
+    private GameRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = BenchBoards.longSnake(length, difficulty, new CyclePilot[1]);
+        renderer = new GameRenderer(engine.getWidth(), engine.getHeight());
+        image = new BufferedImage(engine.getWidth(), engine.getHeight(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintFullFrame() {
+        graphics.clearRect(0, 0, image.getWidth(), image.getHeight());
+        renderer.drawGame(graphics, engine, 0.5, 0, 0);
+        return image;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position de tous les segments du corps (image clé de l'arène, image du
+ * spectateur, rendu de l'arène) : un appel à segmentX/segmentY par segment,
+ * contre un seul parcours de la trace qui interpole chaque segment au
+ * passage. Les deux donnent les mêmes valeurs au bit près.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentBenchmark {
+    @Param({"100", "1000", "10000", "50000"})
+    int length;
+
+    private SnakeBody body;
+    private double[] xs;
+    private double[] ys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        body = BenchBoards.longSnake(length, Difficulty.MEDIUM, new CyclePilot[1]).getBody();
+        xs = new double[length];
+        ys = new double[length];
+    }
+
+    @Benchmark
+    public double perSegment() {
+        for (int i = 0; i < length; i++) {
+            xs[length - 1 - i] = body.segmentX(i);
+            ys[length - 1 - i] = body.segmentY(i);
+        }
+        return xs[0] + ys[0];
+    }
+
+    @Benchmark
+    public double batch() {
+        body.sampleSegments(body.headDistance(), length, xs, ys);
+        return xs[0] + ys[0];
+    }
+}
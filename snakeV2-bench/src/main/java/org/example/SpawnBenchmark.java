@@ -0,0 +1,50 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placement d'une pomme selon le taux d'occupation du plateau : le coût doit
+ * rester constant, même presque plein.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    @Param({"3", "1000", "50000"})
+    int length;
+
+    @Param({"MEDIUM", "EXPERT"})
+    Difficulty difficulty;
+
+    @Param({"0.0", "0.5", "0.99"})
+    double occupancy;
+
+    private SnakeEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = BenchBoards.longSnake(length, difficulty, new CyclePilot[1]);
+
+        // Remplit des cases libres au hasard jusqu'au taux voulu
+        OccupancyGrid grid = engine.getGrid();
+        int cells = grid.getCols() * grid.getRows();
+        int target = (int) (cells * (1 - occupancy));
+        SplittableRandom random = new SplittableRandom(7);
+        while (grid.getFreeCount() > Math.max(1, target)) {
+            grid.add(grid.randomFreeCell(random), false);
+        }
+    }
+
+    @Benchmark
+    public Apple locateNewApple() {
+        engine.locateNewApple();
+        return engine.getApple();
+    }
+}
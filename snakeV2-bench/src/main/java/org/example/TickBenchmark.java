@@ -0,0 +1,56 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'un tick complet, du seul déplacement et de la détection de
+ * collision, selon la longueur du serpent et la difficulté.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"3", "100", "1000", "10000", "50000"})
+    int length;
+
+    @Param({"EASY", "MEDIUM", "HARD", "EXPERT"})
+    Difficulty difficulty;
+
+    private SnakeEngine engine;
+    private CyclePilot pilot;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        CyclePilot[] pilotOut = new CyclePilot[1];
+        engine = BenchBoards.longSnake(length, difficulty, pilotOut);
+        pilot = pilotOut[0];
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAlive() {
+        if (!engine.isAlive()) {
+            throw new IllegalStateException("Le serpent est mort pendant la mesure");
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        return engine.step(pilot.next(engine));
+    }
+
+    @Benchmark
+    public int move() {
+        return engine.move(pilot.next(engine));
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        return engine.checkCollision();
+    }
+}
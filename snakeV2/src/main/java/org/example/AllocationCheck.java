@@ -0,0 +1,194 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Contrôle de non-régression : une fois la partie lancée, un tick de
+ * simulation (déplacement, obstacles, collision, pomme, effets) ne doit
+ * allouer aucun octet. Les octets alloués par le thread sont lus avec
+ * {@code ThreadMXBean} avant et après chaque tick.
+ *
+ * Seule exception : l'agrandissement du tampon de la trace quand le serpent
+ * dépasse sa capacité (doublement, donc quelques fois par partie). Les
+ * parties sont jouées par le pilote automatique, qui mange des pommes et
+ * déclenche les effets ; ses propres calculs ne sont pas comptés. Chaque
+ * pomme est signalée au {@link ScoreStore}, comme dans le jeu.
+ *
+ * Un tick qui alloue est rejoué à l'identique (même graine, mêmes entrées,
+ * même tick) et mesuré une seconde fois : une allocation qui se reproduit
+ * fait échouer le build. Seul un tick dont la seconde mesure est nulle, le
+ * temps d'une recompilation du JIT pendant la première, est toléré.
+ *
+ * Lancé par Maven à la phase test ({@code mvn test}) : le code de sortie
+ * est non nul, et le build échoue, si un tick alloue.
+ *
+ * Usage : AllocationCheck [ticks mesurés par scénario]
+ */
+public class AllocationCheck {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    // Ticks joués avant la mesure, le temps que le JIT compile le chemin du tick
+    private static final int WARMUP_TICKS = 300_000;
+    private static final long MAX_TICKS_PER_GAME = 50_000;
+    private static final int MAX_REPORTED = 10;
+
+    private interface Scenario {
+        SnakeEngine newEngine(long seed) throws Exception;
+    }
+
+    private static com.sun.management.ThreadMXBean bean;
+    private static long overhead;
+    private static Path scoreFile;
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            System.out.println("Mesure des allocations par thread non disponible sur cette JVM : contrôle ignoré");
+            return;
+        }
+        bean = (com.sun.management.ThreadMXBean) threads;
+        bean.setThreadAllocatedMemoryEnabled(true);
+        overhead = measureOverhead();
+        scoreFile = Files.createTempFile("snake-allocation-check", ".txt");
+        scoreFile.toFile().deleteOnExit();
+
+        Level level = LevelPack.builtIn().level(2);
+        boolean ok = check("plateau vide", seed -> new SnakeEngine(WIDTH, HEIGHT, Difficulty.MEDIUM, seed), ticks);
+        ok &= check("plateau rapide", seed -> new SnakeEngine(WIDTH, HEIGHT, Difficulty.EXPERT, seed), ticks);
+        ok &= check("niveau " + level.getName(), seed -> new SnakeEngine(WIDTH, HEIGHT, Difficulty.MEDIUM, seed,
+                GameRules.DEFAULT, level), ticks);
+        Files.deleteIfExists(scoreFile);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, Scenario scenario, int ticks) throws Exception {
+        Autopilot pilot = new Autopilot();
+        play(scenario, pilot, 1, WARMUP_TICKS, null);
+        long[] faults = new long[2 * MAX_REPORTED];
+        long[] result = play(scenario, pilot, 1_000, ticks, faults);
+        long allocatingTicks = result[0];
+        long growths = result[1];
+        if (allocatingTicks == 0) {
+            System.out.printf("%-20s %d ticks, 0 octet alloué (%d agrandissements de la trace)%n", name, ticks, growths);
+            return true;
+        }
+        // Chaque tick fautif est rejoué à l'identique (même graine, mêmes entrées) : une allocation qui se reproduit est une régression
+        long reproduced = 0;
+        for (int i = 0; i < Math.min(allocatingTicks, MAX_REPORTED); i++) {
+            long seed = faults[2 * i];
+            long tick = faults[2 * i + 1];
+            long allocated = remeasure(scenario, seed, tick);
+            System.out.printf("  graine %d, tick %d : %s%n", seed, tick,
+                    allocated > 0 ? allocated + " octets à nouveau" : "rien à la seconde mesure");
+            if (allocated > 0) {
+                reproduced++;
+            }
+        }
+        if (reproduced == 0 && allocatingTicks <= MAX_REPORTED) {
+            System.out.printf("%-20s %d ticks, 0 octet alloué (%d agrandissements de la trace, %d tick(s) recompilé(s) pendant la mesure)%n",
+                    name, ticks, growths, allocatingTicks);
+            return true;
+        }
+        System.out.printf("%-20s ÉCHEC : %d ticks sur %d ont alloué, %d reproduit(s)%n", name, allocatingTicks, ticks, reproduced);
+        return false;
+    }
+
+    /**
+     * Joue des parties avec le pilote automatique, une nouvelle partie
+     * (graine suivante) à chaque fin. Chaque tick fait aussi ce que fait le
+     * jeu quand une pomme est mangée : signaler le score au ScoreStore.
+     *
+     * @param faults null pour ne pas mesurer, sinon reçoit graine et tick des premiers ticks qui allouent
+     * @return {ticks qui ont alloué, agrandissements de la trace ignorés}
+     */
+    private static long[] play(Scenario scenario, Autopilot pilot, long seed, int ticks, long[] faults) throws Exception {
+        long allocatingTicks = 0;
+        long growths = 0;
+        SnakeEngine engine = scenario.newEngine(seed);
+        ScoreStore store = newStore();
+        pilot.reset();
+        for (int t = 0; t < ticks; t++) {
+            if (!engine.isAlive() || engine.getTick() >= MAX_TICKS_PER_GAME) {
+                store.close();
+                engine = scenario.newEngine(++seed);
+                store = newStore();
+                pilot.reset();
+            }
+            queueTurn(engine, pilot);
+            int capacity = engine.getBody().getCapacity();
+            long allocated = measuredStep(engine, store);
+            if (faults == null || allocated <= 0) {
+                continue;
+            }
+            if (engine.getBody().getCapacity() != capacity) {
+                growths++;
+                continue;
+            }
+            if (allocatingTicks < MAX_REPORTED) {
+                faults[2 * (int) allocatingTicks] = seed;
+                faults[2 * (int) allocatingTicks + 1] = engine.getTick();
+            }
+            allocatingTicks++;
+        }
+        store.close();
+        return new long[] {allocatingTicks, growths};
+    }
+
+    // Rejoue la partie de cette graine jusqu'au tick donné et ne mesure que lui
+    private static long remeasure(Scenario scenario, long seed, long tick) throws Exception {
+        Autopilot pilot = new Autopilot();
+        SnakeEngine engine = scenario.newEngine(seed);
+        ScoreStore store = newStore();
+        try {
+            while (engine.getTick() < tick - 1) {
+                pilot.step(engine);
+            }
+            queueTurn(engine, pilot);
+            int capacity = engine.getBody().getCapacity();
+            long allocated = measuredStep(engine, store);
+            return engine.getBody().getCapacity() != capacity ? 0 : allocated;
+        } finally {
+            store.close();
+        }
+    }
+
+    // Octets alloués par un tick et par le signalement du score qui le suit
+    // Virage du pilote pour le prochain tick, demandé hors de la mesure
+    private static void queueTurn(SnakeEngine engine, Autopilot pilot) {
+        Direction turn = pilot.next(engine);
+        if (turn != null) {
+            engine.turnAt(turn, pilot.turnSubTick());
+        }
+    }
+
+    private static long measuredStep(SnakeEngine engine, ScoreStore store) {
+        long before = bean.getCurrentThreadAllocatedBytes();
+        int events = engine.step();
+        if ((events & SnakeEngine.EVENT_EAT) != 0) {
+            store.submit(engine.getDifficulty(), engine.getScore());
+        }
+        return bean.getCurrentThreadAllocatedBytes() - before - overhead;
+    }
+
+    // Magasin neuf à chaque partie, pour que chaque pomme batte le record
+    private static ScoreStore newStore() {
+        return new ScoreStore(scoreFile);
+    }
+
+    // Ce que coûtent deux lectures consécutives du compteur, à retrancher de chaque mesure
+    private static long measureOverhead() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 10_000; i++) {
+            long before = bean.getCurrentThreadAllocatedBytes();
+            min = Math.min(min, bean.getCurrentThreadAllocatedBytes() - before);
+        }
+        return min;
+    }
+}
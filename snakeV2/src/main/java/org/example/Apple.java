@@ -0,0 +1,21 @@
+package org.example;
+
+// Pomme modifiable : le moteur réutilise la même instance d'une pomme à l'autre
+public class Apple {
+    int x, y;
+    AppleType type;
+    long spawnTick;
+    boolean isActive;
+
+    Apple(int x, int y, AppleType type, long spawnTick) {
+        set(x, y, type, spawnTick);
+    }
+
+    void set(int x, int y, AppleType type, long spawnTick) {
+        this.x = x;
+        this.y = y;
+        this.type = type;
+        this.spawnTick = spawnTick;
+        this.isActive = true;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example;
+
+// Types de pommes (la couleur est choisie par la vue)
+public enum AppleType {
+    BASIC(1, "Normal (+1 point)"),
+    GOLDEN(3, "Or (+3 points)"),
+    SPEED(1, "Vitesse (+1 point, vitesse x2)"),
+    SLOW(1, "Ralenti (+1 point, vitesse /2)"),
+    RAINBOW(2, "Arc-en-ciel (+2 points, score x2)");
+
+    final int points;
+    final String description;
+
+    AppleType(int points, String description) {
+        this.points = points;
+        this.description = description;
+    }
+}
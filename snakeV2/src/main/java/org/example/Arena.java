@@ -0,0 +1,284 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Simulation autoritaire de l'arène : plusieurs serpents sur un même plateau,
+ * une grille d'occupation commune et une pomme partagée. Mêmes règles de
+ * déplacement que {@link SnakeEngine} (trace de la tête, cou non solide), à
+ * ceci près que les pommes ne donnent que des points : les effets de vitesse
+ * restent propres au jeu solo. Un serpent mort reste en place comme obstacle
+ * puis réapparaît ailleurs après RESPAWN_TICKS.
+ *
+ * Chaque point de trace ajouté est aussi gardé, quantifié, dans un historique
+ * circulaire par serpent : le serveur y lit les points qu'un client n'a pas
+ * encore reçus. Un seul thread (celui du serveur) utilise l'arène.
+ */
+public class Arena {
+    static final int MAX_SNAKES = 256;
+    // Points de trace gardés par serpent ; un client plus en retard reçoit une image clé
+    static final int HISTORY = 256;
+    static final long RESPAWN_TICKS = 1000 / SnakeEngine.TICK_MILLIS;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int SPAWN_ATTEMPTS = 200;
+    // Cases libres exigées devant la tête d'un serpent qui apparaît
+    private static final int SPAWN_CLEARANCE = 8;
+    // Numéros d'entrée gardés avec la direction dans un int de la file
+    static final int SEQ_MASK = (1 << 29) - 1;
+
+    static final class Snake {
+        final int id;
+        final SnakeBody body;
+        Direction direction = Direction.RIGHT;
+        boolean alive;
+        boolean removed;
+        int score;
+        // Change à chaque apparition : la trace repart de zéro
+        int generation;
+        long deathTick;
+
+        // samples = nombre de points ajoutés depuis l'apparition ; le point k est en k & (HISTORY - 1)
+        long samples;
+        final int[] historyX = new int[HISTORY];
+        final int[] historyY = new int[HISTORY];
+
+        // Entrées reçues : numéro * 4 + direction, horodatage du client
+        final EventRing inputs = new EventRing(16);
+        int ackSeq;
+        long ackClientNanos;
+
+        Snake(int id, OccupancyGrid grid) {
+            this.id = id;
+            this.body = new SnakeBody(grid);
+        }
+
+        private void recordSample() {
+            int slot = (int) (samples & (HISTORY - 1));
+            historyX[slot] = ArenaProtocol.quantize(body.headX());
+            historyY[slot] = ArenaProtocol.quantize(body.headY());
+            samples++;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final Difficulty difficulty;
+    private final GameRules rules;
+    private final double speed;
+    private final OccupancyGrid grid;
+    private final SplittableRandom random;
+    private final Snake[] snakes = new Snake[MAX_SNAKES];
+    private int snakeCount;
+
+    // Pomme courante : toujours la même instance, ou null si le plateau est plein
+    private final Apple apple = new Apple(0, 0, AppleType.BASIC, 0);
+    private Apple currentApple;
+    // Incrémenté à chaque changement de pomme
+    private int appleVersion;
+    private long tick;
+
+    public Arena(int width, int height, Difficulty difficulty, long seed) {
+        this(width, height, difficulty, seed, GameRules.DEFAULT);
+    }
+
+    public Arena(int width, int height, Difficulty difficulty, long seed, GameRules rules) {
+        this.width = width;
+        this.height = height;
+        this.difficulty = difficulty;
+        this.rules = rules;
+        this.speed = rules.speed(difficulty);
+        this.grid = new OccupancyGrid(width / SnakeEngine.DOT_SIZE, height / SnakeEngine.DOT_SIZE);
+        this.random = new SplittableRandom(seed);
+        locateNewApple();
+    }
+
+    /**
+     * Ajoute un serpent, placé au hasard.
+     *
+     * @return le serpent, ou null si l'arène est pleine
+     */
+    Snake join() {
+        for (int id = 0; id < MAX_SNAKES; id++) {
+            if (snakes[id] == null) {
+                Snake snake = new Snake(id, grid);
+                snakes[id] = snake;
+                snakeCount = Math.max(snakeCount, id + 1);
+                spawn(snake);
+                return snake;
+            }
+        }
+        return null;
+    }
+
+    // Le joueur est parti : son corps quitte la grille, les clients l'apprennent au prochain état
+    void leave(Snake snake) {
+        snake.body.clear();
+        snake.alive = false;
+        snake.removed = true;
+    }
+
+    // Le serveur a annoncé le départ à tous les clients : l'identifiant redevient libre
+    void forget(Snake snake) {
+        snakes[snake.id] = null;
+    }
+
+    void tick() {
+        tick++;
+        for (int i = 0; i < snakeCount; i++) {
+            Snake snake = snakes[i];
+            if (snake != null && snake.alive) {
+                move(snake);
+            }
+        }
+        for (int i = 0; i < snakeCount; i++) {
+            Snake snake = snakes[i];
+            if (snake == null || snake.removed) {
+                continue;
+            }
+            if (snake.alive) {
+                if (hasCrashed(snake)) {
+                    snake.alive = false;
+                    snake.deathTick = tick;
+                } else {
+                    checkApple(snake);
+                }
+            } else if (tick - snake.deathTick >= RESPAWN_TICKS) {
+                spawn(snake);
+            }
+        }
+        if (currentApple == null) {
+            locateNewApple();
+        }
+    }
+
+    private void move(Snake snake) {
+        // Une entrée par tick, comme pour les sessions solo du serveur
+        if (!snake.inputs.isEmpty()) {
+            int value = snake.inputs.peekValue();
+            Direction input = DIRECTIONS[value & 3];
+            if (input != snake.direction.opposite()) {
+                snake.direction = input;
+            }
+            snake.ackSeq = value >>> 2;
+            snake.ackClientNanos = snake.inputs.peekTime();
+            snake.inputs.remove();
+        }
+        SnakeBody body = snake.body;
+        body.beginStep();
+        body.moveHead(body.headX() + snake.direction.dx * speed, body.headY() + snake.direction.dy * speed);
+        snake.recordSample();
+    }
+
+    private boolean hasCrashed(Snake snake) {
+        SnakeBody body = snake.body;
+        double x = body.headX();
+        double y = body.headY();
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        // Les corps des autres serpents sont solides comme le sien, hors cou
+        return grid.isSolid(body.headCell());
+    }
+
+    private void checkApple(Snake snake) {
+        SnakeBody body = snake.body;
+        if (currentApple != null && Math.abs(body.headX() - apple.x) < SnakeEngine.DOT_SIZE
+                && Math.abs(body.headY() - apple.y) < SnakeEngine.DOT_SIZE) {
+            snake.score += apple.type.points * rules.scoreMultiplier(difficulty);
+            body.grow();
+            locateNewApple();
+        }
+    }
+
+    private void spawn(Snake snake) {
+        int dot = SnakeEngine.DOT_SIZE;
+        int cols = grid.getCols();
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+            int cell = grid.randomFreeCell(random);
+            if (cell < 0) {
+                break;
+            }
+            int col = grid.cellX(cell) / dot;
+            int row = grid.cellY(cell) / dot;
+            Direction direction = col < cols / 2 ? Direction.RIGHT : Direction.LEFT;
+            if (isClear(col, row, direction)) {
+                snake.body.reset(col * dot, row * dot, direction, SnakeEngine.INITIAL_DOTS);
+                snake.direction = direction;
+                snake.alive = true;
+                snake.score = 0;
+                snake.generation++;
+                snake.samples = 0;
+                snake.recordSample();
+                snake.inputs.clear();
+                return;
+            }
+        }
+        // Pas de place pour l'instant : nouvel essai au prochain tick
+        snake.deathTick = tick - RESPAWN_TICKS;
+    }
+
+    // Le corps de départ et quelques cases devant la tête sont libres et sur le plateau
+    private boolean isClear(int col, int row, Direction direction) {
+        for (int i = -SnakeEngine.INITIAL_DOTS; i <= SPAWN_CLEARANCE; i++) {
+            int c = col + direction.dx * i;
+            if (c < 0 || c >= grid.getCols() || grid.isOccupied(row * grid.getCols() + c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void locateNewApple() {
+        int cell = grid.randomFreeCell(random);
+        if (cell < 0) {
+            currentApple = null;
+        } else {
+            AppleType type = rules.appleFor(random.nextInt(rules.getTotalAppleWeight()));
+            apple.set(grid.cellX(cell), grid.cellY(cell), type, tick);
+            currentApple = apple;
+        }
+        appleVersion++;
+    }
+
+    // Entrée reçue du client ; appliquée au prochain tick, accusée dans les états suivants
+    void offerInput(Snake snake, int seq, long clientNanos, Direction direction) {
+        snake.inputs.offer(((seq & SEQ_MASK) << 2) | direction.ordinal(), clientNanos);
+    }
+
+    Snake getSnake(int id) {
+        return snakes[id];
+    }
+
+    // Borne haute des identifiants utilisés
+    int getSnakeCount() {
+        return snakeCount;
+    }
+
+    Apple getApple() {
+        return currentApple;
+    }
+
+    int getAppleVersion() {
+        return appleVersion;
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    double getSpeed() {
+        return speed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+}
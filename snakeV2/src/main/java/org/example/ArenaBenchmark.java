@@ -0,0 +1,119 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Banc de l'arène en local : un {@link ArenaServer} dans son thread et N
+ * clients joueurs au hasard, tous lus depuis un même Selector.
+ *
+ * Mesure le débit reçu par client, le gain des écarts par rapport à l'envoi
+ * de l'état complet à chaque tick, le temps d'aller-retour des entrées
+ * (envoi, tick du serveur, accusé reçu), l'erreur de la prédiction locale et
+ * les états sautés faute de lecture assez rapide.
+ *
+ * Usage : ArenaBenchmark [clients] [secondes] [difficulté] [côté du plateau]
+ */
+public class ArenaBenchmark {
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Difficulty difficulty = args.length > 2 ? Difficulty.valueOf(args[2]) : Difficulty.MEDIUM;
+        int side = args.length > 3 ? Integer.parseInt(args[3]) : 1200;
+
+        ArenaServer server = new ArenaServer(0, new Arena(side, side, difficulty, 42L));
+        server.setMeasureFullState(true);
+        Thread serverThread = new Thread(server, "arena-server");
+        serverThread.start();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        Selector selector = Selector.open();
+        ArenaClient[] clients = new ArenaClient[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = ArenaClient.connect(address);
+            clients[i].register(selector);
+        }
+        System.out.printf("%d clients, arène %dx%d (%s), %d s%n", clientCount, side, side, difficulty.label, seconds);
+
+        SplittableRandom random = new SplittableRandom(7);
+        Direction[] directions = Direction.values();
+        // La première seconde (connexions, premières images clés) ne compte pas
+        long warmupEnd = System.nanoTime() + 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        boolean measuring = false;
+        long bytesStart = 0;
+        long fullStart = 0;
+        long sentStart = 0;
+        long skippedStart = 0;
+        long keyframesStart = 0;
+
+        while (System.nanoTime() < end) {
+            selector.select(5);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                ArenaClient client = (ArenaClient) key.attachment();
+                long snapshots = client.getSnapshots();
+                if (!client.poll()) {
+                    throw new IOException("Connexion fermée par le serveur");
+                }
+                // Joueur aléatoire : tourne en moyenne une fois toutes les 10 images
+                if (client.getSnapshots() > snapshots && random.nextInt(10) == 0) {
+                    client.sendInput(directions[random.nextInt(directions.length)]);
+                }
+            }
+            if (!measuring && System.nanoTime() >= warmupEnd) {
+                measuring = true;
+                bytesStart = server.getBytesSent();
+                fullStart = server.getFullStateBytes();
+                sentStart = server.getSnapshotsSent();
+                skippedStart = server.getSnapshotsSkipped();
+                keyframesStart = server.getKeyframes();
+                for (ArenaClient client : clients) {
+                    client.getRttStats().reset();
+                    client.getPredictionErrorStats().reset();
+                }
+            }
+        }
+
+        server.close();
+        serverThread.join();
+        for (ArenaClient client : clients) {
+            client.close();
+        }
+        selector.close();
+
+        long bytes = server.getBytesSent() - bytesStart;
+        long full = server.getFullStateBytes() - fullStart;
+        long sent = server.getSnapshotsSent() - sentStart;
+        long skipped = server.getSnapshotsSkipped() - skippedStart;
+        TickStats rtt = new TickStats();
+        TickStats error = new TickStats();
+        for (ArenaClient client : clients) {
+            rtt.add(client.getRttStats());
+            error.add(client.getPredictionErrorStats());
+        }
+        TickStats serverTicks = server.getTickStats();
+
+        System.out.printf("Débit : %.1f Ko/s par client (état complet : %.1f Ko/s), gain x%.1f%n",
+                bytes / 1024.0 / seconds / clientCount, full / 1024.0 / seconds / clientCount,
+                bytes == 0 ? 0 : (double) full / bytes);
+        System.out.printf("États : %d envoyés, %d sautés, %d images clés%n", sent, skipped,
+                server.getKeyframes() - keyframesStart);
+        System.out.printf("Aller-retour des entrées : p50 %.2f ms, p99 %.2f ms, max %.2f ms (%d mesures)%n",
+                rtt.percentileNanos(50) / 1e6, rtt.percentileNanos(99) / 1e6, rtt.getMaxNanos() / 1e6, rtt.getCount());
+        System.out.printf("Erreur de prédiction : p50 %.2f px, p99 %.2f px, max %.2f px%n",
+                error.percentileNanos(50) / (double) ArenaProtocol.POSITION_SCALE,
+                error.percentileNanos(99) / (double) ArenaProtocol.POSITION_SCALE,
+                error.getMaxNanos() / (double) ArenaProtocol.POSITION_SCALE);
+        System.out.printf("Tick serveur (simulation + envoi) : moy %.1f µs, p99 %d µs, max %d µs%n",
+                serverTicks.getAverageNanos() / 1000, serverTicks.percentileNanos(99) / 1000,
+                serverTicks.getMaxNanos() / 1000);
+    }
+}
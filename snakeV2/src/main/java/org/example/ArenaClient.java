@@ -0,0 +1,457 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Client de l'arène : connexion non bloquante au {@link ArenaServer}, copie
+ * locale de l'état reconstruite à partir des écarts reçus, et prédiction de
+ * la tête du joueur.
+ *
+ * Les entrées envoyées sont gardées jusqu'à ce que le serveur les accuse.
+ * La tête prédite part du dernier état reçu, daté de son envoi par le
+ * serveur (réception moins la moitié du temps d'aller-retour), et avance à
+ * la vitesse de l'arène jusqu'au moment où une entrée envoyée maintenant
+ * arriverait au serveur. Chaque entrée encore en attente y est appliquée au
+ * moment où elle atteindra le serveur.
+ *
+ * Un client n'est utilisé que par un seul thread.
+ */
+public class ArenaClient implements Closeable {
+    private static final int INITIAL_READ_BYTES = 64 * 1024;
+    private static final int MAX_PENDING = 64;
+    // Au-delà, l'état reçu est trop vieux : inutile de prédire plus loin
+    private static final int MAX_PREDICTED_TICKS = 32;
+    // Poids d'une nouvelle mesure dans l'aller-retour lissé
+    private static final double RTT_SMOOTHING = 0.125;
+
+    // Serpent tel que ce client le connaît
+    static final class RemoteSnake {
+        final SnakeBody body;
+        Direction direction = Direction.RIGHT;
+        boolean alive;
+        int length;
+        int score;
+        // Dernier point reçu, quantifié : base des écarts suivants
+        int lastX;
+        int lastY;
+
+        RemoteSnake(OccupancyGrid grid) {
+            this.body = new SnakeBody(grid);
+        }
+    }
+
+    private final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_READ_BYTES);
+    // Plus grand message permis, longueur comprise : WELCOME, puis SNAPSHOT une fois le plateau connu
+    private int maxMessageBytes = ArenaProtocol.WELCOME_BYTES;
+    private final ByteBuffer out = ByteBuffer.allocate(MAX_PENDING * ArenaProtocol.INPUT_BYTES);
+
+    private int ownId = -1;
+    private int width;
+    private int height;
+    private Difficulty difficulty;
+    private double speed;
+    private OccupancyGrid grid;
+    private final RemoteSnake[] snakes = new RemoteSnake[Arena.MAX_SNAKES];
+    private Apple apple;
+    private long serverTick;
+
+    private double[] pathX = new double[64];
+    private double[] pathY = new double[64];
+
+    // Entrées pas encore accusées, dans l'ordre d'envoi
+    private final int[] pendingSeq = new int[MAX_PENDING];
+    private final byte[] pendingDirection = new byte[MAX_PENDING];
+    private final long[] pendingNanos = new long[MAX_PENDING];
+    private int pendingCount;
+    private int nextSeq;
+    private int lastAckSeq;
+
+    // Dernier état de notre serpent, daté en temps client
+    private long authoritativeNanos;
+    private double authoritativeX;
+    private double authoritativeY;
+    private Direction authoritativeDirection = Direction.RIGHT;
+    private double predictedX;
+    private double predictedY;
+
+    private final TickStats rttStats = new TickStats();
+    // Écart entre la tête prédite et la tête reçue, en 1/POSITION_SCALE de pixel
+    private final TickStats predictionErrorStats = new TickStats();
+    private double smoothedRttNanos;
+    private long bytesReceived;
+    private long snapshots;
+
+    private ArenaClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    // Connexion (bloquante le temps de la poignée de main TCP), puis canal non bloquant
+    public static ArenaClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        return new ArenaClient(channel);
+    }
+
+    // Pour lire plusieurs clients depuis un même Selector ; le client est joint à la clé
+    public SelectionKey register(Selector selector) throws IOException {
+        return channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Lit tout ce qui est arrivé et applique les messages complets. Le tampon
+     * de réception ne grandit que pour un message plus long que lui, jamais
+     * au-delà du plus grand message permis : une longueur annoncée plus
+     * grande ferme la connexion.
+     *
+     * @return false si le serveur a fermé la connexion
+     */
+    public boolean poll() throws IOException {
+        flush();
+        long now = System.nanoTime();
+        while (true) {
+            if (!in.hasRemaining()) {
+                // Un message incomplet remplit le tampon (sa longueur a déjà été vérifiée)
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(in.capacity() * 2, maxMessageBytes));
+                in.flip();
+                larger.put(in);
+                in = larger;
+            }
+            int n = channel.read(in);
+            if (n < 0) {
+                return false;
+            }
+            if (n == 0) {
+                break;
+            }
+            bytesReceived += n;
+            if (!in.hasRemaining()) {
+                readMessages(now);
+            }
+        }
+        readMessages(now);
+        return true;
+    }
+
+    private void readMessages(long now) throws IOException {
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > maxMessageBytes - 4) {
+                channel.close();
+                throw new IOException("Message de " + length + " octets, au-delà du plus grand permis ("
+                        + (maxMessageBytes - 4) + ")");
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.position(in.position() + 4);
+            int end = in.position() + length;
+            int type = in.get();
+            switch (type) {
+                case ArenaProtocol.MSG_WELCOME:
+                    readWelcome();
+                    break;
+                case ArenaProtocol.MSG_SNAPSHOT:
+                    readSnapshot(now);
+                    break;
+                default:
+                    throw new IOException("Message inconnu : " + type);
+            }
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    // Envoie une direction ; elle compte dans la prédiction jusqu'à son accusé
+    public void sendInput(Direction direction) throws IOException {
+        if (ownId < 0) {
+            return;
+        }
+        nextSeq = (nextSeq + 1) & Arena.SEQ_MASK;
+        long now = System.nanoTime();
+        if (pendingCount == MAX_PENDING) {
+            dropPending(1);
+        }
+        pendingSeq[pendingCount] = nextSeq;
+        pendingDirection[pendingCount] = (byte) direction.ordinal();
+        pendingNanos[pendingCount] = now;
+        pendingCount++;
+
+        int start = ArenaProtocol.beginMessage(out, ArenaProtocol.MSG_INPUT);
+        out.putInt(nextSeq);
+        out.putLong(now);
+        out.put((byte) direction.ordinal());
+        ArenaProtocol.endMessage(out, start);
+        flush();
+    }
+
+    private void flush() throws IOException {
+        if (out.position() > 0) {
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+    }
+
+    private void readWelcome() {
+        ownId = in.getShort();
+        width = in.getInt();
+        height = in.getInt();
+        difficulty = Difficulty.values()[in.get()];
+        speed = difficulty.speed;
+        grid = new OccupancyGrid(width / SnakeEngine.DOT_SIZE, height / SnakeEngine.DOT_SIZE);
+        maxMessageBytes = (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.max(INITIAL_READ_BYTES, ArenaProtocol.maxSnapshotBytes(width, height)));
+    }
+
+    private void readSnapshot(long now) {
+        snapshots++;
+        serverTick = ArenaProtocol.getVarLong(in);
+        int ackSeq = ArenaProtocol.getVarInt(in);
+        long ackNanos = in.getLong();
+        if (ackSeq != lastAckSeq && ackNanos != 0) {
+            // Aller-retour d'une entrée : envoi, attente du tick, état renvoyé
+            long rtt = now - ackNanos;
+            rttStats.record(rtt);
+            smoothedRttNanos = smoothedRttNanos == 0 ? rtt : smoothedRttNanos + (rtt - smoothedRttNanos) * RTT_SMOOTHING;
+            lastAckSeq = ackSeq;
+        }
+        long stateNanos = now - (long) (smoothedRttNanos / 2);
+        RemoteSnake own = ownId >= 0 ? snakes[ownId] : null;
+        boolean ownWasAlive = own != null && own.alive;
+        // Ce que la prédiction annonçait pour l'instant où le serveur a produit cet état,
+        // avec les entrées que cet état accuse
+        if (ownWasAlive) {
+            predictAt(stateNanos);
+        }
+        int acked = 0;
+        while (acked < pendingCount && seqReached(pendingSeq[acked], ackSeq)) {
+            acked++;
+        }
+        dropPending(acked);
+
+        switch (in.get()) {
+            case ArenaProtocol.APPLE_NONE:
+                apple = null;
+                break;
+            case ArenaProtocol.APPLE_SET:
+                int x = in.getShort();
+                int y = in.getShort();
+                apple = new Apple(x, y, AppleType.values()[in.get()], serverTick);
+                break;
+            default:
+                break;
+        }
+
+        int count = in.getShort();
+        boolean ownKeyframe = false;
+        for (int i = 0; i < count; i++) {
+            int id = ArenaProtocol.getVarInt(in);
+            if (readSnake(id) && id == ownId) {
+                ownKeyframe = true;
+            }
+        }
+
+        own = ownId >= 0 ? snakes[ownId] : null;
+        if (own != null && own.alive) {
+            double x = ArenaProtocol.position(own.lastX);
+            double y = ArenaProtocol.position(own.lastY);
+            if (ownWasAlive && !ownKeyframe) {
+                double error = Math.hypot(predictedX - x, predictedY - y);
+                predictionErrorStats.record(Math.round(error * ArenaProtocol.POSITION_SCALE));
+            }
+            authoritativeX = x;
+            authoritativeY = y;
+            authoritativeDirection = own.direction;
+            authoritativeNanos = stateNanos;
+            predict(now);
+        }
+    }
+
+    // true si c'était une image clé
+    private boolean readSnake(int id) {
+        int flags = in.get();
+        if ((flags & ArenaProtocol.FLAG_REMOVED) != 0) {
+            if (snakes[id] != null) {
+                snakes[id].body.clear();
+                snakes[id] = null;
+            }
+            return false;
+        }
+        RemoteSnake snake = snakes[id];
+        if (snake == null) {
+            snake = new RemoteSnake(grid);
+            snakes[id] = snake;
+        }
+        snake.alive = (flags & ArenaProtocol.FLAG_ALIVE) != 0;
+        if ((flags & ArenaProtocol.FLAG_DIRECTION) != 0) {
+            snake.direction = Direction.values()[in.get()];
+        }
+        if ((flags & ArenaProtocol.FLAG_SPEED) != 0) {
+            speed = (double) ArenaProtocol.getVarInt(in) / ArenaProtocol.SPEED_SCALE;
+        }
+        if ((flags & ArenaProtocol.FLAG_LENGTH) != 0) {
+            snake.length = ArenaProtocol.getVarInt(in);
+        }
+        if ((flags & ArenaProtocol.FLAG_SCORE) != 0) {
+            snake.score = ArenaProtocol.getVarInt(in);
+        }
+        if ((flags & ArenaProtocol.FLAG_KEYFRAME) != 0) {
+            int points = ArenaProtocol.getVarInt(in);
+            if (pathX.length < points) {
+                pathX = new double[points * 2];
+                pathY = new double[points * 2];
+            }
+            int x = 0;
+            int y = 0;
+            for (int i = 0; i < points; i++) {
+                x += ArenaProtocol.getSigned(in);
+                y += ArenaProtocol.getSigned(in);
+                pathX[i] = ArenaProtocol.position(x);
+                pathY[i] = ArenaProtocol.position(y);
+            }
+            snake.lastX = x;
+            snake.lastY = y;
+            snake.body.resetPath(pathX, pathY, points, snake.length);
+            return true;
+        }
+        int points = ArenaProtocol.getVarInt(in);
+        for (int i = 0; i < points; i++) {
+            snake.lastX += ArenaProtocol.getSigned(in);
+            snake.lastY += ArenaProtocol.getSigned(in);
+            snake.body.beginStep();
+            snake.body.moveHead(ArenaProtocol.position(snake.lastX), ArenaProtocol.position(snake.lastY));
+        }
+        while (snake.body.getLength() < snake.length) {
+            snake.body.grow();
+        }
+        return false;
+    }
+
+    /**
+     * Recalcule la tête prédite pour l'instant client {@code now} : l'état
+     * reçu avance tick par tick jusqu'à now plus un demi aller-retour, en
+     * appliquant chaque entrée en attente une fois arrivée au serveur.
+     */
+    public void predict(long now) {
+        predictAt(now + (long) (smoothedRttNanos / 2));
+    }
+
+    // Tête prédite pour l'instant `target`, en temps client, côté serveur
+    private void predictAt(long target) {
+        long oneWay = (long) (smoothedRttNanos / 2);
+        double ticks = Math.min(MAX_PREDICTED_TICKS, Math.max(0, target - authoritativeNanos) / (double) GameLoop.TICK_NANOS);
+        double x = authoritativeX;
+        double y = authoritativeY;
+        Direction direction = authoritativeDirection;
+        Direction[] directions = Direction.values();
+        long tickNanos = authoritativeNanos;
+        int next = 0;
+        while (ticks > 0) {
+            // Une entrée par tick, comme sur le serveur
+            if (next < pendingCount && pendingNanos[next] + oneWay <= tickNanos) {
+                Direction input = directions[pendingDirection[next]];
+                if (input != direction.opposite()) {
+                    direction = input;
+                }
+                next++;
+            }
+            double step = Math.min(1, ticks);
+            x += direction.dx * speed * step;
+            y += direction.dy * speed * step;
+            ticks -= step;
+            tickNanos += GameLoop.TICK_NANOS;
+        }
+        predictedX = x;
+        predictedY = y;
+    }
+
+    // Numéros sur SEQ_MASK bits : `seq` est atteint si l'accusé n'est pas plus d'une demi-plage derrière
+    private static boolean seqReached(int seq, int ack) {
+        return ((ack - seq) & Arena.SEQ_MASK) < (Arena.SEQ_MASK >>> 1);
+    }
+
+    private void dropPending(int n) {
+        if (n == 0) {
+            return;
+        }
+        pendingCount -= n;
+        System.arraycopy(pendingSeq, n, pendingSeq, 0, pendingCount);
+        System.arraycopy(pendingDirection, n, pendingDirection, 0, pendingCount);
+        System.arraycopy(pendingNanos, n, pendingNanos, 0, pendingCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public boolean isReady() {
+        return ownId >= 0;
+    }
+
+    public int getOwnId() {
+        return ownId;
+    }
+
+    RemoteSnake getSnake(int id) {
+        return snakes[id];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public Apple getApple() {
+        return apple;
+    }
+
+    public long getServerTick() {
+        return serverTick;
+    }
+
+    public double getPredictedX() {
+        return predictedX;
+    }
+
+    public double getPredictedY() {
+        return predictedY;
+    }
+
+    public double getSmoothedRttMillis() {
+        return smoothedRttNanos / 1e6;
+    }
+
+    public TickStats getRttStats() {
+        return rttStats;
+    }
+
+    public TickStats getPredictionErrorStats() {
+        return predictionErrorStats;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getSnapshots() {
+        return snapshots;
+    }
+}
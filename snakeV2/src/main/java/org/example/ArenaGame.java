@@ -0,0 +1,104 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Fenêtre de jeu de l'arène multijoueur : les flèches envoient des entrées au
+ * {@link ArenaServer}, l'affichage suit l'état reçu et la tête prédite.
+ * Tout (réseau compris) se passe dans le thread Swing : le canal est non
+ * bloquant et lu à chaque image.
+ *
+ * Usage : ArenaGame [port]
+ */
+public class ArenaGame extends JPanel implements ActionListener {
+    private static final long serialVersionUID = 1L;
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    private static final int FRAME_DELAY = 8;
+
+    private final ArenaClient client;
+    private final GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+    private final Timer timer = new Timer(FRAME_DELAY, this);
+
+    public ArenaGame(ArenaClient client) {
+        this.client = client;
+        addKeyListener(new TAdapter());
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        timer.start();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        try {
+            if (!client.poll()) {
+                disconnected("Le serveur a fermé la connexion");
+                return;
+            }
+        } catch (IOException ex) {
+            disconnected("Connexion perdue : " + ex.getMessage());
+            return;
+        }
+        if (client.isReady()) {
+            client.predict(System.nanoTime());
+        }
+        repaint();
+    }
+
+    private void disconnected(String message) {
+        timer.stop();
+        System.err.println(message);
+        JOptionPane.showMessageDialog(this, message);
+        SwingUtilities.getWindowAncestor(this).dispose();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (client.isReady()) {
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            renderer.drawArena(g2d, client);
+        }
+    }
+
+    private class TAdapter extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            Direction direction;
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_LEFT: direction = Direction.LEFT; break;
+                case KeyEvent.VK_RIGHT: direction = Direction.RIGHT; break;
+                case KeyEvent.VK_UP: direction = Direction.UP; break;
+                case KeyEvent.VK_DOWN: direction = Direction.DOWN; break;
+                default: return;
+            }
+            try {
+                client.sendInput(direction);
+            } catch (IOException ex) {
+                disconnected("Connexion perdue : " + ex.getMessage());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ArenaServer.DEFAULT_PORT;
+        ArenaClient client = ArenaClient.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Snake - Arène");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new ArenaGame(client));
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
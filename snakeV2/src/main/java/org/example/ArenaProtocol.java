@@ -0,0 +1,136 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Format binaire de l'arène multijoueur (gros-boutiste). Chaque message est
+ * précédé de sa longueur (int) et commence par son type (octet).
+ *
+ * Client vers serveur :
+ * <ul>
+ *   <li>INPUT : numéro d'entrée (int), horodatage {@code nanoTime} du client
+ *       (long), direction (octet).</li>
+ * </ul>
+ * Serveur vers client :
+ * <ul>
+ *   <li>WELCOME : identifiant du serpent du joueur (short), largeur et hauteur
+ *       du plateau (int), difficulté (octet).</li>
+ *   <li>SNAPSHOT : tick (varint), dernière entrée traitée et son horodatage
+ *       client (varint, long), pomme, puis les serpents qui ont changé depuis
+ *       le dernier état envoyé à ce client.</li>
+ * </ul>
+ *
+ * Un serpent est décrit par son identifiant (varint), des drapeaux FLAG_*, les
+ * champs modifiés (direction, vitesse, longueur, score), puis ses nouveaux
+ * points de trace : les écarts avec le point précédent, en 1/POSITION_SCALE
+ * de pixel (varint zigzag). Une image clé (nouveau venu, réapparition, retard
+ * trop grand) donne à la place les points de tout le corps, le premier en
+ * absolu. Les positions sont quantifiées sur le serveur avant le calcul des
+ * écarts : la somme des écarts redonne exactement la position, sans dérive.
+ */
+final class ArenaProtocol {
+    static final int MSG_WELCOME = 1;
+    static final int MSG_SNAPSHOT = 2;
+    static final int MSG_INPUT = 3;
+
+    static final int INPUT_BYTES = 4 + 1 + 4 + 8 + 1;
+    static final int WELCOME_BYTES = 4 + 1 + 2 + 4 + 4 + 1;
+
+    static final int POSITION_SCALE = 8;
+    static final int SPEED_SCALE = 256;
+
+    static final int FLAG_ALIVE = 1;
+    static final int FLAG_KEYFRAME = 2;
+    static final int FLAG_REMOVED = 4;
+    static final int FLAG_DIRECTION = 8;
+    static final int FLAG_SPEED = 16;
+    static final int FLAG_LENGTH = 32;
+    static final int FLAG_SCORE = 64;
+
+    static final int APPLE_UNCHANGED = 0;
+    static final int APPLE_NONE = 1;
+    static final int APPLE_SET = 2;
+
+    private ArenaProtocol() {
+    }
+
+    /**
+     * Taille maximale d'un SNAPSHOT sur un plateau de cette taille, longueur
+     * comprise : tous les serpents, chacun avec au plus un segment par case
+     * et HISTORY points d'écart, à 10 octets par point (deux varints).
+     */
+    static long maxSnapshotBytes(int width, int height) {
+        long cells = (long) (width / SnakeEngine.DOT_SIZE) * (height / SnakeEngine.DOT_SIZE);
+        return 64 + Arena.MAX_SNAKES * (32 + (cells + Arena.HISTORY) * 10);
+    }
+
+    static int quantize(double position) {
+        return (int) Math.round(position * POSITION_SCALE);
+    }
+
+    static double position(int quantized) {
+        return (double) quantized / POSITION_SCALE;
+    }
+
+    static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Écart signé en varint : les petites valeurs négatives restent sur un octet
+    static void putSigned(ByteBuffer buffer, int value) {
+        putVarInt(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    static int getSigned(ByteBuffer buffer) {
+        int raw = getVarInt(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // Réserve la place de la longueur et écrit le type ; à refermer avec endMessage()
+    static int beginMessage(ByteBuffer buffer, int type) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put((byte) type);
+        return start;
+    }
+
+    static void endMessage(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+}
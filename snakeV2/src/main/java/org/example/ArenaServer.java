@@ -0,0 +1,501 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Serveur de l'arène multijoueur : un seul thread fait tourner le Selector
+ * (connexions, entrées des clients) et avance l'{@link Arena} à pas fixe,
+ * puis envoie à chaque client ce qui a changé depuis le dernier état qu'il a
+ * reçu (voir {@link ArenaProtocol}).
+ *
+ * Le serveur garde pour chaque client et chaque serpent ce qui lui a déjà été
+ * envoyé. Si un client ne lit pas assez vite, l'état du tick est simplement
+ * sauté : le suivant repart de ce que le client a vraiment reçu, si bien
+ * qu'aucun changement n'est perdu.
+ *
+ * Usage : ArenaServer [port] [difficulté] [côté du plateau]
+ */
+public class ArenaServer implements Runnable {
+    public static final int DEFAULT_PORT = 7778;
+    private static final int READ_BUFFER_BYTES = 4096;
+    private static final int INITIAL_OUT_BYTES = 4096;
+
+    // État d'un client connecté et de ce qu'il sait de l'arène
+    static final class Client {
+        final SocketChannel channel;
+        final Arena.Snake snake;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        ByteBuffer out = ByteBuffer.allocate(INITIAL_OUT_BYTES);
+
+        final boolean[] known = new boolean[Arena.MAX_SNAKES];
+        final int[] sentGeneration = new int[Arena.MAX_SNAKES];
+        final long[] sentSamples = new long[Arena.MAX_SNAKES];
+        final byte[] sentDirection = new byte[Arena.MAX_SNAKES];
+        final boolean[] sentAlive = new boolean[Arena.MAX_SNAKES];
+        final int[] sentLength = new int[Arena.MAX_SNAKES];
+        final int[] sentScore = new int[Arena.MAX_SNAKES];
+        int sentAppleVersion = -1;
+        int sentAckSeq = -1;
+
+        boolean closed;
+
+        Client(SocketChannel channel, Arena.Snake snake) {
+            this.channel = channel;
+            this.snake = snake;
+            out.limit(0);
+        }
+    }
+
+    private final Arena arena;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final List<Client> clients = new ArrayList<>();
+    private final List<Arena.Snake> leaving = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // Points de trace tampon pour les images clés
+    private double[] pathX = new double[64];
+    private double[] pathY = new double[64];
+
+    private final TickStats tickStats = new TickStats();
+    private volatile long bytesSent;
+    private volatile long snapshotsSent;
+    private volatile long snapshotsSkipped;
+    private volatile long keyframes;
+
+    // Taille qu'aurait l'état complet, pour mesurer le gain des écarts
+    private boolean measureFullState;
+    private ByteBuffer fullState = ByteBuffer.allocate(INITIAL_OUT_BYTES);
+    private volatile long fullStateBytes;
+
+    public ArenaServer(int port, Arena arena) throws IOException {
+        this.arena = arena;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 256);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+        GameLoop loop = new GameLoop(new GameClock());
+        Runnable tick = this::tick;
+        try {
+            while (running) {
+                long remaining = GameLoop.TICK_NANOS - (long) (loop.alpha() * GameLoop.TICK_NANOS);
+                selector.select(Math.max(1, remaining / 1_000_000));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                loop.advance(tick);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur réseau de l'arène: " + e.getMessage());
+        } finally {
+            for (Client client : clients) {
+                closeQuietly(client.channel);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                // Fermeture de toute façon
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            Arena.Snake snake = arena.join();
+            if (snake == null) {
+                // Arène pleine
+                channel.close();
+                continue;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Client client = new Client(channel, snake);
+            channel.register(selector, SelectionKey.OP_READ, client);
+            clients.add(client);
+
+            client.out.clear();
+            int start = ArenaProtocol.beginMessage(client.out, ArenaProtocol.MSG_WELCOME);
+            client.out.putShort((short) snake.id);
+            client.out.putInt(arena.getWidth());
+            client.out.putInt(arena.getHeight());
+            client.out.put((byte) arena.getDifficulty().ordinal());
+            ArenaProtocol.endMessage(client.out, start);
+            client.out.flip();
+            flush(client);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Client client = (Client) key.attachment();
+        int n;
+        try {
+            n = client.channel.read(client.in);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            key.cancel();
+            disconnect(client);
+            return;
+        }
+        ByteBuffer in = client.in;
+        in.flip();
+        while (in.remaining() >= ArenaProtocol.INPUT_BYTES) {
+            int length = in.getInt();
+            int type = in.get();
+            if (length != ArenaProtocol.INPUT_BYTES - 4 || type != ArenaProtocol.MSG_INPUT) {
+                // Client hors protocole
+                key.cancel();
+                disconnect(client);
+                return;
+            }
+            int seq = in.getInt();
+            long clientNanos = in.getLong();
+            int direction = in.get();
+            if (direction >= 0 && direction < 4) {
+                arena.offerInput(client.snake, seq, clientNanos, Direction.values()[direction]);
+            }
+        }
+        in.compact();
+    }
+
+    private void disconnect(Client client) {
+        if (!client.closed) {
+            client.closed = true;
+            closeQuietly(client.channel);
+            arena.leave(client.snake);
+            leaving.add(client.snake);
+        }
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        arena.tick();
+        int fullSize = measureFullState ? fullStateSize() : 0;
+        for (int i = 0; i < clients.size(); i++) {
+            Client client = clients.get(i);
+            if (!client.closed && sendSnapshot(client)) {
+                fullStateBytes += fullSize;
+            }
+        }
+        clients.removeIf(client -> client.closed);
+        // Tous les clients encore là ont reçu (ou recevront avec leur prochain état) le départ
+        for (Arena.Snake snake : leaving) {
+            boolean announced = true;
+            for (Client client : clients) {
+                if (client.known[snake.id]) {
+                    announced = false;
+                    break;
+                }
+            }
+            if (announced) {
+                arena.forget(snake);
+            }
+        }
+        leaving.removeIf(snake -> arena.getSnake(snake.id) != snake);
+        tickStats.record(System.nanoTime() - start);
+    }
+
+    // false si l'état de ce tick a été sauté
+    private boolean sendSnapshot(Client client) {
+        if (client.out.hasRemaining()) {
+            // L'état précédent n'est pas encore parti : on saute celui-ci
+            flush(client);
+            snapshotsSkipped++;
+            return false;
+        }
+        ByteBuffer out = client.out;
+        out.clear();
+        int start = ArenaProtocol.beginMessage(out, ArenaProtocol.MSG_SNAPSHOT);
+        Arena.Snake own = client.snake;
+        ArenaProtocol.putVarLong(out, arena.getTick());
+        ArenaProtocol.putVarInt(out, own.ackSeq);
+        out.putLong(own.ackClientNanos);
+        encodeApple(client, out);
+
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int count = 0;
+        for (int id = 0; id < arena.getSnakeCount(); id++) {
+            Arena.Snake snake = arena.getSnake(id);
+            if (snake == null) {
+                client.known[id] = false;
+                continue;
+            }
+            int needed = 32 + (snake.body.getLength() + Arena.HISTORY) * 10;
+            if (out.remaining() < needed) {
+                out = grow(client, needed);
+            }
+            if (encodeSnake(client, snake, out)) {
+                count++;
+            }
+        }
+        out.putShort(countPosition, (short) count);
+        ArenaProtocol.endMessage(out, start);
+        out.flip();
+        bytesSent += out.remaining();
+        snapshotsSent++;
+        flush(client);
+        return true;
+    }
+
+    // État complet du tick, comme si chaque client venait d'arriver
+    private int fullStateSize() {
+        ByteBuffer out = fullState;
+        out.clear();
+        int start = ArenaProtocol.beginMessage(out, ArenaProtocol.MSG_SNAPSHOT);
+        ArenaProtocol.putVarLong(out, arena.getTick());
+        ArenaProtocol.putVarInt(out, 0);
+        out.putLong(0);
+        out.put((byte) ArenaProtocol.APPLE_SET);
+        out.putShort((short) 0).putShort((short) 0).put((byte) 0);
+        out.putShort((short) 0);
+        int all = ArenaProtocol.FLAG_KEYFRAME | ArenaProtocol.FLAG_DIRECTION | ArenaProtocol.FLAG_SPEED
+                | ArenaProtocol.FLAG_LENGTH | ArenaProtocol.FLAG_SCORE | ArenaProtocol.FLAG_ALIVE;
+        for (int id = 0; id < arena.getSnakeCount(); id++) {
+            Arena.Snake snake = arena.getSnake(id);
+            if (snake == null || snake.removed) {
+                continue;
+            }
+            int needed = 32 + snake.body.getLength() * 10;
+            if (out.remaining() < needed) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + needed));
+                out.flip();
+                larger.put(out);
+                out = larger;
+                fullState = larger;
+            }
+            writeSnake(snake, all, 0, out);
+        }
+        ArenaProtocol.endMessage(out, start);
+        return out.position();
+    }
+
+    private void encodeApple(Client client, ByteBuffer out) {
+        if (client.sentAppleVersion == arena.getAppleVersion()) {
+            out.put((byte) ArenaProtocol.APPLE_UNCHANGED);
+            return;
+        }
+        client.sentAppleVersion = arena.getAppleVersion();
+        Apple apple = arena.getApple();
+        if (apple == null) {
+            out.put((byte) ArenaProtocol.APPLE_NONE);
+        } else {
+            out.put((byte) ArenaProtocol.APPLE_SET);
+            out.putShort((short) apple.x);
+            out.putShort((short) apple.y);
+            out.put((byte) apple.type.ordinal());
+        }
+    }
+
+    // Écrit ce qui a changé pour ce serpent ; false s'il n'y a rien à dire
+    private boolean encodeSnake(Client client, Arena.Snake snake, ByteBuffer out) {
+        int id = snake.id;
+        if (snake.removed) {
+            if (!client.known[id]) {
+                return false;
+            }
+            client.known[id] = false;
+            ArenaProtocol.putVarInt(out, id);
+            out.put((byte) ArenaProtocol.FLAG_REMOVED);
+            return true;
+        }
+        boolean keyframe = !client.known[id] || client.sentGeneration[id] != snake.generation
+                || snake.samples - client.sentSamples[id] >= Arena.HISTORY;
+        int flags = snake.alive ? ArenaProtocol.FLAG_ALIVE : 0;
+        if (keyframe) {
+            flags |= ArenaProtocol.FLAG_KEYFRAME | ArenaProtocol.FLAG_DIRECTION | ArenaProtocol.FLAG_SPEED
+                    | ArenaProtocol.FLAG_LENGTH | ArenaProtocol.FLAG_SCORE;
+        } else {
+            if (client.sentDirection[id] != snake.direction.ordinal()) {
+                flags |= ArenaProtocol.FLAG_DIRECTION;
+            }
+            if (client.sentLength[id] != snake.body.getLength()) {
+                flags |= ArenaProtocol.FLAG_LENGTH;
+            }
+            if (client.sentScore[id] != snake.score) {
+                flags |= ArenaProtocol.FLAG_SCORE;
+            }
+            boolean unchanged = (flags & ~ArenaProtocol.FLAG_ALIVE) == 0
+                    && client.sentAlive[id] == snake.alive
+                    && client.sentSamples[id] == snake.samples;
+            if (unchanged) {
+                return false;
+            }
+        }
+
+        writeSnake(snake, flags, client.sentSamples[id], out);
+        if (keyframe) {
+            keyframes++;
+        }
+
+        client.known[id] = true;
+        client.sentGeneration[id] = snake.generation;
+        client.sentSamples[id] = snake.samples;
+        client.sentDirection[id] = (byte) snake.direction.ordinal();
+        client.sentAlive[id] = snake.alive;
+        client.sentLength[id] = snake.body.getLength();
+        client.sentScore[id] = snake.score;
+        return true;
+    }
+
+    // Champs désignés par `flags`, puis l'image clé ou les points ajoutés depuis `fromSample`
+    private void writeSnake(Arena.Snake snake, int flags, long fromSample, ByteBuffer out) {
+        ArenaProtocol.putVarInt(out, snake.id);
+        out.put((byte) flags);
+        if ((flags & ArenaProtocol.FLAG_DIRECTION) != 0) {
+            out.put((byte) snake.direction.ordinal());
+        }
+        if ((flags & ArenaProtocol.FLAG_SPEED) != 0) {
+            ArenaProtocol.putVarInt(out, (int) Math.round(arena.getSpeed() * ArenaProtocol.SPEED_SCALE));
+        }
+        if ((flags & ArenaProtocol.FLAG_LENGTH) != 0) {
+            ArenaProtocol.putVarInt(out, snake.body.getLength());
+        }
+        if ((flags & ArenaProtocol.FLAG_SCORE) != 0) {
+            ArenaProtocol.putVarInt(out, snake.score);
+        }
+        if ((flags & ArenaProtocol.FLAG_KEYFRAME) != 0) {
+            encodeKeyframe(snake, out);
+        } else {
+            // Points ajoutés depuis le dernier état reçu, en écarts avec le précédent
+            int mask = Arena.HISTORY - 1;
+            ArenaProtocol.putVarInt(out, (int) (snake.samples - fromSample));
+            for (long k = fromSample; k < snake.samples; k++) {
+                int slot = (int) (k & mask);
+                int previous = (int) ((k - 1) & mask);
+                ArenaProtocol.putSigned(out, snake.historyX[slot] - snake.historyX[previous]);
+                ArenaProtocol.putSigned(out, snake.historyY[slot] - snake.historyY[previous]);
+            }
+        }
+    }
+
+    /**
+     * Image clé : un point par segment le long de la trace, de la queue à la
+     * tête. Le dernier point est exactement la tête quantifiée, base des
+     * écarts suivants.
+     */
+    private void encodeKeyframe(Arena.Snake snake, ByteBuffer out) {
+        SnakeBody body = snake.body;
+        int length = body.getLength();
+        if (pathX.length < length) {
+            pathX = new double[length * 2];
+            pathY = new double[length * 2];
+        }
+        body.sampleSegments(body.headDistance(), length, pathX, pathY);
+        ArenaProtocol.putVarInt(out, length);
+        int previousX = 0;
+        int previousY = 0;
+        for (int i = 0; i < length; i++) {
+            int x = ArenaProtocol.quantize(pathX[i]);
+            int y = ArenaProtocol.quantize(pathY[i]);
+            ArenaProtocol.putSigned(out, x - previousX);
+            ArenaProtocol.putSigned(out, y - previousY);
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    private ByteBuffer grow(Client client, int needed) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(client.out.capacity() * 2, client.out.position() + needed));
+        client.out.flip();
+        larger.put(client.out);
+        client.out = larger;
+        return larger;
+    }
+
+    private void flush(Client client) {
+        try {
+            client.channel.write(client.out);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Rien à faire
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public TickStats getTickStats() {
+        return tickStats;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    public long getSnapshotsSkipped() {
+        return snapshotsSkipped;
+    }
+
+    // À activer avant run() : chaque tick encode aussi l'état complet, sans l'envoyer
+    public void setMeasureFullState(boolean measureFullState) {
+        this.measureFullState = measureFullState;
+    }
+
+    public long getFullStateBytes() {
+        return fullStateBytes;
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Difficulty difficulty = args.length > 1 ? Difficulty.valueOf(args[1]) : Difficulty.MEDIUM;
+        int side = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+        ArenaServer server = new ArenaServer(port, new Arena(side, side, difficulty, System.nanoTime()));
+        System.out.printf("Arène %dx%d (%s) sur le port %d%n", side, side, difficulty.label, server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,320 @@
+package org.example;
+
+import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mixeur audio logiciel sur son propre thread.
+ *
+ * Tous les sons sont décodés une fois en PCM 16 bits au chargement, puis
+ * mélangés dans une seule SourceDataLine. Le thread de jeu se contente de
+ * déposer des commandes dans une file sans verrou : aucun appel bloquant ni
+ * accès au matériel audio ne reste sur la boucle de jeu. Le volume est
+ * appliqué pendant le mixage.
+ */
+public class AudioEngine implements Runnable {
+    public enum Sound {
+        MOVE("/sounds/move.wav"),
+        EAT("/sounds/eat.wav"),
+        CRASH("/sounds/crash.wav"),
+        START("/sounds/start.wav");
+
+        final String path;
+
+        Sound(String path) {
+            this.path = path;
+        }
+    }
+
+    private static final float SAMPLE_RATE = 44100f;
+    private static final int CHANNELS = 2;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+    // 256 trames par bloc, soit environ 5,8 ms
+    private static final int BLOCK_FRAMES = 256;
+    private static final int LINE_BLOCKS = 4;
+    private static final int MAX_VOICES = 16;
+
+    private static final int COMMAND_STOP_ALL = -1;
+
+    // PCM entrelacé de chaque son, null si le fichier est absent
+    private final short[][] samples = new short[Sound.values().length][];
+
+    private final EventRing commands = new EventRing(64);
+    private volatile float volume = 1.0f;
+    private volatile boolean enabled = true;
+    private volatile boolean running;
+
+    // Voix actives, manipulées uniquement par le thread de mixage
+    private final int[] voiceSound = new int[MAX_VOICES];
+    private final int[] voicePosition = new int[MAX_VOICES];
+    private int voiceCount;
+
+    private final int[] mixBuffer = new int[BLOCK_FRAMES * CHANNELS];
+    private final byte[] outBuffer = new byte[BLOCK_FRAMES * CHANNELS * 2];
+
+    private SourceDataLine line;
+    private Thread thread;
+
+    // Latence commande -> sortie, mesurée par le thread de mixage
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private volatile double averageLatencyNanos;
+
+    public void loadSounds() {
+        for (Sound sound : Sound.values()) {
+            load(sound);
+        }
+    }
+
+    private void load(Sound sound) {
+        try {
+            samples[sound.ordinal()] = decode(sound.path);
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement du son " + sound.name().toLowerCase() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * loadSounds() puis start(), sans bloquer l'appelant : chaque son est
+     * décodé sur son propre thread pendant qu'un autre ouvre la sortie audio,
+     * et le mixage démarre quand tout est prêt. D'ici là, play() ne fait rien.
+     */
+    public CompletableFuture<Void> startAsync() {
+        Sound[] sounds = Sound.values();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[sounds.length + 1];
+        for (Sound sound : sounds) {
+            tasks[sound.ordinal()] = CompletableFuture.runAsync(() -> load(sound));
+        }
+        CompletableFuture<Boolean> output = CompletableFuture.supplyAsync(this::openLine);
+        tasks[sounds.length] = output;
+        // running, écrit après le décodage, publie les sons au thread de jeu
+        return CompletableFuture.allOf(tasks).thenRun(() -> {
+            if (output.join()) {
+                startMixer();
+            }
+        });
+    }
+
+    private short[] decode(String path) throws Exception {
+        URL url = getClass().getResource(path);
+        if (url == null) {
+            throw new IllegalStateException("ressource introuvable " + path);
+        }
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(url);
+             AudioInputStream pcm = toMixFormat(source)) {
+            byte[] bytes = readAll(pcm);
+            short[] pcmSamples = new short[bytes.length / 2];
+            for (int i = 0; i < pcmSamples.length; i++) {
+                pcmSamples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+            }
+            return pcmSamples;
+        }
+    }
+
+    private static AudioInputStream toMixFormat(AudioInputStream source) {
+        if (source.getFormat().matches(FORMAT)) {
+            return source;
+        }
+        // Passage par du PCM signé 16 bits avant le rééchantillonnage si besoin
+        AudioFormat sourceFormat = source.getFormat();
+        AudioInputStream pcm = source;
+        if (sourceFormat.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || sourceFormat.getSampleSizeInBits() != 16) {
+            AudioFormat signed = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            pcm = AudioSystem.getAudioInputStream(signed, source);
+        }
+        return AudioSystem.getAudioInputStream(FORMAT, pcm);
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Ouvre la sortie audio et démarre le thread de mixage. Sans périphérique
+     * audio, le moteur reste silencieux et play() ne fait rien.
+     */
+    public void start() {
+        if (openLine()) {
+            startMixer();
+        }
+    }
+
+    private boolean openLine() {
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, outBuffer.length * LINE_BLOCKS);
+            line.start();
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'ouverture de la sortie audio: " + e.getMessage());
+            line = null;
+            return false;
+        }
+    }
+
+    private void startMixer() {
+        running = true;
+        thread = new Thread(this, "snake-audio");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Appelé par le thread de jeu uniquement (producteur unique de la file)
+    public void play(Sound sound) {
+        if (running && enabled && samples[sound.ordinal()] != null) {
+            commands.offer(sound.ordinal(), System.nanoTime());
+        }
+    }
+
+    public void stopAll() {
+        if (running) {
+            commands.offer(COMMAND_STOP_ALL, System.nanoTime());
+        }
+    }
+
+    public void setVolume(float newVolume) {
+        volume = Math.max(0.0f, Math.min(1.0f, newVolume));
+    }
+
+    public float getVolume() {
+        return volume;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            stopAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public double getAverageLatencyNanos() {
+        return averageLatencyNanos;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                drainCommands();
+                mixBlock();
+                // L'écriture bloque tant que la ligne est pleine : c'est elle qui cadence le thread
+                line.write(outBuffer, 0, outBuffer.length);
+            }
+        } finally {
+            line.drain();
+            line.close();
+        }
+    }
+
+    private void drainCommands() {
+        while (!commands.isEmpty()) {
+            int command = commands.peekValue();
+            long issued = commands.peekTime();
+            commands.remove();
+
+            if (command == COMMAND_STOP_ALL) {
+                voiceCount = 0;
+                continue;
+            }
+            startVoice(command);
+            recordLatency(issued);
+        }
+    }
+
+    private void startVoice(int sound) {
+        if (voiceCount == MAX_VOICES) {
+            // On sacrifie la voix la plus ancienne
+            System.arraycopy(voiceSound, 1, voiceSound, 0, MAX_VOICES - 1);
+            System.arraycopy(voicePosition, 1, voicePosition, 0, MAX_VOICES - 1);
+            voiceCount--;
+        }
+        voiceSound[voiceCount] = sound;
+        voicePosition[voiceCount] = 0;
+        voiceCount++;
+    }
+
+    // Temps d'attente dans la file + données déjà en attente dans la ligne
+    private void recordLatency(long issued) {
+        int queuedBytes = line.getBufferSize() - line.available();
+        long bufferedNanos = (long) (queuedBytes / (double) FORMAT.getFrameSize() / SAMPLE_RATE * 1e9);
+        long latency = System.nanoTime() - issued + bufferedNanos;
+        lastLatencyNanos = latency;
+        if (latency > maxLatencyNanos) {
+            maxLatencyNanos = latency;
+        }
+        double average = averageLatencyNanos;
+        averageLatencyNanos = average == 0 ? latency : average * 0.9 + latency * 0.1;
+    }
+
+    private void mixBlock() {
+        Arrays.fill(mixBuffer, 0);
+
+        for (int v = 0; v < voiceCount; v++) {
+            short[] data = samples[voiceSound[v]];
+            int position = voicePosition[v];
+            int n = Math.min(mixBuffer.length, data.length - position);
+            for (int i = 0; i < n; i++) {
+                mixBuffer[i] += data[position + i];
+            }
+            voicePosition[v] = position + n;
+        }
+
+        // Retire les voix terminées
+        int kept = 0;
+        for (int v = 0; v < voiceCount; v++) {
+            if (voicePosition[v] < samples[voiceSound[v]].length) {
+                voiceSound[kept] = voiceSound[v];
+                voicePosition[kept] = voicePosition[v];
+                kept++;
+            }
+        }
+        voiceCount = kept;
+
+        float gain = enabled ? volume : 0f;
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int sample = (int) (mixBuffer[i] * gain);
+            if (sample > Short.MAX_VALUE) {
+                sample = Short.MAX_VALUE;
+            } else if (sample < Short.MIN_VALUE) {
+                sample = Short.MIN_VALUE;
+            }
+            outBuffer[2 * i] = (byte) sample;
+            outBuffer[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Pilote automatique pour les tests d'endurance et de charge.
+ *
+ * Il planifie sur la grille d'occupation (une case par DOT_SIZE pixels) :
+ * plus court chemin en largeur vers la pomme, accepté seulement si la queue
+ * reste accessible depuis la pomme ; sinon il suit sa queue en restant le
+ * plus loin possible d'elle, et en dernier recours il part vers la plus
+ * grande zone libre.
+ *
+ * Le chemin vers la pomme est gardé d'un tick à l'autre : la tête avance case
+ * par case le long du chemin. Quand il est invalidé, parce qu'une case à
+ * venir devient interdite (obstacle mobile) ou que la tête en est sortie
+ * (réflexe, virage manqué), seul un détour rejoignant la suite du chemin est
+ * recherché, et il est recollé en place. Un calcul complet n'a lieu qu'à
+ * l'apparition d'une nouvelle pomme, quand le détour échoue, ou pour retenter
+ * la pomme en suivant la queue. Toutes les recherches réutilisent les mêmes
+ * tableaux, marqués par numéro de passage : aucun effacement ni allocation
+ * par recherche.
+ *
+ * Les virages sont pris en cours de tick ({@link #turnSubTick}), au sous-tick
+ * où la tête passe sur un multiple de DOT_SIZE : toutes les voies sont
+ * alignées sur la grille, à une case exactement les unes des autres. Deux
+ * voies voisines décalées de moins d'une demi-case se toucheraient (règle de
+ * collision du jeu d'origine), et une voie décalée vers le bord gauche ou
+ * haut sortirait du plateau.
+ */
+public class Autopilot {
+    private static final int NONE = -1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // Nombre de cases parcourues derrière la queue avant de retenter la pomme
+    private static final int CHASE_RETRY_CELLS = 8;
+    // Distance minimale (en cases) entre la tête et la queue qu'elle suit
+    private static final int MIN_TAIL_GAP = 3;
+
+    private OccupancyGrid grid;
+    private int cols;
+    private int rows;
+
+    // Tableaux de travail réutilisés par toutes les recherches
+    private int[] parent = new int[0];
+    private int[] queue = new int[0];
+    private int[] visitMark = new int[0];
+    private int visitStamp;
+    private int[] pathMark = new int[0];
+    private int pathStamp;
+
+    // Chemin en cours : path[pathIndex] est la case de la tête
+    private int[] path = new int[64];
+    private int pathLength;
+    private int pathIndex;
+    private int pathTarget = NONE;
+    private boolean chasingTail;
+    private int chaseCells;
+
+    // Numéro (SnakeEngine.getAppleSerial) de la pomme visée par le chemin en cours
+    private int plannedApple = NONE;
+    // Case du prochain point de virage, pour laquelle `desired` a été décidée
+    private int lastTurnCell = NONE;
+    private Direction desired;
+    private int turnSubTick;
+
+    private long fullPlans;
+    private long repairs;
+
+    /**
+     * Direction à donner au moteur pour le prochain tick, ou null pour
+     * continuer tout droit. Le virage est à demander à {@link #turnSubTick}.
+     */
+    public Direction next(SnakeEngine engine) {
+        bind(engine.getGrid());
+        Direction current = engine.getDirection();
+        double speed = engine.getCurrentSpeed();
+        double x = engine.segmentX(0);
+        double y = engine.segmentY(0);
+        // Prochain point de virage : premier multiple de DOT_SIZE devant la tête, à un sous-tick près
+        int dot = SnakeEngine.DOT_SIZE;
+        double along = current.isHorizontal() ? x : y;
+        int sign = current.isHorizontal() ? current.dx : current.dy;
+        double tolerance = speed / SnakeEngine.SUB_TICKS;
+        double aligned = sign > 0 ? Math.ceil((along - tolerance) / dot) * dot
+                : Math.floor((along + tolerance) / dot) * dot;
+        double distance = Math.max(0, (aligned - along) * sign);
+        int cell = current.isHorizontal() ? grid.cellAt(aligned + dot / 2.0, y + dot / 2.0)
+                : grid.cellAt(x + dot / 2.0, aligned + dot / 2.0);
+        if (cell < 0) {
+            // Point de virage hors du plateau : seul le réflexe joue
+            desired = null;
+        } else if (cell != lastTurnCell || engine.getAppleSerial() != plannedApple) {
+            lastTurnCell = cell;
+            desired = decide(engine, cell);
+        }
+        Direction turn = null;
+        turnSubTick = 0;
+        if (desired != null && desired != current && engine.canChangeDirection(desired)) {
+            // Arrondi en dessous : la tête tourne juste avant le point, jamais au-delà (bord du plateau)
+            int subTick = (int) (distance / speed * SnakeEngine.SUB_TICKS);
+            if (subTick < SnakeEngine.SUB_TICKS) {
+                turn = desired;
+                turnSubTick = subTick;
+            }
+        }
+        if (isSafeStep(engine, turn != null ? turn : current, turnSubTick)) {
+            return turn;
+        }
+        // Réflexe : le pas suivant sortirait du plateau ou heurterait le corps
+        turnSubTick = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (engine.canChangeDirection(direction) && isSafeStep(engine, direction, 0)) {
+                return direction == current ? null : direction;
+            }
+        }
+        return turn;
+    }
+
+    /**
+     * Sous-tick ({@code engine.turnAt}) du virage rendu par le dernier appel à
+     * {@link #next}.
+     */
+    public int turnSubTick() {
+        return turnSubTick;
+    }
+
+    // Joue un tick : le virage éventuel à son sous-tick, puis engine.step()
+    public int step(SnakeEngine engine) {
+        Direction turn = next(engine);
+        if (turn != null) {
+            engine.turnAt(turn, turnSubTick);
+        }
+        return engine.step();
+    }
+
+    // Oublie le chemin en cours (nouvelle partie)
+    public void reset() {
+        pathLength = 0;
+        pathIndex = 0;
+        pathTarget = NONE;
+        plannedApple = NONE;
+        lastTurnCell = NONE;
+        desired = null;
+    }
+
+    private void bind(OccupancyGrid newGrid) {
+        if (newGrid == grid) {
+            return;
+        }
+        grid = newGrid;
+        cols = grid.getCols();
+        rows = grid.getRows();
+        int cells = cols * rows;
+        parent = new int[cells];
+        queue = new int[cells];
+        visitMark = new int[cells];
+        pathMark = new int[cells];
+        visitStamp = 0;
+        pathStamp = 0;
+        reset();
+    }
+
+    private Direction decide(SnakeEngine engine, int head) {
+        Apple apple = engine.getApple();
+        int appleCell = apple != null ? grid.cellAt(apple.x + SnakeEngine.DOT_SIZE / 2.0, apple.y + SnakeEngine.DOT_SIZE / 2.0) : NONE;
+
+        if (engine.getAppleSerial() != plannedApple) {
+            plannedApple = engine.getAppleSerial();
+            pathLength = 0;
+            chasingTail = false;
+        }
+        if (chasingTail) {
+            // En suivant la queue, on retente régulièrement la pomme
+            if (++chaseCells >= CHASE_RETRY_CELLS) {
+                planFull(engine, head, appleCell);
+            }
+        } else if (pathLength == 0 || !followPath(head)) {
+            planFull(engine, head, appleCell);
+        }
+
+        if (!chasingTail) {
+            return directionTo(head, path[pathIndex + 1]);
+        }
+        Direction towardTail = followTail(engine, head);
+        return towardTail != null ? towardTail : largestFreeArea(engine, head);
+    }
+
+    /**
+     * Fait avancer l'index du chemin jusqu'à la case de la tête et vérifie
+     * la suite ; un chemin invalidé est réparé.
+     *
+     * @return false s'il faut un calcul complet
+     */
+    private boolean followPath(int head) {
+        int at = NONE;
+        for (int i = pathIndex; i < pathLength; i++) {
+            if (path[i] == head) {
+                at = i;
+                break;
+            }
+        }
+        if (at == NONE) {
+            // La tête est sortie du chemin : on rejoint la partie qu'elle n'avait pas encore parcourue
+            return repair(head, pathIndex + 1);
+        }
+        pathIndex = at;
+        if (pathLength - pathIndex < 2) {
+            return false;
+        }
+        for (int i = pathIndex + 1; i < pathLength; i++) {
+            if (isBlocked(path[i], pathTarget)) {
+                return repair(head, i + 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cherche un détour de {@code start} vers la première case libre de
+     * path[rejoinFrom..], puis réécrit le chemin en place : le détour, suivi
+     * de la suite après le point de jonction.
+     */
+    private boolean repair(int start, int rejoinFrom) {
+        if (rejoinFrom >= pathLength) {
+            return false;
+        }
+        repairs++;
+        pathStamp++;
+        for (int i = rejoinFrom; i < pathLength; i++) {
+            pathMark[path[i]] = pathStamp;
+        }
+        int reached = search(start, NONE, true);
+        if (reached == NONE) {
+            return false;
+        }
+        int rejoin = rejoinFrom;
+        while (path[rejoin] != reached) {
+            rejoin++;
+        }
+        int detour = traceLength(reached, start) + 1;
+        int suffix = pathLength - rejoin - 1;
+        ensurePathCapacity(detour + suffix);
+        System.arraycopy(path, rejoin + 1, path, detour, suffix);
+        pathLength = 0;
+        pathIndex = 0;
+        appendTrace(reached, start);
+        pathLength += suffix;
+        return true;
+    }
+
+    private void planFull(SnakeEngine engine, int head, int appleCell) {
+        fullPlans++;
+        chasingTail = false;
+        chaseCells = 0;
+        pathStamp++;
+        if (appleCell != NONE && appleCell != head && search(head, appleCell, false) != NONE) {
+            pathLength = 0;
+            pathIndex = 0;
+            pathTarget = appleCell;
+            appendTrace(appleCell, head);
+            if (safeAfter(engine)) {
+                return;
+            }
+        }
+
+        // Pas de chemin sûr vers la pomme : on suit la queue, qui libère la place devant elle
+        chasingTail = true;
+        pathLength = 0;
+        pathIndex = 0;
+    }
+
+    /**
+     * Parmi les cases voisines d'où la queue reste accessible, prend celle qui
+     * en est la plus éloignée : le serpent s'enroule sans s'enfermer et laisse
+     * à la queue le temps de libérer la place. Ce choix est refait à chaque
+     * case, la queue bougeant en permanence.
+     */
+    private Direction followTail(SnakeEngine engine, int head) {
+        int tail = engine.getBody().tailCell();
+        if (tail == NONE) {
+            return null;
+        }
+        Direction best = null;
+        int bestDistance = -1;
+        for (Direction direction : DIRECTIONS) {
+            if (!engine.canChangeDirection(direction)) {
+                continue;
+            }
+            int next = neighbor(head % cols, head / cols, direction.ordinal());
+            if (next == NONE || isBlocked(next, NONE)) {
+                continue;
+            }
+            pathStamp++;
+            pathMark[head] = pathStamp;
+            if (search(next, tail, false) == NONE) {
+                continue;
+            }
+            // La case de la queue ne se libère pas avant notre arrivée si elle est trop proche
+            int distance = traceLength(tail, next);
+            if (distance >= MIN_TAIL_GAP && distance > bestDistance) {
+                bestDistance = distance;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    // Une fois la pomme mangée, il faut encore pouvoir rejoindre la queue
+    private boolean safeAfter(SnakeEngine engine) {
+        pathStamp++;
+        for (int i = pathIndex; i < pathLength - 1; i++) {
+            pathMark[path[i]] = pathStamp;
+        }
+        int appleCell = path[pathLength - 1];
+        int tail = engine.getBody().tailCell();
+        return tail != NONE && search(appleCell, tail, false) != NONE;
+    }
+
+    /**
+     * Recherche en largeur depuis {@code from}. Sans {@code target}, s'arrête
+     * sur la première case marquée dans pathMark (réparation d'un chemin).
+     *
+     * @return la case atteinte, ou NONE
+     */
+    private int search(int from, int target, boolean towardMarkedPath) {
+        visitStamp++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        visitMark[from] = visitStamp;
+        parent[from] = NONE;
+        while (head < tail) {
+            int cell = queue[head++];
+            int col = cell % cols;
+            int row = cell / cols;
+            for (int d = 0; d < 4; d++) {
+                int next = neighbor(col, row, d);
+                if (next == NONE || visitMark[next] == visitStamp) {
+                    continue;
+                }
+                boolean marked = pathMark[next] == pathStamp;
+                boolean goal = towardMarkedPath ? marked && !isBlocked(next, pathTarget) : next == target;
+                // Hors réparation, les cases marquées sont celles d'un chemin déjà promis
+                if (!goal && (isBlocked(next, target) || (!towardMarkedPath && marked))) {
+                    continue;
+                }
+                visitMark[next] = visitStamp;
+                parent[next] = cell;
+                if (goal) {
+                    return next;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return NONE;
+    }
+
+    // Nombre de cases libres atteignables depuis `from` (sans les cases marquées), plafonné à `limit`
+    private int floodFill(int from, int limit) {
+        visitStamp++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        visitMark[from] = visitStamp;
+        while (head < tail && tail < limit) {
+            int cell = queue[head++];
+            int col = cell % cols;
+            int row = cell / cols;
+            for (int d = 0; d < 4; d++) {
+                int next = neighbor(col, row, d);
+                if (next == NONE || visitMark[next] == visitStamp
+                        || pathMark[next] == pathStamp || isBlocked(next, NONE)) {
+                    continue;
+                }
+                visitMark[next] = visitStamp;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    // Aucun chemin : on va vers la case voisine qui ouvre le plus d'espace
+    private Direction largestFreeArea(SnakeEngine engine, int head) {
+        Direction best = null;
+        int bestArea = -1;
+        pathStamp++;
+        pathMark[head] = pathStamp;
+        for (Direction direction : DIRECTIONS) {
+            if (!engine.canChangeDirection(direction)) {
+                continue;
+            }
+            int next = neighbor(head % cols, head / cols, direction.ordinal());
+            if (next == NONE || isBlocked(next, NONE)) {
+                continue;
+            }
+            int area = floodFill(next, cols * rows);
+            if (area > bestArea) {
+                bestArea = area;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    private boolean isBlocked(int cell, int target) {
+        if (cell == target) {
+            return false;
+        }
+        return grid.isOccupied(cell);
+    }
+
+    // Voisin dans l'ordre de Direction (haut, bas, gauche, droite), NONE hors du plateau
+    private int neighbor(int col, int row, int d) {
+        switch (d) {
+            case 0: return row > 0 ? (row - 1) * cols + col : NONE;
+            case 1: return row < rows - 1 ? (row + 1) * cols + col : NONE;
+            case 2: return col > 0 ? row * cols + col - 1 : NONE;
+            default: return col < cols - 1 ? row * cols + col + 1 : NONE;
+        }
+    }
+
+    private Direction directionTo(int from, int to) {
+        int dc = to % cols - from % cols;
+        int dr = to / cols - from / cols;
+        if (dr < 0) return Direction.UP;
+        if (dr > 0) return Direction.DOWN;
+        if (dc < 0) return Direction.LEFT;
+        return Direction.RIGHT;
+    }
+
+    // Nombre de pas de `start` à `end` selon les parents de la dernière recherche
+    private int traceLength(int end, int start) {
+        int steps = 0;
+        for (int cell = end; cell != start && cell != NONE; cell = parent[cell]) {
+            steps++;
+        }
+        return steps;
+    }
+
+    // Ajoute au chemin les cases de `start` à `end` en remontant les parents de la dernière recherche
+    private void appendTrace(int end, int start) {
+        int count = 0;
+        for (int cell = end; cell != NONE; cell = parent[cell]) {
+            count++;
+            if (cell == start) {
+                break;
+            }
+        }
+        ensurePathCapacity(pathLength + count);
+        int i = pathLength + count - 1;
+        for (int cell = end; i >= pathLength; cell = parent[cell]) {
+            path[i--] = cell;
+        }
+        pathLength += count;
+    }
+
+    private void ensurePathCapacity(int capacity) {
+        if (capacity > path.length) {
+            path = Arrays.copyOf(path, Math.max(capacity, path.length * 2));
+        }
+    }
+
+    // Position de la tête en fin de tick, après un virage vers `direction` à `subTick`
+    private boolean isSafeStep(SnakeEngine engine, Direction direction, int subTick) {
+        double before = engine.getCurrentSpeed() * subTick / SnakeEngine.SUB_TICKS;
+        double after = engine.getCurrentSpeed() - before;
+        Direction current = engine.getDirection();
+        double x = engine.segmentX(0) + current.dx * before + direction.dx * after;
+        double y = engine.segmentY(0) + current.dy * before + direction.dy * after;
+        if (x < 0 || y < 0 || x >= engine.getWidth() || y >= engine.getHeight()) {
+            return false;
+        }
+        int cell = grid.cellAt(x + SnakeEngine.DOT_SIZE / 2.0, y + SnakeEngine.DOT_SIZE / 2.0);
+        return !grid.isSolid(cell) && !engine.isObstacle(cell);
+    }
+
+    public long getFullPlans() {
+        return fullPlans;
+    }
+
+    public long getRepairs() {
+        return repairs;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Test d'endurance sans affichage : le pilote automatique joue aussi vite que
+ * possible pour faire grandir le serpent, et l'on mesure à intervalles
+ * réguliers le coût d'un tick et celui d'une image complète à la longueur
+ * atteinte. Une partie perdue est relancée avec la graine suivante.
+ * Usage : AutopilotSoak [côté du plateau] [difficulté] [graine] [ticks max]
+ */
+public class AutopilotSoak {
+    private static final long REPORT_TICKS = 200_000;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        Difficulty difficulty = args.length > 1 ? Difficulty.valueOf(args[1]) : Difficulty.MEDIUM;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        long maxTicks = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+        System.setProperty("java.awt.headless", "true");
+
+        GameRenderer renderer = new GameRenderer(side, side);
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        Autopilot pilot = new Autopilot();
+        SnakeEngine engine = new SnakeEngine(side, side, difficulty, seed);
+        int games = 1;
+        int bestLength = engine.getLength();
+        long totalTicks = 0;
+        long intervalStart = System.nanoTime();
+
+        while (totalTicks < maxTicks) {
+            pilot.step(engine);
+            totalTicks++;
+            bestLength = Math.max(bestLength, engine.getLength());
+
+            if (!engine.isAlive()) {
+                System.out.printf("Partie %d perdue au tick %d : longueur %d, score %d%n",
+                        games, engine.getTick(), engine.getLength(), engine.getScore());
+                engine = new SnakeEngine(side, side, difficulty, seed + games);
+                pilot.reset();
+                games++;
+            }
+
+            if (totalTicks % REPORT_TICKS == 0) {
+                double seconds = (System.nanoTime() - intervalStart) / 1e9;
+                long paintStart = System.nanoTime();
+                graphics.clearRect(0, 0, side, side);
+                renderer.drawGame(graphics, engine, 1.0, 0, 0);
+                double paintMillis = (System.nanoTime() - paintStart) / 1e6;
+
+                System.out.printf("tick %d : longueur %d (max %d), %.0f ticks/s, %.0f ns/tick, image %.2f ms,"
+                                + " %d plans, %d réparations%n",
+                        engine.getTick(), engine.getLength(), bestLength, REPORT_TICKS / seconds,
+                        seconds * 1e9 / REPORT_TICKS, paintMillis, pilot.getFullPlans(), pilot.getRepairs());
+                intervalStart = System.nanoTime();
+            }
+        }
+        graphics.dispose();
+        System.out.printf("%d ticks, %d parties, longueur maximale %d%n", totalTicks, games, bestLength);
+    }
+}
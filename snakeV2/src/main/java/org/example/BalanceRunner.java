@@ -0,0 +1,251 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Banc d'équilibrage Monte-Carlo : simule sans affichage un grand nombre de
+ * parties par difficulté, réparties sur tous les cœurs avec fork/join, selon
+ * des règles lues dans un fichier (voir {@link GameRules}).
+ *
+ * Chaque partie est écrite dans le CSV dès que son lot est terminé
+ * (difficulté, graine, score, longueur, ticks, secondes de survie). À la fin,
+ * les histogrammes de score, de longueur et de survie de chaque difficulté
+ * sont écrits dans un second fichier, suffixé « -histogrammes ».
+ *
+ * Les graines sont les mêmes pour toutes les difficultés : les écarts entre
+ * difficultés ne viennent donc pas du tirage des pommes.
+ *
+ * Usage : BalanceRunner [parties par difficulté] [pilote random|auto] [sortie CSV] [règles] [graine] [ticks max]
+ */
+public class BalanceRunner {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    // Parties simulées d'un bloc par une tâche feuille
+    private static final int LEAF_GAMES = 256;
+    // Intervalles d'une unité : percentiles exacts, quelques milliers de cases au plus
+    private static final long SCORE_BUCKET = 1;
+    private static final long LENGTH_BUCKET = 1;
+    private static final long SURVIVAL_BUCKET_SECONDS = 1;
+
+    // Résultats agrégés d'une tranche de parties d'une même difficulté
+    static final class Result {
+        final Histogram scores = new Histogram(SCORE_BUCKET);
+        final Histogram lengths = new Histogram(LENGTH_BUCKET);
+        final Histogram survival = new Histogram(SURVIVAL_BUCKET_SECONDS);
+        long ticks;
+
+        void add(Result other) {
+            scores.add(other.scores);
+            lengths.add(other.lengths);
+            survival.add(other.survival);
+            ticks += other.ticks;
+        }
+    }
+
+    // Lignes CSV partagées par toutes les tâches, écrites par blocs entiers
+    static final class CsvSink {
+        private final Writer out;
+
+        CsvSink(Writer out) {
+            this.out = out;
+        }
+
+        synchronized void write(CharSequence rows) {
+            try {
+                out.append(rows);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    static final class SimulationTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Difficulty difficulty;
+        private final GameRules rules;
+        private final boolean autopilot;
+        private final long seed;
+        private final long from;
+        private final long to;
+        private final long maxTicks;
+        private final CsvSink sink;
+        private final AtomicLong finished;
+
+        SimulationTask(Difficulty difficulty, GameRules rules, boolean autopilot, long seed,
+                       long from, long to, long maxTicks, CsvSink sink, AtomicLong finished) {
+            this.difficulty = difficulty;
+            this.rules = rules;
+            this.autopilot = autopilot;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.maxTicks = maxTicks;
+            this.sink = sink;
+            this.finished = finished;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= LEAF_GAMES) {
+                return simulate();
+            }
+            long middle = (from + to) >>> 1;
+            SimulationTask left = split(from, middle);
+            SimulationTask right = split(middle, to);
+            left.fork();
+            Result result = right.compute();
+            result.add(left.join());
+            return result;
+        }
+
+        private SimulationTask split(long start, long end) {
+            return new SimulationTask(difficulty, rules, autopilot, seed, start, end, maxTicks, sink, finished);
+        }
+
+        private Result simulate() {
+            Result result = new Result();
+            StringBuilder rows = new StringBuilder((int) (to - from) * 40);
+            Autopilot pilot = autopilot ? new Autopilot() : null;
+            Direction[] directions = Direction.values();
+
+            for (long g = from; g < to; g++) {
+                long gameSeed = seed + g;
+                SnakeEngine engine = new SnakeEngine(WIDTH, HEIGHT, difficulty, gameSeed, rules);
+                if (pilot != null) {
+                    pilot.reset();
+                    while (engine.isAlive() && engine.getTick() < maxTicks) {
+                        pilot.step(engine);
+                    }
+                } else {
+                    // Joueur aléatoire : tourne en moyenne une fois toutes les 20 ticks
+                    SplittableRandom inputs = new SplittableRandom(gameSeed ^ 0x9E3779B97F4A7C15L);
+                    while (engine.isAlive() && engine.getTick() < maxTicks) {
+                        engine.step(inputs.nextInt(20) == 0 ? directions[inputs.nextInt(directions.length)] : null);
+                    }
+                }
+
+                long survivalMillis = engine.getTick() * SnakeEngine.TICK_MILLIS;
+                result.scores.record(engine.getScore());
+                result.lengths.record(engine.getLength());
+                result.survival.record(survivalMillis / 1000);
+                result.ticks += engine.getTick();
+                rows.append(difficulty.name()).append(',')
+                        .append(gameSeed).append(',')
+                        .append(engine.getScore()).append(',')
+                        .append(engine.getLength()).append(',')
+                        .append(engine.getTick()).append(',')
+                        .append(survivalMillis / 1000).append('.');
+                long millis = survivalMillis % 1000;
+                rows.append(millis < 100 ? (millis < 10 ? "00" : "0") : "").append(millis).append('\n');
+            }
+            sink.write(rows);
+            finished.addAndGet(to - from);
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        boolean autopilot = args.length > 1 && args[1].equals("auto");
+        Path csv = Paths.get(args.length > 2 ? args[2] : "balance.csv");
+        GameRules rules = args.length > 3 && !args[3].equals("-") ? GameRules.load(Paths.get(args[3])) : GameRules.DEFAULT;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        long maxTicks = args.length > 5 ? Long.parseLong(args[5]) : (autopilot ? 200_000 : 1_000_000);
+
+        Difficulty[] difficulties = Difficulty.values();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        AtomicLong finished = new AtomicLong();
+        long totalGames = games * difficulties.length;
+        System.out.printf("%d parties par difficulté, pilote %s, %d threads%n",
+                games, autopilot ? "automatique" : "aléatoire", pool.getParallelism());
+        System.out.println("Règles : " + rules.describe());
+
+        List<SimulationTask> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("difficulty,seed,score,length,ticks,seconds\n");
+            CsvSink sink = new CsvSink(out);
+            for (Difficulty difficulty : difficulties) {
+                SimulationTask task = new SimulationTask(difficulty, rules, autopilot, seed, 0, games, maxTicks, sink, finished);
+                tasks.add(task);
+                pool.execute(task);
+            }
+
+            // Suivi de l'avancement pendant que les tâches tournent
+            for (SimulationTask task : tasks) {
+                while (true) {
+                    try {
+                        task.get(5, TimeUnit.SECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        sink.flush();
+                        double seconds = (System.nanoTime() - start) / 1e9;
+                        System.out.printf("%d / %d parties (%.0f parties/s)%n",
+                                finished.get(), totalGames, finished.get() / seconds);
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        Path histograms = Paths.get(csv.toString().replaceFirst("(\\.csv)?$", "-histogrammes.csv"));
+        try (BufferedWriter out = Files.newBufferedWriter(histograms, StandardCharsets.UTF_8)) {
+            out.write("difficulty,metric,from,to,count\n");
+            for (int i = 0; i < difficulties.length; i++) {
+                Result result = tasks.get(i).join();
+                writeHistogram(out, difficulties[i], "score", result.scores);
+                writeHistogram(out, difficulties[i], "length", result.lengths);
+                writeHistogram(out, difficulties[i], "seconds", result.survival);
+            }
+        }
+
+        long totalTicks = 0;
+        System.out.println("Difficulté   score moy/p50/p90/p99/max      longueur moy/p50/p99/max   survie moy/p50/p99 (s)");
+        for (int i = 0; i < difficulties.length; i++) {
+            Result result = tasks.get(i).join();
+            totalTicks += result.ticks;
+            System.out.printf(Locale.ROOT, "%-10s %7.1f %5d %5d %5d %6d   %7.1f %5d %5d %6d   %7.1f %5d %5d%n",
+                    difficulties[i].label,
+                    result.scores.getMean(), result.scores.percentile(50), result.scores.percentile(90),
+                    result.scores.percentile(99), result.scores.getMax(),
+                    result.lengths.getMean(), result.lengths.percentile(50), result.lengths.percentile(99),
+                    result.lengths.getMax(),
+                    result.survival.getMean(), result.survival.percentile(50), result.survival.percentile(99));
+        }
+        System.out.printf("%d parties, %d ticks en %.2f s : %.0f ticks/s -> %s, %s%n",
+                totalGames, totalTicks, seconds, totalTicks / seconds, csv, histograms);
+    }
+
+    private static void writeHistogram(Writer out, Difficulty difficulty, String metric, Histogram histogram)
+            throws IOException {
+        long width = histogram.getBucketWidth();
+        for (int b = 0; b < histogram.getBucketCount(); b++) {
+            long count = histogram.getBucket(b);
+            if (count > 0) {
+                out.write(difficulty.name() + "," + metric + "," + b * width + "," + (b + 1) * width + "," + count + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Environnement d'entraînement : N parties indépendantes avancées ensemble,
+ * pas à pas, pour des agents qui apprennent à jouer.
+ *
+ * À chaque pas, {@link #step(int[])} prend une action par partie (0 : tout
+ * droit, 1 + ordinal d'une {@link Direction} : virage), fait avancer chaque
+ * moteur de ticksPerStep ticks avec les règles du jeu, et écrit dans des
+ * tampons directs alloués une fois pour toutes, en ordre natif :
+ * <ul>
+ * <li>{@link #grids()} : une case par octet, cols × rows octets par partie
+ * (EMPTY, BODY, HEAD, APPLE, OBSTACLE) ;</li>
+ * <li>{@link #features()} : FEATURES floats par partie (tête et pomme en
+ * fraction du plateau, direction, type de pomme, effets actifs, longueur) ;</li>
+ * <li>{@link #rewards()} : un float par partie, les points gagnés pendant le
+ * pas, CRASH_REWARD en cas de collision ;</li>
+ * <li>{@link #dones()} : un octet par partie, 1 si la partie s'est terminée
+ * pendant le pas.</li>
+ * </ul>
+ * Une partie terminée repart aussitôt avec une nouvelle graine : son
+ * observation est alors celle du début de la nouvelle partie.
+ *
+ * Chaque partie garde son propre {@link SnakeEngine}, dont l'état tient
+ * déjà dans des tableaux plats et dont le tick n'alloue rien ; un pas
+ * n'alloue donc rien, hors création du moteur d'une partie qui recommence.
+ * Avec plusieurs threads, les parties sont réparties par lots de BATCH_SIZE
+ * entre le thread appelant et des threads de travail qui attendent le pas
+ * suivant en boucle active (puis en dormant par tranches de PARK_NANOS).
+ *
+ * Usage : BatchEnvironment [parties] [pas] [threads] [difficulté] [ticks par pas]
+ */
+public class BatchEnvironment {
+    public static final byte EMPTY = 0;
+    public static final byte BODY = 1;
+    public static final byte HEAD = 2;
+    public static final byte APPLE = 3;
+    public static final byte OBSTACLE = 4;
+    public static final int FEATURES = 9;
+    public static final float CRASH_REWARD = -1f;
+    // Une partie qui tourne en rond sans fin est arrêtée au bout de tant de ticks
+    static final long MAX_EPISODE_TICKS = 100_000;
+
+    private static final int BATCH_SIZE = 16;
+    private static final int SPINS_BEFORE_PARK = 10_000;
+    private static final long PARK_NANOS = 50_000;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int games;
+    private final int width;
+    private final int height;
+    private final int cols;
+    private final int rows;
+    private final int cells;
+    private final Difficulty difficulty;
+    private final int ticksPerStep;
+
+    private final SnakeEngine[] engines;
+    // Graines des parties suivantes, une suite par partie : le résultat ne dépend pas du nombre de threads
+    private final SplittableRandom[] seeds;
+    private final long[] episodes;
+
+    private final ByteBuffer grids;
+    private final ByteBuffer features;
+    private final ByteBuffer rewards;
+    private final ByteBuffer dones;
+
+    // Pas en cours, partagé avec les threads de travail
+    private int[] actions;
+    private final AtomicInteger nextBatch = new AtomicInteger();
+    private final AtomicInteger pendingWorkers = new AtomicInteger();
+    private volatile long generation;
+    private volatile boolean running = true;
+    private final Thread[] workers;
+    private final byte[] callerRow;
+
+    public BatchEnvironment(int games, int width, int height, Difficulty difficulty, long seed, int threads,
+                            int ticksPerStep) {
+        if (games <= 0 || threads <= 0 || ticksPerStep <= 0) {
+            throw new IllegalArgumentException("Parties, threads et ticks par pas doivent être positifs");
+        }
+        this.games = games;
+        this.width = width;
+        this.height = height;
+        this.cols = width / SnakeEngine.DOT_SIZE;
+        this.rows = height / SnakeEngine.DOT_SIZE;
+        if ((long) cols * rows > OccupancyGrid.DENSE_LIMIT) {
+            throw new IllegalArgumentException("Plateau trop grand pour une observation complète : " + cols + " x " + rows);
+        }
+        this.cells = cols * rows;
+        this.difficulty = difficulty;
+        this.ticksPerStep = ticksPerStep;
+
+        grids = ByteBuffer.allocateDirect(games * cells).order(ByteOrder.nativeOrder());
+        features = ByteBuffer.allocateDirect(games * FEATURES * Float.BYTES).order(ByteOrder.nativeOrder());
+        rewards = ByteBuffer.allocateDirect(games * Float.BYTES).order(ByteOrder.nativeOrder());
+        dones = ByteBuffer.allocateDirect(games).order(ByteOrder.nativeOrder());
+
+        engines = new SnakeEngine[games];
+        seeds = new SplittableRandom[games];
+        episodes = new long[games];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < games; i++) {
+            seeds[i] = root.split();
+        }
+        callerRow = new byte[cells];
+        reset();
+
+        workers = new Thread[threads - 1];
+        for (int w = 0; w < workers.length; w++) {
+            byte[] row = new byte[cells];
+            workers[w] = new Thread(() -> workerLoop(row), "snake-batch-worker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+
+    // Recommence toutes les parties et écrit leurs observations initiales
+    public void reset() {
+        for (int i = 0; i < games; i++) {
+            engines[i] = newEngine(i);
+            rewards.putFloat(i * Float.BYTES, 0f);
+            dones.put(i, (byte) 0);
+            writeObservation(i, callerRow);
+        }
+    }
+
+    private SnakeEngine newEngine(int i) {
+        episodes[i]++;
+        return new SnakeEngine(width, height, difficulty, seeds[i].nextLong());
+    }
+
+    /**
+     * Avance toutes les parties d'un pas. Les tampons d'observation,
+     * de récompense et de fin sont réécrits en place avant le retour.
+     */
+    public void step(int[] actions) {
+        if (actions.length < games) {
+            throw new IllegalArgumentException(actions.length + " actions pour " + games + " parties");
+        }
+        this.actions = actions;
+        nextBatch.set(0);
+        if (workers.length > 0) {
+            pendingWorkers.set(workers.length);
+            generation++;
+        }
+        runBatches(callerRow);
+        int spins = 0;
+        while (pendingWorkers.get() > 0) {
+            // Plus de threads que de cœurs : laisse la main au thread de travail en retard
+            if (++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void workerLoop(byte[] row) {
+        long seen = 0;
+        while (true) {
+            int spins = 0;
+            while (generation == seen) {
+                if (!running) {
+                    return;
+                }
+                if (++spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+            seen = generation;
+            runBatches(row);
+            pendingWorkers.decrementAndGet();
+        }
+    }
+
+    private void runBatches(byte[] row) {
+        int from;
+        while ((from = nextBatch.getAndAdd(BATCH_SIZE)) < games) {
+            int to = Math.min(games, from + BATCH_SIZE);
+            for (int i = from; i < to; i++) {
+                stepGame(i, row);
+            }
+        }
+    }
+
+    private void stepGame(int i, byte[] row) {
+        SnakeEngine engine = engines[i];
+        int action = actions[i];
+        if (action > 0 && action <= DIRECTIONS.length) {
+            engine.turnAt(DIRECTIONS[action - 1], 0);
+        }
+        int scoreBefore = engine.getScore();
+        boolean crashed = false;
+        for (int t = 0; t < ticksPerStep && !crashed; t++) {
+            crashed = (engine.step() & SnakeEngine.EVENT_CRASH) != 0;
+        }
+        float reward = engine.getScore() - scoreBefore;
+        if (crashed) {
+            reward += CRASH_REWARD;
+        }
+        boolean done = crashed || engine.getTick() >= MAX_EPISODE_TICKS;
+        if (done) {
+            engine = newEngine(i);
+            engines[i] = engine;
+        }
+        rewards.putFloat(i * Float.BYTES, reward);
+        dones.put(i, done ? (byte) 1 : 0);
+        writeObservation(i, row);
+    }
+
+    private void writeObservation(int i, byte[] row) {
+        SnakeEngine engine = engines[i];
+        OccupancyGrid grid = engine.getGrid();
+        for (int cell = 0; cell < cells; cell++) {
+            row[cell] = grid.isOccupied(cell) ? (engine.isObstacle(cell) ? OBSTACLE : BODY) : EMPTY;
+        }
+        int head = engine.getBody().headCell();
+        if (head >= 0) {
+            row[head] = HEAD;
+        }
+        Apple apple = engine.getApple();
+        int appleCell = apple != null && apple.isActive ? grid.cellAt(apple.x, apple.y) : -1;
+        if (appleCell >= 0) {
+            row[appleCell] = APPLE;
+        }
+        grids.put(i * cells, row);
+
+        int at = i * FEATURES * Float.BYTES;
+        SnakeBody body = engine.getBody();
+        features.putFloat(at, (float) (body.headX() / width));
+        features.putFloat(at + 4, (float) (body.headY() / height));
+        features.putFloat(at + 8, engine.getDirection().ordinal());
+        features.putFloat(at + 12, appleCell >= 0 ? (float) apple.x / width : -1f);
+        features.putFloat(at + 16, appleCell >= 0 ? (float) apple.y / height : -1f);
+        // 0 sans pomme, sinon 1 + ordinal du type
+        features.putFloat(at + 20, appleCell >= 0 ? apple.type.ordinal() + 1 : 0f);
+        // Vitesse relative : 2 pendant une pomme rapide, 0,5 pendant une lente
+        features.putFloat(at + 24, (float) (engine.getCurrentSpeed() / engine.getRules().speed(difficulty)));
+        features.putFloat(at + 28, engine.isRainbowEffect() ? 1f : 0f);
+        features.putFloat(at + 32, engine.getLength());
+    }
+
+    public ByteBuffer grids() {
+        return grids;
+    }
+
+    public ByteBuffer features() {
+        return features;
+    }
+
+    public ByteBuffer rewards() {
+        return rewards;
+    }
+
+    public ByteBuffer dones() {
+        return dones;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // Parties commencées par cette case depuis la création, la première comprise
+    public long getEpisodes(int i) {
+        return episodes[i];
+    }
+
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Difficulty difficulty = args.length > 3 ? Difficulty.valueOf(args[3]) : Difficulty.MEDIUM;
+        int ticksPerStep = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        BatchEnvironment env = new BatchEnvironment(games, 600, 600, difficulty, 42L, threads, ticksPerStep);
+        int[] actions = new int[games];
+        SplittableRandom random = new SplittableRandom(7);
+        long finished = 0;
+        double totalReward = 0;
+
+        // Préchauffage : le JIT compile le pas avant la mesure
+        for (int s = 0; s < Math.min(steps, 2_000); s++) {
+            env.step(actions);
+        }
+        long start = System.nanoTime();
+        for (int s = 0; s < steps; s++) {
+            for (int i = 0; i < games; i++) {
+                // Agent aléatoire : tourne en moyenne une fois tous les 10 pas
+                actions[i] = random.nextInt(10) == 0 ? 1 + random.nextInt(DIRECTIONS.length) : 0;
+            }
+            env.step(actions);
+            for (int i = 0; i < games; i++) {
+                finished += env.dones.get(i);
+                totalReward += env.rewards.getFloat(i * Float.BYTES);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        env.close();
+
+        long total = (long) games * steps;
+        System.out.printf("%d parties x %d pas (%d threads, %d tick(s) par pas) en %.2f s : %.0f pas/s%n",
+                games, steps, threads, ticksPerStep, seconds, total / seconds);
+        System.out.printf("%d parties terminées, récompense moyenne par pas %.4f%n", finished, totalReward / total);
+    }
+}
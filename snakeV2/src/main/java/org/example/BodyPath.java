@@ -0,0 +1,144 @@
+package org.example;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+
+/**
+ * Ligne brisée du corps, passée au rendu en un seul appel draw() : les
+ * points de la trace sont ajoutés de la queue vers la tête et regroupés en
+ * tronçons de points consécutifs visibles. Le Path2D est vidé à chaque
+ * image mais garde ses tableaux, donc rien n'est alloué une fois le corps
+ * dessiné une première fois.
+ *
+ * Niveau de détail : un point à moins d'un pixel d'écran du dernier point
+ * gardé est sauté, et un point aligné avec ses voisins (à un demi-pixel
+ * près) est fusionné dans le segment. Un corps en lignes droites ne garde
+ * ainsi que ses coins.
+ */
+final class BodyPath {
+    private final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, 256);
+
+    // Tolérance du niveau de détail, en unités du monde (un pixel d'écran)
+    private double tolerance = 1;
+    private boolean open;
+    private double lastX, lastY;
+    private boolean pending;
+    private double pendingX, pendingY;
+    // Point précédent, gardé pour ouvrir un tronçon juste avant la zone visible
+    private boolean hasPrevious;
+    private double previousX, previousY;
+
+    // Vide le chemin ; pixelSize est la taille d'un pixel d'écran en unités du monde
+    void reset(double pixelSize) {
+        path.reset();
+        tolerance = pixelSize;
+        open = false;
+        pending = false;
+        hasPrevious = false;
+    }
+
+    /**
+     * Point suivant de la trace. Un point hors de la zone à dessiner ferme le
+     * tronçon en cours (après y avoir été ajouté, pour que le bord reste
+     * continu) ; le premier point visible qui suit rouvre un tronçon depuis
+     * le point précédent.
+     */
+    void add(double x, double y, boolean visible) {
+        if (visible) {
+            if (!open && hasPrevious) {
+                extend(previousX, previousY);
+            }
+            extend(x, y);
+        } else if (open) {
+            extend(x, y);
+            endRun();
+        }
+        hasPrevious = true;
+        previousX = x;
+        previousY = y;
+    }
+
+    // Oublie le point précédent : le prochain tronçon ne sera pas relié aux points déjà vus
+    void breakRun() {
+        endRun();
+        hasPrevious = false;
+    }
+
+    // Disque isolé (extrémités arrondies d'un trait de longueur nulle)
+    void dot(double x, double y) {
+        path.moveTo(x, y);
+        path.lineTo(x, y);
+    }
+
+    boolean isEmpty() {
+        return path.getCurrentPoint() == null;
+    }
+
+    // Le trait (épaisseur, extrémités) est celui déjà posé sur g
+    void draw(Graphics2D g, Color color) {
+        endRun();
+        if (!isEmpty()) {
+            g.setColor(color);
+            g.draw(path);
+        }
+    }
+
+    private void extend(double x, double y) {
+        if (!open) {
+            path.moveTo(x, y);
+            lastX = x;
+            lastY = y;
+            open = true;
+            pending = false;
+            return;
+        }
+        if (pending) {
+            if (isNear(lastX, lastY, pendingX, pendingY) || isAligned(x, y)) {
+                // Le point en attente n'apporte rien : le nouveau prend sa place
+                pendingX = x;
+                pendingY = y;
+                return;
+            }
+            path.lineTo(pendingX, pendingY);
+            lastX = pendingX;
+            lastY = pendingY;
+        }
+        pending = true;
+        pendingX = x;
+        pendingY = y;
+    }
+
+    private void endRun() {
+        if (open && pending) {
+            path.lineTo(pendingX, pendingY);
+        } else if (open) {
+            // Tronçon d'un seul point : un disque
+            path.lineTo(lastX, lastY);
+        }
+        open = false;
+        pending = false;
+    }
+
+    private boolean isNear(double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        return dx * dx + dy * dy < tolerance * tolerance;
+    }
+
+    // Le point en attente est-il sur le segment du dernier point gardé à (x, y), dans le même sens ?
+    private boolean isAligned(double x, double y) {
+        double ax = pendingX - lastX;
+        double ay = pendingY - lastY;
+        double bx = x - pendingX;
+        double by = y - pendingY;
+        if (ax * bx + ay * by <= 0) {
+            return false;
+        }
+        double cx = x - lastX;
+        double cy = y - lastY;
+        double cross = ax * cy - ay * cx;
+        double half = tolerance / 2;
+        return cross * cross <= half * half * (cx * cx + cy * cy);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage (adressage ouvert, sondage linéaire) qui associe à une
+ * case le numéro du plus récent échantillon solide de la trace qui s'y
+ * trouve ; les plus anciens sont chaînés par {@link SnakeBody}. La capacité
+ * ne change qu'avec celle de la trace, jamais pendant un tick ordinaire.
+ */
+final class CellSampleMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private long[] samples;
+    private int mask;
+    private int shift;
+    private int size;
+
+    CellSampleMap(int capacity) {
+        allocate(capacity);
+    }
+
+    // Plus récent échantillon de la case, ou -1
+    long get(int key) {
+        for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return samples[i];
+            }
+        }
+        return -1;
+    }
+
+    void put(int key, long sample) {
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        samples[i] = sample;
+    }
+
+    // Retrait avec recul des entrées suivantes, pour ne pas laisser de trou dans leur sondage
+    void remove(int key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        size--;
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // L'entrée j peut combler le trou si celui-ci est entre sa case d'origine et j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                samples[hole] = samples[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    // Agrandit la table pour `capacity` entrées au moins, en gardant son contenu
+    void ensureCapacity(int capacity) {
+        if (capacity * 2 <= keys.length) {
+            return;
+        }
+        int[] oldKeys = keys;
+        long[] oldSamples = samples;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldSamples[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        keys = new int[length];
+        samples = new long[length];
+        Arrays.fill(keys, EMPTY);
+        mask = length - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(length);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+}
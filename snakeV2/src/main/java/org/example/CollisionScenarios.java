@@ -0,0 +1,196 @@
+package org.example;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Parties scriptées qui vérifient la collision du serpent avec son propre
+ * corps. Les positions ne sont pas alignées sur les cases : la règle est
+ * celle du jeu d'origine (un échantillon solide à moins de DOT_SIZE / 2 de
+ * la tête sur chaque axe), pas l'occupation de la case de la tête.
+ *
+ * Chaque scénario fait grandir le serpent en allant chercher quelques
+ * pommes, l'amène au milieu du plateau, le décale sur un couloir choisi au
+ * pixel près, puis lui fait faire demi-tour pour longer son corps :
+ * - à 3 px, de part et d'autre d'une limite de lignes : collision, alors
+ *   que la tête et le corps ne partagent jamais de case ;
+ * - à 7 px, dans une même ligne de cases : pas de collision, alors qu'ils
+ *   partagent toutes leurs cases.
+ * Chaque scénario est aussi rejoué avec la règle par case (replays de la
+ * version 5) pour montrer l'écart.
+ *
+ * Les parties sont enregistrées comme des replays : avec un répertoire en
+ * argument, ils y sont écrits et se rejouent avec ReplayRunner ou le jeu.
+ * Lancé par Maven à la phase test ({@code mvn test}) : le code de sortie
+ * est non nul, et le build échoue, si un scénario ne se termine pas comme
+ * prévu.
+ *
+ * Usage : CollisionScenarios [répertoire des replays]
+ */
+public class CollisionScenarios {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    private static final Difficulty DIFFICULTY = Difficulty.EASY;
+    private static final long SEED = 3;
+    private static final int GROWN_LENGTH = 8;
+    // Départ de la manœuvre, vers la droite
+    private static final int START_X = 150;
+    private static final int START_Y = 300;
+    // Couloir parcouru avant le demi-tour, puis distance parcourue au retour
+    private static final double LANE = 70;
+    private static final double RETURN = 40;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length > 0 ? Paths.get(args[0]) : null;
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        boolean ok = check("couloir à 3 px, à cheval sur deux lignes", 3, true, directory);
+        ok &= check("couloir à 7 px, dans une même ligne", 7, false, directory);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, int gap, boolean crashExpected, Path directory) throws Exception {
+        Script script = new Script(gap);
+        Replay replay = script.replay;
+        if (directory != null) {
+            replay.write(directory.resolve("collision-" + gap + "px.bin"));
+        }
+
+        SnakeEngine samples = ReplayRunner.run(replay);
+        SnakeEngine cells = replay.newEngine();
+        cells.useCollisionRule(SnakeEngine.CollisionRule.SWEPT_CELLS);
+        Replay.Player player = replay.player();
+        while (cells.isAlive() && cells.getTick() < replay.getFinalTick()) {
+            player.apply(cells);
+            cells.step();
+        }
+
+        boolean crashed = !samples.isAlive();
+        boolean ok = crashed == crashExpected && samples.getTick() > script.returnTick;
+        System.out.printf("%-42s %s au tick %d (demi-tour au tick %d) ; règle par case : %s%s%n", name,
+                crashed ? "collision" : "pas de collision", samples.getTick(), script.returnTick,
+                cells.isAlive() ? "pas de collision" : "collision au tick " + cells.getTick(),
+                ok ? "" : " -> ÉCHEC, attendu : " + (crashExpected ? "collision" : "pas de collision"));
+        return ok;
+    }
+
+    // Une partie jouée au script et enregistrée au fil des virages
+    private static final class Script {
+        final SnakeEngine engine;
+        final Replay replay;
+        long returnTick;
+
+        Script(int gap) {
+            replay = new Replay(SEED, DIFFICULTY, WIDTH, HEIGHT);
+            engine = replay.newEngine();
+
+            while (engine.getLength() < GROWN_LENGTH) {
+                Apple apple = engine.getApple();
+                steerTowards(apple.x, apple.y);
+            }
+            while (Math.abs(headX() - START_X) > speed() || Math.abs(headY() - START_Y) > speed()) {
+                steerTowards(START_X, START_Y);
+            }
+            if (engine.getDirection() == Direction.LEFT) {
+                turn(Direction.UP, 0);
+                forward(2 * SnakeEngine.DOT_SIZE);
+            }
+            turn(Direction.RIGHT, 0);
+            forward(GROWN_LENGTH * SnakeEngine.DOT_SIZE);
+            if (engine.getCurrentSpeed() != engine.getRules().speed(DIFFICULTY)) {
+                throw new IllegalStateException("Effet de vitesse actif au début de la manœuvre");
+            }
+
+            // Couloir du corps : centre à `gap` px au-dessus d'une limite de lignes, ou dans la même ligne
+            double lane = headY() + SnakeEngine.DOT_SIZE / 2.0;
+            double target = Math.floor(lane / SnakeEngine.DOT_SIZE) * SnakeEngine.DOT_SIZE
+                    + (gap < SnakeEngine.DOT_SIZE / 2 ? SnakeEngine.DOT_SIZE - gap + 1 : 1);
+            turn(Direction.DOWN, 0);
+            turnAfter(target - lane + 2 * SnakeEngine.DOT_SIZE, Direction.RIGHT);
+            forward(LANE);
+
+            turn(Direction.DOWN, 0);
+            turnAfter(gap, Direction.LEFT);
+            step();
+            returnTick = engine.getTick();
+            // Retour le long du corps : ici, la collision est le résultat attendu de l'un des scénarios
+            double start = engine.headDistance(1);
+            while (engine.isAlive() && engine.headDistance(1) - start < RETURN) {
+                engine.step();
+            }
+            replay.finish(engine);
+        }
+
+        private double headX() {
+            return engine.trailX(engine.headDistance(1));
+        }
+
+        private double headY() {
+            return engine.trailY(engine.headDistance(1));
+        }
+
+        private double speed() {
+            return engine.getCurrentSpeed();
+        }
+
+        // Un tick vers (x, y), un axe après l'autre ; un demi-tour passe par un large détour
+        private void steerTowards(double x, double y) {
+            double dx = x - headX();
+            double dy = y - headY();
+            Direction wanted = Math.abs(dx) > speed() / 2
+                    ? (dx > 0 ? Direction.RIGHT : Direction.LEFT)
+                    : (dy > 0 ? Direction.DOWN : Direction.UP);
+            if (wanted == engine.getDirection().opposite()) {
+                Direction side = wanted.dx != 0
+                        ? (headY() < HEIGHT / 2.0 ? Direction.DOWN : Direction.UP)
+                        : (headX() < WIDTH / 2.0 ? Direction.RIGHT : Direction.LEFT);
+                turn(side, 0);
+                forward(2 * SnakeEngine.DOT_SIZE);
+                return;
+            }
+            turn(wanted, 0);
+            step();
+        }
+
+        // Tout droit sur au moins `distance` px
+        private void forward(double distance) {
+            double start = engine.headDistance(1);
+            while (engine.headDistance(1) - start < distance) {
+                step();
+            }
+        }
+
+        // Encore `distance` px tout droit (au moins un tick), puis virage vers `direction` au sous-tick près
+        private void turnAfter(double distance, Direction direction) {
+            do {
+                step();
+                distance -= speed();
+            } while (distance >= speed());
+            int subTick = (int) Math.round(distance / speed() * SnakeEngine.SUB_TICKS);
+            if (subTick >= SnakeEngine.SUB_TICKS) {
+                step();
+                subTick = 0;
+            }
+            turn(direction, subTick);
+        }
+
+        // Virage pris au prochain tick, à `subTick` ; c'est l'appelant qui avance
+        private void turn(Direction direction, int subTick) {
+            if (direction != engine.getDirection() && engine.turnAt(direction, subTick)) {
+                replay.record(engine.getTick(), direction, subTick);
+            }
+        }
+
+        private void step() {
+            engine.step();
+            if (!engine.isAlive()) {
+                throw new IllegalStateException("Le serpent est mort pendant la préparation du scénario, tick "
+                        + engine.getTick());
+            }
+        }
+    }
+}
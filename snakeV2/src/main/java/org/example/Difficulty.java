@@ -0,0 +1,19 @@
+package org.example;
+
+// Niveaux de difficulté
+public enum Difficulty {
+    EASY(2.0, 1.0, "Facile"),
+    MEDIUM(3.0, 1.2, "Normal"),
+    HARD(4.0, 1.5, "Difficile"),
+    EXPERT(5.0, 2.0, "Expert");
+
+    final double speed;
+    final double scoreMultiplier;
+    final String label;
+
+    Difficulty(double speed, double scoreMultiplier, String label) {
+        this.speed = speed;
+        this.scoreMultiplier = scoreMultiplier;
+        this.label = label;
+    }
+}
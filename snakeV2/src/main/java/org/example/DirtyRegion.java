@@ -0,0 +1,72 @@
+package org.example;
+
+import java.awt.Rectangle;
+
+/**
+ * Liste courte de rectangles à redessiner pour l'image suivante.
+ * Les rectangles qui se chevauchent sont fusionnés ; au-delà de
+ * MAX_RECTS, ou sur demande, toute la surface est marquée.
+ */
+class DirtyRegion {
+    private static final int MAX_RECTS = 8;
+
+    private final int width;
+    private final int height;
+    private final Rectangle[] rects = new Rectangle[MAX_RECTS];
+    private int count;
+    private boolean full;
+
+    DirtyRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+        for (int i = 0; i < MAX_RECTS; i++) {
+            rects[i] = new Rectangle();
+        }
+    }
+
+    void clear() {
+        count = 0;
+        full = false;
+    }
+
+    void markAll() {
+        full = true;
+        count = 1;
+        rects[0].setBounds(0, 0, width, height);
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    Rectangle get(int i) {
+        return rects[i];
+    }
+
+    void add(int x, int y, int w, int h) {
+        if (full) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            Rectangle r = rects[i];
+            if (x < r.x + r.width && r.x < x + w && y < r.y + r.height && r.y < y + h) {
+                r.add(x, y);
+                r.add(x + w, y + h);
+                return;
+            }
+        }
+        if (count == MAX_RECTS) {
+            markAll();
+            return;
+        }
+        rects[count++].setBounds(x, y, w, h);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File circulaire sans verrou à un seul producteur et un seul consommateur.
+ * Chaque entrée est un entier accompagné d'un horodatage {@code nanoTime},
+ * stockés dans des tableaux primitifs : aucune allocation à l'usage.
+ */
+class EventRing {
+    private final int[] values;
+    private final long[] times;
+    private final int mask;
+
+    // Publiés par lazySet : le consommateur voit les données avant l'index
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+
+    EventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacité doit être une puissance de 2 : " + capacity);
+        }
+        values = new int[capacity];
+        times = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Côté producteur ; renvoie false si la file est pleine
+    boolean offer(int value, long nanos) {
+        long w = writeIndex.get();
+        if (w - readIndex.get() == values.length) {
+            return false;
+        }
+        int slot = (int) (w & mask);
+        values[slot] = value;
+        times[slot] = nanos;
+        writeIndex.lazySet(w + 1);
+        return true;
+    }
+
+    // Côté consommateur
+    boolean isEmpty() {
+        return readIndex.get() == writeIndex.get();
+    }
+
+    int peekValue() {
+        return values[(int) (readIndex.get() & mask)];
+    }
+
+    long peekTime() {
+        return times[(int) (readIndex.get() & mask)];
+    }
+
+    void remove() {
+        readIndex.lazySet(readIndex.get() + 1);
+    }
+
+    int size() {
+        return (int) (writeIndex.get() - readIndex.get());
+    }
+
+    // À n'appeler que lorsque ni le producteur ni le consommateur ne tournent
+    void clear() {
+        readIndex.set(writeIndex.get());
+    }
+}
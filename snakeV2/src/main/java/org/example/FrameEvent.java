@@ -0,0 +1,45 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Événement JFR émis à chaque image de jeu, pour relier un à-coup signalé par
+ * un joueur à ce qui s'est passé dans la simulation et le rendu. Désactivé
+ * tant qu'aucun enregistrement ne le demande :
+ * {@code -XX:StartFlightRecording:settings=profile,filename=snake.jfr}
+ */
+@Name("org.example.Frame")
+@Label("Snake Frame")
+@Category("Snake")
+@Description("Une image du jeu : ticks simulés, rendu, gigue du timer et allocations")
+@StackTrace(false)
+class FrameEvent extends Event {
+    @Label("Ticks")
+    int ticks;
+
+    @Label("Simulation")
+    @Timespan(Timespan.NANOSECONDS)
+    long tickNanos;
+
+    @Label("Rendu")
+    @Timespan(Timespan.NANOSECONDS)
+    long paintNanos;
+
+    @Label("Gigue du timer")
+    @Timespan(Timespan.NANOSECONDS)
+    long jitterNanos;
+
+    @Label("Octets alloués")
+    @DataAmount(DataAmount.BYTES)
+    long allocatedBytes;
+
+    @Label("Longueur du serpent")
+    int snakeLength;
+}
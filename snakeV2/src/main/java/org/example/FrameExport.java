@@ -0,0 +1,265 @@
+package org.example;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exporte un replay en suite d'images, sans affichage, pour les montages et
+ * les comparaisons visuelles entre versions.
+ *
+ * Le thread principal rejoue la partie et dessine chaque image hors écran
+ * par {@link GameRenderer#drawGame} et {@link GameRenderer#drawGameOver},
+ * comme le panneau du jeu. Les images passent par une file bornée à un
+ * groupe de threads d'encodage qui les compressent et les écrivent en
+ * parallèle. Les tampons d'image (et leur Graphics2D) sont pris dans une
+ * réserve fixe et y retournent une fois écrits : quand les encodeurs
+ * prennent du retard, la réserve se vide et le rendu attend.
+ *
+ * Formats : png (une image par fichier, frame_000000.png...) ou raw (un seul
+ * fichier frames.rgb, RGB 8 bits sans en-tête ; chaque encodeur écrit son
+ * image à sa position, donc dans n'importe quel ordre). Pour en faire une
+ * vidéo : ffmpeg -f rawvideo -pix_fmt rgb24 -s 600x600 -r 60 -i frames.rgb
+ * snake.mp4
+ *
+ * Usage : FrameExport replay dossier [png|raw] [images/s] [encodeurs]
+ */
+public class FrameExport {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    private static final double GAME_OVER_SECONDS = 2;
+    // Tampons d'image par encodeur : un en cours d'encodage, un en file
+    private static final int BUFFERS_PER_ENCODER = 2;
+
+    private enum Format { PNG, RAW }
+
+    // Tampon d'image réutilisé, avec le numéro de l'image qu'il contient
+    private static final class Frame {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        long index;
+
+        Frame() {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+    }
+
+    private final Path directory;
+    private final Format format;
+    private final BlockingQueue<Frame> free;
+    private final BlockingQueue<Frame> queued;
+    private final Thread[] encoders;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    // Placé en file une fois par encodeur pour l'arrêter
+    private final Frame stop = new Frame();
+    private final FileChannel rawChannel;
+    // Temps passé par le rendu à attendre un tampon libre
+    private long stalledNanos;
+
+    private FrameExport(Path directory, Format format, int encoderCount) throws IOException {
+        this.directory = directory;
+        this.format = format;
+        Files.createDirectories(directory);
+        rawChannel = format == Format.RAW
+                ? FileChannel.open(directory.resolve("frames.rgb"), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                : null;
+
+        int buffers = encoderCount * BUFFERS_PER_ENCODER;
+        free = new ArrayBlockingQueue<>(buffers);
+        queued = new ArrayBlockingQueue<>(buffers + encoderCount);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new Frame());
+        }
+        encoders = new Thread[encoderCount];
+        for (int i = 0; i < encoderCount; i++) {
+            encoders[i] = new Thread(this::encodeLoop, "snake-export-" + i);
+            encoders[i].start();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage : FrameExport replay dossier [png|raw] [images/s] [encodeurs]");
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+        // Flux PNG tamponnés en mémoire plutôt que dans un fichier temporaire
+        ImageIO.setUseCache(false);
+        Replay replay = Replay.read(Paths.get(args[0]));
+        Path directory = Paths.get(args[1]);
+        Format format = args.length > 2 ? Format.valueOf(args[2].toUpperCase()) : Format.PNG;
+        int fps = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        int encoderCount = args.length > 4 ? Integer.parseInt(args[4])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        long start = System.nanoTime();
+        FrameExport export = new FrameExport(directory, format, encoderCount);
+        long frames;
+        try {
+            frames = export.render(replay, fps);
+        } finally {
+            export.finish();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double realTimeSeconds = (double) frames / fps;
+
+        System.out.printf("%d images (%s, %d encodeurs) en %.2f s : %.0f images/s, x%.1f temps réel%n",
+                frames, format.name().toLowerCase(), encoderCount, seconds, frames / seconds, realTimeSeconds / seconds);
+        System.out.printf("Rendu en attente des encodeurs : %.2f s%n", export.stalledNanos / 1e9);
+    }
+
+    /**
+     * Rejoue la partie à pas fixe et en tire une image tous les 1/fps de
+     * seconde de jeu, interpolée entre deux ticks comme à l'écran, puis
+     * quelques secondes d'écran de fin.
+     *
+     * @return le nombre d'images produites
+     */
+    private long render(Replay replay, int fps) throws Exception {
+        GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+        SnakeEngine engine = replay.newEngine();
+        Replay.Player player = replay.player();
+        long limit = replay.getFinalTick() >= 0 ? replay.getFinalTick() : Long.MAX_VALUE;
+        long frameNanos = 1_000_000_000L / fps;
+
+        long index = 0;
+        long gameNanos = 0;
+        long simulatedNanos = 0;
+        while (engine.isAlive() && engine.getTick() < limit) {
+            while (simulatedNanos + GameLoop.TICK_NANOS <= gameNanos && engine.isAlive() && engine.getTick() < limit) {
+                player.apply(engine);
+                engine.step();
+                simulatedNanos += GameLoop.TICK_NANOS;
+            }
+            double alpha = Math.min(1, (double) (gameNanos - simulatedNanos) / GameLoop.TICK_NANOS);
+            Frame frame = acquire(index++);
+            renderer.drawGame(frame.graphics, engine, alpha, gameNanos / 1_000_000, replay.getFinalScore());
+            submit(frame);
+            gameNanos += frameNanos;
+        }
+        long gameOverFrames = (long) (GAME_OVER_SECONDS * fps);
+        for (long i = 0; i < gameOverFrames; i++) {
+            Frame frame = acquire(index++);
+            renderer.drawGame(frame.graphics, engine, 1.0, gameNanos / 1_000_000, replay.getFinalScore());
+            renderer.drawGameOver(frame.graphics, engine.getScore(), replay.getFinalScore());
+            submit(frame);
+            gameNanos += frameNanos;
+        }
+        return index;
+    }
+
+    // Tampon libre, effacé ; bloque tant que les encodeurs n'en ont pas rendu un
+    private Frame acquire(long index) throws Exception {
+        Frame frame = free.poll();
+        if (frame == null) {
+            long waitStart = System.nanoTime();
+            frame = free.take();
+            stalledNanos += System.nanoTime() - waitStart;
+        }
+        checkFailure();
+        frame.index = index;
+        frame.graphics.setClip(null);
+        frame.graphics.clearRect(0, 0, WIDTH, HEIGHT);
+        return frame;
+    }
+
+    private void submit(Frame frame) throws InterruptedException {
+        queued.put(frame);
+    }
+
+    private void checkFailure() throws Exception {
+        Exception e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    // Arrête les encodeurs une fois la file vidée, puis signale leur éventuelle erreur
+    private void finish() throws Exception {
+        for (int i = 0; i < encoders.length; i++) {
+            queued.put(stop);
+        }
+        for (Thread encoder : encoders) {
+            encoder.join();
+        }
+        if (rawChannel != null) {
+            rawChannel.close();
+        }
+        checkFailure();
+    }
+
+    private void encodeLoop() {
+        ImageWriter pngWriter = format == Format.PNG ? ImageIO.getImageWritersByFormatName("png").next() : null;
+        ByteBuffer rgb = format == Format.RAW ? ByteBuffer.wrap(new byte[WIDTH * HEIGHT * 3]) : null;
+        try {
+            while (true) {
+                Frame frame = queued.take();
+                if (frame == stop) {
+                    return;
+                }
+                try {
+                    if (failure.get() == null) {
+                        if (format == Format.PNG) {
+                            writePng(pngWriter, frame);
+                        } else {
+                            writeRaw(rgb, frame);
+                        }
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    free.add(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (pngWriter != null) {
+                pngWriter.dispose();
+            }
+        }
+    }
+
+    private void writePng(ImageWriter writer, Frame frame) throws IOException {
+        Path file = directory.resolve(String.format("frame_%06d.png", frame.index));
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file));
+             ImageOutputStream out = ImageIO.createImageOutputStream(stream)) {
+            writer.setOutput(out);
+            writer.write(frame.image);
+        }
+    }
+
+    // Pixels 0xRRGGBB du raster copiés en octets R, G, B, écrits à la place de l'image dans le fichier
+    private void writeRaw(ByteBuffer rgb, Frame frame) throws IOException {
+        int[] pixels = ((DataBufferInt) frame.image.getRaster().getDataBuffer()).getData();
+        byte[] bytes = rgb.array();
+        for (int i = 0, j = 0; i < pixels.length; i++, j += 3) {
+            int pixel = pixels[i];
+            bytes[j] = (byte) (pixel >> 16);
+            bytes[j + 1] = (byte) (pixel >> 8);
+            bytes[j + 2] = (byte) pixel;
+        }
+        rgb.clear();
+        long position = frame.index * rgb.limit();
+        while (rgb.hasRemaining()) {
+            position += rawChannel.write(rgb, position);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Horloge de jeu monotone basée sur {@code System.nanoTime()}.
+ * Elle peut être mise en pause, accélérée ou ralentie, et avancée d'un coup :
+ * le temps de jeu ne dépend jamais de l'heure murale.
+ */
+public class GameClock {
+    private final LongSupplier timeSource;
+
+    private long lastRealNanos;
+    private long gameNanos;
+    private double scale = 1.0;
+    private boolean paused;
+
+    public GameClock() {
+        this(System::nanoTime);
+    }
+
+    GameClock(LongSupplier timeSource) {
+        this.timeSource = timeSource;
+        this.lastRealNanos = timeSource.getAsLong();
+    }
+
+    // Temps de jeu écoulé, en nanosecondes
+    public long now() {
+        update();
+        return gameNanos;
+    }
+
+    public void pause() {
+        update();
+        paused = true;
+    }
+
+    public void resume() {
+        update();
+        paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setScale(double scale) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("Échelle de temps négative : " + scale);
+        }
+        update();
+        this.scale = scale;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    // Avance le temps de jeu immédiatement, même en pause
+    public void fastForward(long nanos) {
+        update();
+        gameNanos += nanos;
+    }
+
+    private void update() {
+        long real = timeSource.getAsLong();
+        long elapsed = real - lastRealNanos;
+        lastRealNanos = real;
+        if (!paused && elapsed > 0) {
+            gameNanos += scale == 1.0 ? elapsed : (long) (elapsed * scale);
+        }
+    }
+}
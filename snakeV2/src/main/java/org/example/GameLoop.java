@@ -0,0 +1,65 @@
+package org.example;
+
+/**
+ * Boucle à pas fixe : la simulation avance par ticks de durée constante,
+ * mesurés sur une {@link GameClock}, quel que soit le rythme de l'affichage.
+ * Le reste non simulé sert de coefficient d'interpolation pour le rendu.
+ */
+public class GameLoop {
+    public static final long TICK_NANOS = SnakeEngine.TICK_MILLIS * 1_000_000L;
+    // Limite de rattrapage pour ne pas geler l'affichage après un gros à-coup
+    private static final int MAX_TICKS_PER_FRAME = 250;
+
+    private final GameClock clock;
+    private long lastGameNanos;
+    private long accumulator;
+
+    public GameLoop(GameClock clock) {
+        this.clock = clock;
+        this.lastGameNanos = clock.now();
+    }
+
+    /**
+     * Exécute autant de ticks que le temps de jeu écoulé le permet.
+     *
+     * @return le nombre de ticks exécutés
+     */
+    public int advance(Runnable tick) {
+        long now = clock.now();
+        accumulator += now - lastGameNanos;
+        lastGameNanos = now;
+
+        int ticks = 0;
+        while (accumulator >= TICK_NANOS) {
+            if (ticks == MAX_TICKS_PER_FRAME) {
+                // Trop de retard : on abandonne le surplus plutôt que de figer l'écran
+                accumulator %= TICK_NANOS;
+                break;
+            }
+            tick.run();
+            accumulator -= TICK_NANOS;
+            ticks++;
+        }
+        return ticks;
+    }
+
+    // Temps de jeu au début du tick en cours, à lire pendant l'exécution du tick
+    public long tickStartNanos() {
+        return lastGameNanos - accumulator;
+    }
+
+    // Position entre l'avant-dernier et le dernier état simulé, dans [0, 1)
+    public double alpha() {
+        return (double) accumulator / TICK_NANOS;
+    }
+
+    // Repart de zéro, par exemple au début d'une partie
+    public void reset() {
+        lastGameNanos = clock.now();
+        accumulator = 0;
+    }
+
+    public GameClock getClock() {
+        return clock;
+    }
+}
@@ -0,0 +1,703 @@
+package org.example;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Dessin du jeu, partagé par le rendu Swing classique et le rendu actif.
+ * Polices, métriques, couleurs et sprites sont créés une seule fois.
+ *
+ * Le corps est dessiné à des distances fixes le long de la trace (multiples
+ * de DOT_SIZE) : d'une image à l'autre, seuls les abords de la tête, de la
+ * queue, de la pomme et le bandeau de score changent, et
+ * {@link #collectDirty} ne signale que ces zones. Il est tracé comme une
+ * ligne brisée épaisse ({@link BodyPath}) passant par ces points, en un seul
+ * appel de dessin ; en arc-en-ciel, les segments sont regroupés par teinte
+ * (une dizaine d'appels) et les couleurs viennent d'une table préparée.
+ *
+ * Quand le monde dépasse la fenêtre, une caméra suit la tête : seuls les
+ * blocs du sol, la pomme et les segments visibles sont dessinés, et tout
+ * l'écran est redessiné à chaque image puisqu'il défile.
+ */
+class GameRenderer {
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font MENU_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final Font HUD_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font OVERLAY_FONT = new Font("Arial", Font.BOLD, 36);
+    private static final Font HINT_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font TELEMETRY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color TELEMETRY_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 180);
+    private static final Color CHUNK_DARK = new Color(12, 12, 12);
+    private static final Color CHUNK_LIGHT = new Color(22, 22, 22);
+    private static final Color WORLD_BORDER = new Color(120, 0, 0);
+    private static final Color WALL_COLOR = new Color(90, 90, 110);
+    private static final Color MOVER_COLOR = new Color(170, 60, 40);
+    private static final Color BODY_COLOR = Color.YELLOW;
+    private static final Color OTHER_COLOR = Color.GRAY;
+
+    private static final int DOT_SIZE = SnakeEngine.DOT_SIZE;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final int HUD_HEIGHT = 26;
+    // Au-delà, la tête ou la queue a trop bougé depuis l'image précédente : on redessine tout
+    private static final int MAX_DIRTY_ANCHORS = 64;
+    private static final int DOT_MARGIN = 3;
+    // Côté d'un bloc du sol en pixels, aligné sur les blocs de la grille d'occupation
+    private static final int CHUNK_PIXELS = OccupancyGrid.CHUNK_SIZE * DOT_SIZE;
+    // Incrustation des mesures (touche F3), en bas à gauche
+    private static final int TELEMETRY_WIDTH = 290;
+    private static final int TELEMETRY_LINE = 13;
+    // Trait du corps : aussi épais qu'un segment, extrémités et coins arrondis
+    private static final BasicStroke BODY_STROKE = new BasicStroke(DOT_SIZE, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    // Arc-en-ciel : la teinte fait un tour par seconde et avance de RAINBOW_STEP ms par segment
+    private static final int RAINBOW_PERIOD = 1000;
+    private static final int RAINBOW_STEP = 100;
+    private static final int RAINBOW_BANDS = RAINBOW_PERIOD / RAINBOW_STEP;
+    private static final Color[] RAINBOW_COLORS = createRainbow();
+
+    private final int width;
+    private final int height;
+
+    private final BufferedImage headSprite;
+    private final BufferedImage otherSprite;
+    private final BufferedImage[] appleSprites;
+
+    private FontMetrics titleMetrics;
+    private FontMetrics menuMetrics;
+    private FontMetrics overlayMetrics;
+    private FontMetrics hintMetrics;
+
+    // Textes du bandeau, reconstruits seulement quand les valeurs changent
+    private int hudScore = -1;
+    private int hudBest = -1;
+    private Difficulty hudDifficulty;
+    private String scoreText;
+    private String bestText;
+    private String difficultyText;
+
+    // État de la dernière image, pour le suivi des zones modifiées
+    private boolean frameValid;
+    private double lastHeadArc;
+    private double lastTailArc;
+    private int lastAppleX;
+    private int lastAppleY;
+    private boolean lastAppleVisible;
+    private boolean lastRainbow;
+    private int lastScore;
+    private int lastBest;
+    private int[] lastMoverX = new int[0];
+    private int[] lastMoverY = new int[0];
+
+    // Murs du niveau en cours, dessinés une fois dans une image
+    private Level wallLevel;
+    private BufferedImage wallLayer;
+
+    // Coin haut gauche de la caméra dans le monde (grand monde)
+    private int cameraX;
+    private int cameraY;
+
+    // Segments d'un serpent de l'arène, de la queue vers la tête
+    private double[] arenaX = new double[0];
+    private double[] arenaY = new double[0];
+
+    // Corps en cours de tracé, et ses segments regroupés par teinte en arc-en-ciel
+    private final BodyPath bodyPath = new BodyPath();
+    private final BodyPath[] rainbowPaths = new BodyPath[RAINBOW_BANDS];
+    private boolean rainbowBody;
+    private double rainbowHeadArc;
+
+    GameRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        headSprite = createSprite(Color.GREEN);
+        otherSprite = createSprite(OTHER_COLOR);
+        AppleType[] types = AppleType.values();
+        appleSprites = new BufferedImage[types.length];
+        for (AppleType type : types) {
+            appleSprites[type.ordinal()] = createSprite(appleColor(type));
+        }
+        for (int i = 0; i < RAINBOW_BANDS; i++) {
+            rainbowPaths[i] = new BodyPath();
+        }
+    }
+
+    private static Color[] createRainbow() {
+        Color[] colors = new Color[RAINBOW_PERIOD];
+        for (int i = 0; i < RAINBOW_PERIOD; i++) {
+            colors[i] = Color.getHSBColor(i / (float) RAINBOW_PERIOD, 1, 1);
+        }
+        return colors;
+    }
+
+    // Teinte de l'arc-en-ciel à cet instant, décalée de `offset` ms du cycle
+    private static Color rainbowColor(long gameMillis, long offset) {
+        return RAINBOW_COLORS[(int) ((gameMillis + offset) % RAINBOW_PERIOD)];
+    }
+
+    static Color appleColor(AppleType type) {
+        switch (type) {
+            case GOLDEN: return Color.YELLOW;
+            case SPEED: return Color.GREEN;
+            case SLOW: return Color.BLUE;
+            case RAINBOW: return Color.MAGENTA;
+            default: return Color.RED;
+        }
+    }
+
+    private static BufferedImage createSprite(Color color) {
+        BufferedImage sprite = new BufferedImage(DOT_SIZE, DOT_SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = sprite.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(color);
+        g.fillOval(0, 0, DOT_SIZE, DOT_SIZE);
+        g.dispose();
+        return sprite;
+    }
+
+    private void ensureMetrics(Graphics2D g) {
+        if (titleMetrics == null) {
+            titleMetrics = g.getFontMetrics(TITLE_FONT);
+            menuMetrics = g.getFontMetrics(MENU_FONT);
+            overlayMetrics = g.getFontMetrics(OVERLAY_FONT);
+            hintMetrics = g.getFontMetrics(HINT_FONT);
+        }
+    }
+
+    // La prochaine image sera redessinée en entier (changement d'écran, nouvelle partie...)
+    void invalidate() {
+        frameValid = false;
+    }
+
+    /**
+     * Calcule les zones qui diffèrent de la dernière image de jeu dessinée.
+     */
+    void collectDirty(SnakeEngine engine, double alpha, int bestScore, DirtyRegion dirty) {
+        dirty.clear();
+        if (isScrolling(engine)) {
+            // La caméra bouge avec la tête : tout l'écran change
+            dirty.markAll();
+            frameValid = false;
+            return;
+        }
+
+        double headArc = engine.headDistance(alpha);
+        double tailArc = headArc - (engine.getLength() - 1) * DOT_SIZE;
+        Apple apple = engine.getApple();
+        boolean appleVisible = apple != null && apple.isActive;
+        boolean rainbow = engine.isRainbowEffect();
+
+        if (!frameValid || rainbow || lastRainbow) {
+            // Les couleurs de l'arc-en-ciel changent sur tout le corps à chaque image
+            dirty.markAll();
+        } else {
+            if (!addTrailRange(engine, lastHeadArc, headArc, dirty)
+                    || !addTrailRange(engine, lastTailArc, tailArc, dirty)) {
+                dirty.markAll();
+            }
+            if (appleVisible != lastAppleVisible || (appleVisible &&
+                    (apple.x != lastAppleX || apple.y != lastAppleY || apple.type == AppleType.RAINBOW))) {
+                if (lastAppleVisible) {
+                    dirty.add(lastAppleX - 1, lastAppleY - 1, DOT_SIZE + 2, DOT_SIZE + 2);
+                }
+                if (appleVisible) {
+                    dirty.add(apple.x - 1, apple.y - 1, DOT_SIZE + 2, DOT_SIZE + 2);
+                }
+            }
+            if (engine.getScore() != lastScore || bestScore != lastBest) {
+                dirty.add(0, 0, width, HUD_HEIGHT);
+            }
+            addMovers(engine, dirty);
+        }
+
+        frameValid = true;
+        lastHeadArc = headArc;
+        lastTailArc = tailArc;
+        lastAppleVisible = appleVisible;
+        if (appleVisible) {
+            lastAppleX = apple.x;
+            lastAppleY = apple.y;
+        }
+        lastRainbow = rainbow;
+        lastScore = engine.getScore();
+        lastBest = bestScore;
+        Level level = engine.getLevel();
+        int movers = level != null ? level.getMoverCount() : 0;
+        if (lastMoverX.length != movers) {
+            lastMoverX = new int[movers];
+            lastMoverY = new int[movers];
+        }
+        for (int i = 0; i < movers; i++) {
+            lastMoverX[i] = engine.getMoverCol(i) * DOT_SIZE;
+            lastMoverY[i] = engine.getMoverRow(i) * DOT_SIZE;
+        }
+    }
+
+    // Ancienne et nouvelle place des obstacles mobiles qui ont bougé
+    private void addMovers(SnakeEngine engine, DirtyRegion dirty) {
+        Level level = engine.getLevel();
+        if (level == null || lastMoverX.length != level.getMoverCount()) {
+            return;
+        }
+        for (int i = 0; i < lastMoverX.length; i++) {
+            int x = engine.getMoverCol(i) * DOT_SIZE;
+            int y = engine.getMoverRow(i) * DOT_SIZE;
+            if (x != lastMoverX[i] || y != lastMoverY[i]) {
+                Level.Mover mover = level.getMover(i);
+                dirty.add(lastMoverX[i], lastMoverY[i], mover.width * DOT_SIZE, mover.height * DOT_SIZE);
+                dirty.add(x, y, mover.width * DOT_SIZE, mover.height * DOT_SIZE);
+            }
+        }
+    }
+
+    // Ajoute les disques dessinés entre deux distances de la trace
+    private boolean addTrailRange(SnakeEngine engine, double fromArc, double toArc, DirtyRegion dirty) {
+        double lo = Math.min(fromArc, toArc);
+        double hi = Math.max(fromArc, toArc);
+        if ((hi - lo) / DOT_SIZE > MAX_DIRTY_ANCHORS) {
+            return false;
+        }
+        // Les points voisins aussi : le trait qui les relie à la tête ou à la queue a changé
+        addDot(engine, Math.floor(lo / DOT_SIZE) * DOT_SIZE, dirty);
+        addDot(engine, lo, dirty);
+        for (double arc = Math.floor(lo / DOT_SIZE) * DOT_SIZE + DOT_SIZE; arc < hi; arc += DOT_SIZE) {
+            addDot(engine, arc, dirty);
+        }
+        addDot(engine, hi, dirty);
+        addDot(engine, Math.floor(hi / DOT_SIZE) * DOT_SIZE + DOT_SIZE, dirty);
+        return true;
+    }
+
+    // Entre deux points de la trace (à DOT_SIZE au plus), le trait s'écarte d'au plus
+    // DOT_SIZE / sqrt(2) du point le plus proche : la zone déborde du disque en conséquence
+    private void addDot(SnakeEngine engine, double arc, DirtyRegion dirty) {
+        int x = (int) engine.trailX(arc);
+        int y = (int) engine.trailY(arc);
+        dirty.add(x - DOT_MARGIN, y - DOT_MARGIN, DOT_SIZE + 2 * DOT_MARGIN, DOT_SIZE + 2 * DOT_MARGIN);
+    }
+
+    void drawMenu(Graphics2D g, String[] menuItems, int selectedMenuItem, boolean showDifficultyMenu) {
+        ensureMetrics(g);
+        g.setColor(Color.GREEN);
+        g.setFont(TITLE_FONT);
+        String title = "SNAKE";
+        g.drawString(title, (width - titleMetrics.stringWidth(title))/2, height/4);
+
+        g.setFont(MENU_FONT);
+        int y = height/2;
+
+        if (!showDifficultyMenu) {
+            for (int i = 0; i < menuItems.length; i++) {
+                drawMenuItem(g, menuItems[i], i == selectedMenuItem, y);
+                y += 40;
+            }
+        } else {
+            for (int i = 0; i < DIFFICULTIES.length; i++) {
+                drawMenuItem(g, DIFFICULTIES[i].label, i == selectedMenuItem, y);
+                y += 40;
+            }
+        }
+    }
+
+    /**
+     * Classement d'une difficulté : les meilleures parties lues dans
+     * l'historique ({@link Leaderboard}), avec le nombre total de parties.
+     */
+    void drawLeaderboard(Graphics2D g, Difficulty difficulty, List<Leaderboard.Entry> entries, long games) {
+        ensureMetrics(g);
+        g.setColor(Color.GREEN);
+        g.setFont(MENU_FONT);
+        String title = "Classement - " + difficulty.label;
+        g.drawString(title, (width - menuMetrics.stringWidth(title))/2, 80);
+
+        g.setFont(HINT_FONT);
+        g.setColor(Color.GRAY);
+        String total = games + (games > 1 ? " parties" : " partie");
+        g.drawString(total, (width - hintMetrics.stringWidth(total))/2, 110);
+
+        int y = 160;
+        g.setColor(Color.WHITE);
+        if (entries.isEmpty()) {
+            String empty = "Aucune partie";
+            g.drawString(empty, (width - hintMetrics.stringWidth(empty))/2, y);
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Leaderboard.Entry entry = entries.get(i);
+            g.drawString((i + 1) + ".", 90, y);
+            g.drawString(String.valueOf(entry.score), 140, y);
+            g.drawString("longueur " + entry.length, 230, y);
+            int seconds = entry.durationMillis / 1000;
+            g.drawString(String.format("%d:%02d", seconds / 60, seconds % 60), 400, y);
+            y += 32;
+        }
+
+        g.setColor(Color.GRAY);
+        String hint = "← → difficulté, ÉCHAP retour";
+        g.drawString(hint, (width - hintMetrics.stringWidth(hint))/2, height - 40);
+    }
+
+    private void drawMenuItem(Graphics2D g, String text, boolean selected, int y) {
+        if (selected) {
+            g.setColor(Color.GREEN);
+            g.drawString("> " + text, (width - menuMetrics.stringWidth(text))/2 - 20, y);
+        } else {
+            g.setColor(Color.WHITE);
+            g.drawString(text, (width - menuMetrics.stringWidth(text))/2, y);
+        }
+    }
+
+    // Le monde est plus grand que la fenêtre : on dessine à travers la caméra
+    boolean isScrolling(SnakeEngine engine) {
+        return engine.getWidth() > width || engine.getHeight() > height;
+    }
+
+    void drawGame(Graphics2D g, SnakeEngine engine, double alpha, long gameMillis, int bestScore) {
+        if (isScrolling(engine)) {
+            drawScrollingGame(g, engine, alpha, gameMillis);
+            drawHud(g, engine.getScore(), bestScore, engine.getDifficulty());
+            return;
+        }
+        drawLevel(g, engine);
+        drawHud(g, engine.getScore(), bestScore, engine.getDifficulty());
+
+        Apple currentApple = engine.getApple();
+        if (currentApple != null && currentApple.isActive) {
+            if (currentApple.type == AppleType.RAINBOW) {
+                g.setColor(rainbowColor(gameMillis, 0));
+                g.fillOval(currentApple.x, currentApple.y, DOT_SIZE, DOT_SIZE);
+            } else {
+                g.drawImage(appleSprites[currentApple.type.ordinal()], currentApple.x, currentApple.y, null);
+            }
+        }
+
+        drawBody(g, engine, alpha, gameMillis);
+    }
+
+    // Murs (image préparée une fois par niveau) puis obstacles mobiles
+    private void drawLevel(Graphics2D g, SnakeEngine engine) {
+        Level level = engine.getLevel();
+        if (level == null) {
+            return;
+        }
+        if (level != wallLevel) {
+            wallLevel = level;
+            wallLayer = createWallLayer(level);
+        }
+        g.drawImage(wallLayer, 0, 0, null);
+        g.setColor(MOVER_COLOR);
+        for (int i = 0; i < level.getMoverCount(); i++) {
+            Level.Mover mover = level.getMover(i);
+            g.fillRect(engine.getMoverCol(i) * DOT_SIZE, engine.getMoverRow(i) * DOT_SIZE,
+                    mover.width * DOT_SIZE, mover.height * DOT_SIZE);
+        }
+    }
+
+    private static BufferedImage createWallLayer(Level level) {
+        BufferedImage layer = new BufferedImage(level.getCols() * DOT_SIZE, level.getRows() * DOT_SIZE,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = layer.createGraphics();
+        g.setColor(WALL_COLOR);
+        int cells = level.getCols() * level.getRows();
+        for (int cell = 0; cell < cells; cell++) {
+            if (level.isWall(cell)) {
+                g.fillRect((cell % level.getCols()) * DOT_SIZE, (cell / level.getCols()) * DOT_SIZE, DOT_SIZE, DOT_SIZE);
+            }
+        }
+        g.dispose();
+        return layer;
+    }
+
+    private void drawScrollingGame(Graphics2D g, SnakeEngine engine, double alpha, long gameMillis) {
+        double headArc = engine.headDistance(alpha);
+        int headX = (int) engine.trailX(headArc) + DOT_SIZE / 2;
+        int headY = (int) engine.trailY(headArc) + DOT_SIZE / 2;
+        cameraX = Math.max(0, Math.min(engine.getWidth() - width, headX - width / 2));
+        cameraY = Math.max(0, Math.min(engine.getHeight() - height, headY - height / 2));
+
+        g.translate(-cameraX, -cameraY);
+        drawChunks(g, engine.getWidth(), engine.getHeight());
+
+        Apple apple = engine.getApple();
+        boolean appleVisible = apple != null && apple.isActive && distanceOutside(apple.x, apple.y) <= 0;
+        if (appleVisible) {
+            if (apple.type == AppleType.RAINBOW) {
+                g.setColor(rainbowColor(gameMillis, 0));
+                g.fillOval(apple.x, apple.y, DOT_SIZE, DOT_SIZE);
+            } else {
+                g.drawImage(appleSprites[apple.type.ordinal()], apple.x, apple.y, null);
+            }
+        }
+        drawVisibleBody(g, engine, headArc, gameMillis);
+        g.translate(cameraX, cameraY);
+
+        if (apple != null && apple.isActive && !appleVisible) {
+            // Pomme hors champ : un repère au bord de l'écran indique sa direction
+            int x = Math.max(0, Math.min(width - DOT_SIZE / 2, apple.x - cameraX));
+            int y = Math.max(HUD_HEIGHT, Math.min(height - DOT_SIZE / 2, apple.y - cameraY));
+            g.setColor(appleColor(apple.type));
+            g.fillRect(x, y, DOT_SIZE / 2, DOT_SIZE / 2);
+        }
+    }
+
+    // Sol en damier de blocs : seuls les blocs sous la caméra sont remplis
+    private void drawChunks(Graphics2D g, int worldWidth, int worldHeight) {
+        int firstCol = cameraX / CHUNK_PIXELS;
+        int firstRow = cameraY / CHUNK_PIXELS;
+        int lastCol = Math.min(worldWidth - 1, cameraX + width) / CHUNK_PIXELS;
+        int lastRow = Math.min(worldHeight - 1, cameraY + height) / CHUNK_PIXELS;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = col * CHUNK_PIXELS;
+                int y = row * CHUNK_PIXELS;
+                g.setColor(((col + row) & 1) == 0 ? CHUNK_DARK : CHUNK_LIGHT);
+                g.fillRect(x, y, Math.min(CHUNK_PIXELS, worldWidth - x), Math.min(CHUNK_PIXELS, worldHeight - y));
+            }
+        }
+        g.setColor(WORLD_BORDER);
+        g.drawRect(-1, -1, worldWidth + 1, worldHeight + 1);
+    }
+
+    /**
+     * Corps vu par la caméra. La trace ne s'éloigne pas plus vite que la
+     * distance parcourue dessus : un point situé à d pixels hors de l'écran
+     * permet donc de sauter d pixels de trace sans rien manquer, et un corps
+     * hors champ ne coûte que quelques recherches au lieu d'une par segment.
+     */
+    private void drawVisibleBody(Graphics2D g, SnakeEngine engine, double headArc, long gameMillis) {
+        double tailArc = headArc - (engine.getLength() - 1) * DOT_SIZE;
+        beginBody(g, engine.isRainbowEffect(), headArc);
+
+        addVisibleAnchor(engine, tailArc);
+        double arc = Math.floor(tailArc / DOT_SIZE) * DOT_SIZE + DOT_SIZE;
+        boolean skipped = false;
+        while (arc < headArc) {
+            double x = engine.trailX(arc);
+            double y = engine.trailY(arc);
+            double outside = distanceOutside(x, y);
+            if (outside <= 0) {
+                if (skipped) {
+                    // Le tronçon visible repart du point juste avant lui, pas du dernier point vu
+                    addVisibleAnchor(engine, Math.max(tailArc, arc - DOT_SIZE));
+                    skipped = false;
+                }
+                addAnchor(x, y, arc, true);
+                arc += DOT_SIZE;
+            } else {
+                addAnchor(x, y, arc, false);
+                double step = Math.max(1, Math.floor(outside / DOT_SIZE)) * DOT_SIZE;
+                if (step > DOT_SIZE) {
+                    bodyPath.breakRun();
+                    skipped = true;
+                }
+                arc += step;
+            }
+        }
+        addVisibleAnchor(engine, headArc);
+        endBody(g, gameMillis, BODY_COLOR);
+        g.drawImage(headSprite, (int) engine.trailX(headArc), (int) engine.trailY(headArc), null);
+    }
+
+    private void addVisibleAnchor(SnakeEngine engine, double arc) {
+        double x = engine.trailX(arc);
+        double y = engine.trailY(arc);
+        addAnchor(x, y, arc, distanceOutside(x, y) <= 0);
+    }
+
+    // Écart en pixels entre un segment en (x, y) et la zone vue par la caméra, 0 s'il est visible
+    private double distanceOutside(double x, double y) {
+        double dx = Math.max(cameraX - DOT_SIZE - x, x - (cameraX + width));
+        double dy = Math.max(cameraY - DOT_SIZE - y, y - (cameraY + height));
+        return Math.max(0, Math.max(dx, dy));
+    }
+
+    private void drawHud(Graphics2D g, int score, int bestScore, Difficulty difficulty) {
+        if (score != hudScore) {
+            hudScore = score;
+            scoreText = "Score: " + score;
+        }
+        if (bestScore != hudBest) {
+            hudBest = bestScore;
+            bestText = "Meilleur: " + bestScore;
+        }
+        if (difficulty != hudDifficulty) {
+            hudDifficulty = difficulty;
+            difficultyText = "Difficulté: " + difficulty.label;
+        }
+        g.setColor(Color.WHITE);
+        g.setFont(HUD_FONT);
+        g.drawString(scoreText, 10, 20);
+        g.drawString(bestText, width - 100, 20);
+        g.drawString(difficultyText, width/2 - 50, 20);
+    }
+
+    // De la queue vers la tête, pour que la tête reste au-dessus
+    private void drawBody(Graphics2D g, SnakeEngine engine, double alpha, long gameMillis) {
+        Rectangle clip = g.getClipBounds();
+        double headArc = engine.headDistance(alpha);
+        double tailArc = headArc - (engine.getLength() - 1) * DOT_SIZE;
+        beginBody(g, engine.isRainbowEffect(), headArc);
+
+        addClippedAnchor(engine, tailArc, clip);
+        for (double arc = Math.floor(tailArc / DOT_SIZE) * DOT_SIZE + DOT_SIZE; arc < headArc; arc += DOT_SIZE) {
+            addClippedAnchor(engine, arc, clip);
+        }
+        addClippedAnchor(engine, headArc, clip);
+        endBody(g, gameMillis, BODY_COLOR);
+        g.drawImage(headSprite, (int) engine.trailX(headArc), (int) engine.trailY(headArc), null);
+    }
+
+    private void addClippedAnchor(SnakeEngine engine, double arc, Rectangle clip) {
+        double x = engine.trailX(arc);
+        double y = engine.trailY(arc);
+        boolean visible = clip == null || !(x + DOT_SIZE < clip.x || y + DOT_SIZE < clip.y
+                || x > clip.x + clip.width || y > clip.y + clip.height);
+        addAnchor(x, y, arc, visible);
+    }
+
+    // Prépare le tracé d'un corps ; le niveau de détail suit l'échelle de g
+    private void beginBody(Graphics2D g, boolean rainbow, double headArc) {
+        AffineTransform transform = g.getTransform();
+        double scale = Math.sqrt(Math.abs(transform.getDeterminant()));
+        double pixelSize = scale > 0 ? 1 / scale : 1;
+        rainbowBody = rainbow;
+        rainbowHeadArc = headArc;
+        bodyPath.reset(pixelSize);
+        if (rainbow) {
+            for (BodyPath path : rainbowPaths) {
+                path.reset(pixelSize);
+            }
+        }
+    }
+
+    // Point de la trace en (x, y), coin haut gauche d'un segment, à la distance `arc`
+    private void addAnchor(double x, double y, double arc, boolean visible) {
+        double cx = x + DOT_SIZE / 2.0;
+        double cy = y + DOT_SIZE / 2.0;
+        if (!rainbowBody) {
+            bodyPath.add(cx, cy, visible);
+        } else if (visible) {
+            int i = (int) ((rainbowHeadArc - arc) / DOT_SIZE);
+            rainbowPaths[i % RAINBOW_BANDS].dot(cx, cy);
+        }
+    }
+
+    private void endBody(Graphics2D g, long gameMillis, Color color) {
+        Stroke stroke = g.getStroke();
+        g.setStroke(BODY_STROKE);
+        if (rainbowBody) {
+            for (int band = 0; band < RAINBOW_BANDS; band++) {
+                rainbowPaths[band].draw(g, rainbowColor(gameMillis, (long) band * RAINBOW_STEP));
+            }
+        } else {
+            bodyPath.draw(g, color);
+        }
+        g.setStroke(stroke);
+    }
+
+    /**
+     * Arène multijoueur vue depuis le client : la caméra suit la tête prédite
+     * du joueur, dessinée à sa position prédite plutôt qu'à la dernière
+     * position reçue. Les autres serpents sont gris.
+     */
+    void drawArena(Graphics2D g, ArenaClient client) {
+        ArenaClient.RemoteSnake own = client.getSnake(client.getOwnId());
+        int headX = (int) client.getPredictedX() + DOT_SIZE / 2;
+        int headY = (int) client.getPredictedY() + DOT_SIZE / 2;
+        cameraX = Math.max(0, Math.min(client.getWidth() - width, headX - width / 2));
+        cameraY = Math.max(0, Math.min(client.getHeight() - height, headY - height / 2));
+
+        g.translate(-cameraX, -cameraY);
+        drawChunks(g, client.getWidth(), client.getHeight());
+        Apple apple = client.getApple();
+        if (apple != null) {
+            g.drawImage(appleSprites[apple.type.ordinal()], apple.x, apple.y, null);
+        }
+        int players = 0;
+        for (int id = 0; id < Arena.MAX_SNAKES; id++) {
+            ArenaClient.RemoteSnake snake = client.getSnake(id);
+            if (snake == null) {
+                continue;
+            }
+            players++;
+            SnakeBody body = snake.body;
+            boolean mine = snake == own && snake.alive;
+            int length = body.getLength();
+            if (arenaX.length < length) {
+                arenaX = new double[length * 2];
+                arenaY = new double[length * 2];
+            }
+            body.sampleSegments(body.headDistance(), length, arenaX, arenaY);
+            beginBody(g, false, 0);
+            for (int j = 0; j < length; j++) {
+                addAnchor(arenaX[j], arenaY[j], 0, distanceOutside(arenaX[j], arenaY[j]) <= 0);
+            }
+            endBody(g, 0, mine ? BODY_COLOR : OTHER_COLOR);
+            if (mine) {
+                g.drawImage(headSprite, (int) client.getPredictedX(), (int) client.getPredictedY(), null);
+            } else {
+                g.drawImage(otherSprite, (int) body.headX(), (int) body.headY(), null);
+            }
+        }
+        g.translate(cameraX, cameraY);
+
+        g.setColor(Color.WHITE);
+        g.setFont(HUD_FONT);
+        g.drawString("Score: " + (own != null ? own.score : 0), 10, 20);
+        g.drawString("Joueurs: " + players, width / 2 - 50, 20);
+        g.drawString(String.format("Ping: %.0f ms", client.getSmoothedRttMillis()), width - 100, 20);
+    }
+
+    // Zone de l'incrustation des mesures, redessinée à chaque image tant qu'elle est affichée
+    void addTelemetryRegion(Telemetry telemetry, DirtyRegion dirty) {
+        int h = telemetry.lines().length * TELEMETRY_LINE + 8;
+        dirty.add(0, height - h - 6, TELEMETRY_WIDTH + 6, h + 6);
+    }
+
+    void drawTelemetry(Graphics2D g, Telemetry telemetry) {
+        String[] lines = telemetry.lines();
+        int h = lines.length * TELEMETRY_LINE + 8;
+        int top = height - h - 4;
+        g.setColor(TELEMETRY_BACKGROUND);
+        g.fillRect(4, top, TELEMETRY_WIDTH, h);
+        g.setColor(Color.CYAN);
+        g.setFont(TELEMETRY_FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 10, top + 4 + (i + 1) * TELEMETRY_LINE - 2);
+        }
+    }
+
+    void drawPauseScreen(Graphics2D g) {
+        ensureMetrics(g);
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(0, 0, width, height);
+
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        String pauseText = "PAUSE";
+        g.drawString(pauseText, (width - overlayMetrics.stringWidth(pauseText))/2, height/2);
+
+        g.setFont(HINT_FONT);
+        String resumeText = "Appuyez sur ESPACE pour continuer";
+        g.drawString(resumeText, (width - hintMetrics.stringWidth(resumeText))/2, height/2 + 40);
+    }
+
+    void drawGameOver(Graphics2D g, int score, int bestScore) {
+        ensureMetrics(g);
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(0, 0, width, height);
+
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        String msg = "Game Over - Score: " + score;
+        g.drawString(msg, (width - overlayMetrics.stringWidth(msg))/2, height/2 - 40);
+
+        String bestMsg = "Meilleur Score: " + bestScore;
+        g.drawString(bestMsg, (width - overlayMetrics.stringWidth(bestMsg))/2, height/2);
+
+        g.setFont(HINT_FONT);
+        String restartText = "Appuyez sur ESPACE pour retourner au menu";
+        g.drawString(restartText, (width - hintMetrics.stringWidth(restartText))/2, height/2 + 40);
+    }
+}
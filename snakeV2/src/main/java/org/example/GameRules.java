@@ -0,0 +1,159 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Réglages d'équilibrage d'une partie : probabilités des pommes, durée des
+ * effets, vitesse et multiplicateur de score de chaque difficulté.
+ * {@link #DEFAULT} reprend les valeurs du jeu ; un fichier de propriétés peut
+ * en surcharger une partie :
+ *
+ * <pre>
+ * apple.GOLDEN=20
+ * effect.SPEED.millis=4000
+ * difficulty.HARD.speed=4.5
+ * difficulty.HARD.multiplier=1.6
+ * </pre>
+ *
+ * Les poids des pommes sont relatifs ; avec les poids par défaut (total 100),
+ * le tirage est identique à celui des versions précédentes, ce qui garde les
+ * replays valides.
+ */
+public final class GameRules {
+    public static final GameRules DEFAULT = new GameRules(
+            new int[] {60, 15, 10, 10, 5},
+            new long[] {0, 0, 5000, 3000, 10000},
+            speeds(), multipliers());
+
+    private static final AppleType[] APPLE_TYPES = AppleType.values();
+
+    // Indexés par ordinal d'AppleType
+    private final int[] appleWeights;
+    private final int totalWeight;
+    private final long[] effectTicks;
+
+    // Indexés par ordinal de Difficulty
+    private final double[] speeds;
+    private final double[] scoreMultipliers;
+
+    private GameRules(int[] appleWeights, long[] effectMillis, double[] speeds, double[] scoreMultipliers) {
+        this.appleWeights = appleWeights;
+        this.totalWeight = Arrays.stream(appleWeights).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("La somme des poids des pommes doit être positive");
+        }
+        this.effectTicks = new long[effectMillis.length];
+        for (int i = 0; i < effectMillis.length; i++) {
+            effectTicks[i] = effectMillis[i] / SnakeEngine.TICK_MILLIS;
+        }
+        this.speeds = speeds;
+        this.scoreMultipliers = scoreMultipliers;
+    }
+
+    public static GameRules load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return DEFAULT.with(properties);
+    }
+
+    // Copie de ces règles où les clés présentes dans `properties` remplacent les valeurs
+    public GameRules with(Properties properties) {
+        int[] weights = appleWeights.clone();
+        long[] millis = new long[effectTicks.length];
+        for (AppleType type : AppleType.values()) {
+            int i = type.ordinal();
+            weights[i] = Integer.parseInt(properties.getProperty("apple." + type.name(), String.valueOf(weights[i])));
+            millis[i] = Long.parseLong(properties.getProperty("effect." + type.name() + ".millis",
+                    String.valueOf(effectTicks[i] * SnakeEngine.TICK_MILLIS)));
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Poids négatif pour " + type.name());
+            }
+        }
+        double[] newSpeeds = speeds.clone();
+        double[] newMultipliers = scoreMultipliers.clone();
+        for (Difficulty difficulty : Difficulty.values()) {
+            int i = difficulty.ordinal();
+            String prefix = "difficulty." + difficulty.name();
+            newSpeeds[i] = Double.parseDouble(properties.getProperty(prefix + ".speed", String.valueOf(newSpeeds[i])));
+            // Le corps n'est solide qu'au-delà du cou : plus vite, la tête le traverserait en un tick
+            double neck = SnakeEngine.NECK_SEGMENTS * SnakeEngine.DOT_SIZE;
+            if (newSpeeds[i] * SnakeEngine.SPEED_BOOST >= neck) {
+                throw new IllegalArgumentException("Vitesse trop grande pour " + difficulty.name() + " : "
+                        + newSpeeds[i] + " (multipliée par " + SnakeEngine.SPEED_BOOST + " par la pomme SPEED, elle doit rester sous " + neck + ")");
+            }
+            newMultipliers[i] = Double.parseDouble(properties.getProperty(prefix + ".multiplier", String.valueOf(newMultipliers[i])));
+        }
+        return new GameRules(weights, millis, newSpeeds, newMultipliers);
+    }
+
+    // Type de pomme correspondant à un tirage dans [0, getTotalAppleWeight())
+    AppleType appleFor(int roll) {
+        AppleType[] types = APPLE_TYPES;
+        int threshold = 0;
+        for (int i = 0; i < types.length; i++) {
+            threshold += appleWeights[i];
+            if (roll < threshold) {
+                return types[i];
+            }
+        }
+        return types[types.length - 1];
+    }
+
+    int getTotalAppleWeight() {
+        return totalWeight;
+    }
+
+    public int getAppleWeight(AppleType type) {
+        return appleWeights[type.ordinal()];
+    }
+
+    // Durée de l'effet d'une pomme en ticks (0 pour une pomme sans effet)
+    public long effectTicks(AppleType type) {
+        return effectTicks[type.ordinal()];
+    }
+
+    public double speed(Difficulty difficulty) {
+        return speeds[difficulty.ordinal()];
+    }
+
+    public double scoreMultiplier(Difficulty difficulty) {
+        return scoreMultipliers[difficulty.ordinal()];
+    }
+
+    // Résumé d'une ligne pour les en-têtes de résultats
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        for (AppleType type : AppleType.values()) {
+            text.append(type.name()).append('=').append(appleWeights[type.ordinal()]).append(' ');
+        }
+        for (Difficulty difficulty : Difficulty.values()) {
+            text.append(difficulty.name()).append('=').append(speed(difficulty))
+                    .append('x').append(scoreMultiplier(difficulty)).append(' ');
+        }
+        return text.toString().trim();
+    }
+
+    private static double[] speeds() {
+        double[] values = new double[Difficulty.values().length];
+        for (Difficulty difficulty : Difficulty.values()) {
+            values[difficulty.ordinal()] = difficulty.speed;
+        }
+        return values;
+    }
+
+    private static double[] multipliers() {
+        double[] values = new double[Difficulty.values().length];
+        for (Difficulty difficulty : Difficulty.values()) {
+            values[difficulty.ordinal()] = difficulty.scoreMultiplier;
+        }
+        return values;
+    }
+}
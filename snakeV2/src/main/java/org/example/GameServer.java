@@ -0,0 +1,181 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serveur de parties multiples : chaque client qui se connecte obtient sa
+ * propre session, avancée par le {@link SessionScheduler} commun.
+ *
+ * Protocole : le client envoie d'abord un octet de difficulté (ordinal de
+ * {@link Difficulty}), puis un octet par changement de direction (ordinal de
+ * {@link Direction}). Le serveur renvoie l'état de la partie à chaque tick
+ * (voir {@link GameSession}) et ferme la connexion à la fin de la partie.
+ *
+ * Un seul thread réseau gère toutes les connexions avec un Selector ; il ne
+ * fait que lire les entrées et les déposer dans la file de chaque session.
+ *
+ * Usage : GameServer [port] [threads] [intervalle des statistiques en s]
+ */
+public class GameServer implements Runnable {
+    public static final int DEFAULT_PORT = 7777;
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+
+    private final SessionScheduler scheduler;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(1024);
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private volatile boolean running = true;
+
+    public GameServer(int port, SessionScheduler scheduler) throws IOException {
+        this.scheduler = scheduler;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur réseau du serveur: " + e.getMessage());
+        } finally {
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                // Fermeture de toute façon
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            // La session est créée à la réception de l'octet de difficulté
+            client.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel client = (SocketChannel) key.channel();
+        GameSession session = (GameSession) key.attachment();
+        readBuffer.clear();
+        int n;
+        try {
+            n = client.read(readBuffer);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            key.cancel();
+            if (session != null) {
+                session.disconnect();
+            } else {
+                closeQuietly(client);
+            }
+            return;
+        }
+
+        readBuffer.flip();
+        Direction[] directions = Direction.values();
+        while (readBuffer.hasRemaining()) {
+            int value = readBuffer.get() & 0xFF;
+            if (session == null) {
+                Difficulty difficulty = Difficulty.values()[Math.min(value, Difficulty.values().length - 1)];
+                SnakeEngine engine = new SnakeEngine(WIDTH, HEIGHT, difficulty, seeds.nextLong());
+                session = new GameSession(nextSessionId.incrementAndGet(), engine, client);
+                key.attach(session);
+                scheduler.add(session);
+            } else if (value < directions.length) {
+                session.offerInput(directions[value]);
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Rien à faire
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int reportSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        SessionScheduler scheduler = new SessionScheduler(threads);
+        GameServer server = new GameServer(port, scheduler);
+        scheduler.start();
+        Thread network = new Thread(server, "snake-server-network");
+        network.start();
+        System.out.printf("Serveur Snake sur le port %d, %d threads de simulation%n", server.getPort(), threads);
+
+        long previousTicks = 0;
+        while (network.isAlive()) {
+            Thread.sleep(reportSeconds * 1000L);
+            long ticks = scheduler.getTickStats().getCount();
+            printStats(scheduler, (ticks - previousTicks) / (double) reportSeconds);
+            previousTicks = ticks;
+        }
+    }
+
+    static void printStats(SessionScheduler scheduler, double ticksPerSecond) {
+        TickStats ticks = scheduler.getTickStats();
+        TickStats sessions = scheduler.sessionTickStats();
+        System.out.printf("%d sessions, %.1f ticks/s | tick : moy %.0f µs, p99 %d µs, max %d µs, %d dépassements"
+                        + " | session : moy %.1f µs, p99 %.1f µs, max %d µs | %d parties terminées%n",
+                scheduler.getSessionCount(), ticksPerSecond,
+                ticks.getAverageNanos() / 1000, ticks.percentileNanos(99) / 1000, ticks.getMaxNanos() / 1000,
+                scheduler.getOverruns(),
+                sessions.getAverageNanos() / 1000, sessions.percentileNanos(99) / 1000.0, sessions.getMaxNanos() / 1000,
+                scheduler.getFinishedSessions());
+        GameSession slowest = scheduler.slowestSession();
+        if (slowest != null) {
+            System.out.printf("  session la plus lente : #%d, moy %.1f µs, max %d µs, longueur %d, %d images sautées%n",
+                    slowest.getId(), slowest.getAverageTickNanos() / 1000, slowest.getMaxTickNanos() / 1000,
+                    slowest.getEngine().getLength(), slowest.getDroppedFrames());
+        }
+    }
+}
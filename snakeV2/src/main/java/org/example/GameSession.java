@@ -0,0 +1,238 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Une partie hébergée par le serveur : un moteur, la file des directions
+ * reçues du client et le tampon de l'état à lui renvoyer. Ce n'est qu'un
+ * objet d'état, avancé par un thread de {@link SessionScheduler} ; il ne
+ * possède ni thread ni minuterie.
+ *
+ * Format d'une image envoyée au client (gros-boutiste) : longueur de la suite
+ * (int), tick (long), score (int), vivant (octet), direction (octet), pomme
+ * x, y (short) et type (octet, -1 sans pomme), nombre de segments (int) puis
+ * x, y de chaque segment (short).
+ *
+ * Une image en retard est sautée, sauf la dernière (serpent mort) : elle est
+ * envoyée dès que la précédente est partie, et la session n'est fermée
+ * qu'après (voir {@link #isDrained}).
+ */
+public class GameSession {
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 1 + 1 + 2 + 2 + 1 + 4;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int id;
+    private final SnakeEngine engine;
+    private final SocketChannel channel;
+
+    // Producteur : thread réseau ; consommateur : thread qui avance la session
+    private final EventRing inputs = new EventRing(16);
+
+    private ByteBuffer frame = ByteBuffer.allocate(256);
+    // Positions des segments de l'image en cours, de la queue vers la tête
+    private double[] segmentX = new double[0];
+    private double[] segmentY = new double[0];
+    private volatile boolean finished;
+    private volatile boolean disconnected;
+    // Image de fin de partie pas encore encodée : l'image précédente n'était pas partie
+    private boolean finalFramePending;
+    private volatile boolean drained;
+    private long finishedNanos;
+    private long droppedFrames;
+
+    // Durée de step() + envoi de l'image, mesurée à chaque tick
+    private volatile long lastTickNanos;
+    private volatile long maxTickNanos;
+    private volatile double averageTickNanos;
+
+    public GameSession(int id, SnakeEngine engine, SocketChannel channel) {
+        this.id = id;
+        this.engine = engine;
+        this.channel = channel;
+        frame.limit(0);
+    }
+
+    // Appelé par le thread réseau ; une file pleine fait perdre l'entrée
+    public void offerInput(Direction direction) {
+        inputs.offer(direction.ordinal(), System.nanoTime());
+    }
+
+    // Le client est parti : la session sera retirée au prochain tick
+    public void disconnect() {
+        disconnected = true;
+        drained = true;
+        if (!finished) {
+            finishedNanos = System.nanoTime();
+            finished = true;
+        }
+    }
+
+    /**
+     * Avance la partie d'un tick et envoie le nouvel état au client.
+     *
+     * @return la durée du tick en nanosecondes
+     */
+    long tick() {
+        long start = System.nanoTime();
+        if (!finished) {
+            Direction input = null;
+            if (!inputs.isEmpty()) {
+                input = DIRECTIONS[inputs.peekValue()];
+                inputs.remove();
+            }
+            engine.step(input);
+            send();
+            if (!engine.isAlive()) {
+                finishedNanos = start;
+                finished = true;
+            }
+        } else if (!drained) {
+            flush();
+        }
+        long elapsed = System.nanoTime() - start;
+        recordTick(elapsed);
+        return elapsed;
+    }
+
+    private void recordTick(long nanos) {
+        lastTickNanos = nanos;
+        if (nanos > maxTickNanos) {
+            maxTickNanos = nanos;
+        }
+        double average = averageTickNanos;
+        averageTickNanos = average == 0 ? nanos : average * 0.99 + nanos * 0.01;
+    }
+
+    private void send() {
+        if (channel == null || disconnected) {
+            return;
+        }
+        try {
+            // Écriture non bloquante : si le client n'a pas lu l'image précédente,
+            // on la termine et on saute celle-ci (chaque image est un état complet),
+            // sauf l'image de fin de partie, gardée pour les ticks suivants
+            if (frame.hasRemaining()) {
+                channel.write(frame);
+                if (engine.isAlive()) {
+                    droppedFrames++;
+                    return;
+                }
+                finalFramePending = true;
+                flush();
+                return;
+            }
+            encodeFrame();
+            channel.write(frame);
+            drained = !engine.isAlive() && !frame.hasRemaining();
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    // Partie finie : termine l'image en cours, puis encode et envoie l'image de fin si elle attendait
+    private void flush() {
+        if (channel == null || disconnected) {
+            drained = true;
+            return;
+        }
+        try {
+            if (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            if (!frame.hasRemaining() && finalFramePending) {
+                finalFramePending = false;
+                encodeFrame();
+                channel.write(frame);
+            }
+            drained = !finalFramePending && !frame.hasRemaining();
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    private void encodeFrame() {
+        int length = engine.getLength();
+        int size = HEADER_BYTES + length * 4;
+        if (frame.capacity() < size) {
+            frame = ByteBuffer.allocate(Math.max(size, frame.capacity() * 2));
+        }
+        frame.clear();
+        frame.putInt(size - 4);
+        frame.putLong(engine.getTick());
+        frame.putInt(engine.getScore());
+        frame.put((byte) (engine.isAlive() ? 1 : 0));
+        frame.put((byte) engine.getDirection().ordinal());
+        Apple apple = engine.getApple();
+        if (apple != null) {
+            frame.putShort((short) apple.x);
+            frame.putShort((short) apple.y);
+            frame.put((byte) apple.type.ordinal());
+        } else {
+            frame.putShort((short) 0);
+            frame.putShort((short) 0);
+            frame.put((byte) -1);
+        }
+        frame.putInt(length);
+        if (segmentX.length < length) {
+            segmentX = new double[length * 2];
+            segmentY = new double[length * 2];
+        }
+        SnakeBody body = engine.getBody();
+        body.sampleSegments(body.headDistance(), length, segmentX, segmentY);
+        for (int i = length - 1; i >= 0; i--) {
+            frame.putShort((short) segmentX[i]);
+            frame.putShort((short) segmentY[i]);
+        }
+        frame.flip();
+    }
+
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Déjà fermé côté client
+            }
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Partie finie et image de fin entièrement écrite (ou client parti) : la session peut être fermée
+    public boolean isDrained() {
+        return drained;
+    }
+
+    // Instant System.nanoTime de la fin de partie
+    long getFinishedNanos() {
+        return finishedNanos;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    public double getAverageTickNanos() {
+        return averageTickNanos;
+    }
+}
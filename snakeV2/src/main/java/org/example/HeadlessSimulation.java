@@ -0,0 +1,43 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lance des parties sans affichage, à la vitesse brute du processeur.
+ * Usage : HeadlessSimulation [parties] [difficulté] [graine]
+ */
+public class HeadlessSimulation {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 600;
+    private static final long MAX_TICKS_PER_GAME = 1_000_000;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Difficulty difficulty = args.length > 1 ? Difficulty.valueOf(args[1]) : Difficulty.MEDIUM;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        SplittableRandom inputs = new SplittableRandom(seed);
+        Direction[] directions = Direction.values();
+        long totalTicks = 0;
+        long totalScore = 0;
+        int bestScore = 0;
+
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            SnakeEngine engine = new SnakeEngine(WIDTH, HEIGHT, difficulty, seed + g);
+            while (engine.isAlive() && engine.getTick() < MAX_TICKS_PER_GAME) {
+                // Joueur aléatoire : tourne en moyenne une fois toutes les 20 ticks
+                Direction input = inputs.nextInt(20) == 0 ? directions[inputs.nextInt(directions.length)] : null;
+                engine.step(input);
+            }
+            totalTicks += engine.getTick();
+            totalScore += engine.getScore();
+            bestScore = Math.max(bestScore, engine.getScore());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d parties (%s), %d ticks en %.2f s : %.0f ticks/s%n",
+                games, difficulty.label, totalTicks, seconds, totalTicks / seconds);
+        System.out.printf("Score moyen : %.2f, meilleur : %d%n", (double) totalScore / games, bestScore);
+    }
+}
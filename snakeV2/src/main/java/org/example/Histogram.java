@@ -0,0 +1,101 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Histogramme à intervalles de largeur fixe pour des valeurs entières
+ * positives (score, longueur, durée de survie). Le tableau grandit à la
+ * demande ; deux histogrammes de même largeur s'additionnent avec
+ * {@link #add(Histogram)}, ce qui permet de les remplir dans des threads
+ * séparés puis de les fusionner. Non synchronisé.
+ */
+public class Histogram {
+    private final long bucketWidth;
+    private long[] counts = new long[16];
+    private long count;
+    private long total;
+    private long max;
+
+    public Histogram(long bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("Largeur d'intervalle invalide : " + bucketWidth);
+        }
+        this.bucketWidth = bucketWidth;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucket = (int) Math.min(value / bucketWidth, Integer.MAX_VALUE - 8);
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket + 1, counts.length * 2));
+        }
+        counts[bucket]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void add(Histogram other) {
+        if (other.bucketWidth != bucketWidth) {
+            throw new IllegalArgumentException("Largeurs d'intervalle différentes");
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public long getBucketWidth() {
+        return bucketWidth;
+    }
+
+    // Nombre d'intervalles jusqu'au dernier non vide
+    public int getBucketCount() {
+        int last = counts.length - 1;
+        while (last >= 0 && counts[last] == 0) {
+            last--;
+        }
+        return last + 1;
+    }
+
+    public long getBucket(int index) {
+        return index < counts.length ? counts[index] : 0;
+    }
+
+    // Borne basse de l'intervalle contenant le percentile p (0 à 100)
+    public long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min(i * bucketWidth, max);
+            }
+        }
+        return max;
+    }
+}
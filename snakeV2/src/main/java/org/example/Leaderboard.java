@@ -0,0 +1,460 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Historique de toutes les parties, pour les classements par difficulté.
+ *
+ * Les parties sont ajoutées à la fin d'un journal binaire (enregistrements
+ * de taille fixe, jamais réécrits) par un thread d'écriture : signaler une
+ * partie ne fait que déposer une tâche. Le journal n'est forcé sur disque
+ * que lorsque la file d'écriture est vide, ce qui regroupe les rafales. Un
+ * enregistrement tronqué par un arrêt brutal est retiré à l'ouverture.
+ *
+ * Les classements se lisent dans un {@link ScoreIndex} par difficulté (8
+ * octets par partie) : rang d'un score et K premiers en temps
+ * logarithmique, sans parcourir le fichier ; seuls les K enregistrements
+ * affichés sont relus, à leur position. Quand les entrées récentes d'un
+ * index dépassent {@link #COMPACT_THRESHOLD}, un thread de compactage les
+ * fusionne dans la base et réécrit le fichier d'index (« .idx ») de façon
+ * atomique. Le jeu et les écritures continuent pendant ce temps. À
+ * l'ouverture, l'index est relu tel quel et seuls les enregistrements
+ * ajoutés depuis le dernier compactage sont lus dans le journal.
+ *
+ * Format du journal : "SNKS", version, puis des enregistrements de 32
+ * octets (score, longueur, durée en ms, difficulté, 3 octets libres, date en
+ * ms, référence du replay ou -1). Format de l'index : "SNKI", version,
+ * nombre d'enregistrements couverts, puis pour chaque difficulté le nombre
+ * de clés et les clés triées.
+ *
+ * Usage : Leaderboard fichier [parties aléatoires à ajouter]
+ */
+public class Leaderboard {
+    private static final int MAGIC = 0x534E4B53; // "SNKS"
+    private static final int INDEX_MAGIC = 0x534E4B49; // "SNKI"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD = 32;
+    private static final int INDEX_HEADER = 16;
+    // Tampon d'écriture du fichier d'index
+    private static final int INDEX_CHUNK = 64 * 1024;
+    // Entrées récentes d'une difficulté au-delà desquelles on compacte
+    static final int COMPACT_THRESHOLD = 4096;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+    // Une partie terminée ; replay vaut -1 si aucun replay n'a été gardé
+    public static final class Entry {
+        public final Difficulty difficulty;
+        public final int score;
+        public final int length;
+        public final int durationMillis;
+        public final long timestampMillis;
+        public final long replay;
+
+        public Entry(Difficulty difficulty, int score, int length, int durationMillis, long timestampMillis, long replay) {
+            this.difficulty = difficulty;
+            this.score = score;
+            this.length = length;
+            this.durationMillis = durationMillis;
+            this.timestampMillis = timestampMillis;
+            this.replay = replay;
+        }
+    }
+
+    private final Path indexFile;
+    private final FileChannel log;
+    private final ScoreIndex[] indexes = new ScoreIndex[DIFFICULTIES.length];
+    // Enregistrements dans le journal ; écrit par le thread d'écriture seulement
+    private volatile int records;
+
+    private final ThreadPoolExecutor writer = daemonExecutor("snake-leaderboard");
+    private final ThreadPoolExecutor compactor = daemonExecutor("snake-leaderboard-compact");
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    // Tampon du thread d'écriture
+    private final ByteBuffer appendBuffer = ByteBuffer.allocate(RECORD);
+
+    private Leaderboard(Path logFile, FileChannel log) {
+        Path absolute = logFile.toAbsolutePath();
+        this.indexFile = absolute.resolveSibling(absolute.getFileName() + ".idx");
+        this.log = log;
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = new ScoreIndex();
+        }
+    }
+
+    private static ThreadPoolExecutor daemonExecutor(String name) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ouvre (ou crée) le journal et reconstruit les index : le fichier
+     * d'index s'il est valable, puis les enregistrements qui le suivent.
+     */
+    public static Leaderboard open(Path logFile) throws IOException {
+        FileChannel log = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Leaderboard board = new Leaderboard(logFile, log);
+            board.load();
+            return board;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        long size = log.size();
+        if (size < HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            log.truncate(0);
+            writeFully(header, 0);
+            records = 0;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Ce fichier n'est pas un historique de scores Snake");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Version d'historique non supportée : " + header.getInt(4));
+        }
+        long count = (size - HEADER) / RECORD;
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Historique trop grand : " + count + " parties");
+        }
+        if (HEADER + count * RECORD != size) {
+            // Dernier enregistrement à moitié écrit
+            log.truncate(HEADER + count * RECORD);
+        }
+        records = (int) count;
+
+        int covered = readIndex(records);
+        if (covered < records) {
+            appendTail(covered);
+            if (records - covered >= COMPACT_THRESHOLD) {
+                // Même garde qu'un compactage : le thread d'écriture n'en lance pas d'autre d'ici là
+                int snapshot = records;
+                compacting.set(true);
+                compactor.execute(() -> {
+                    try {
+                        writeIndex(snapshot);
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            }
+        }
+    }
+
+    // Charge le fichier d'index ; renvoie le nombre d'enregistrements qu'il couvre, 0 s'il est absent ou invalide
+    private int readIndex(int available) {
+        if (!Files.exists(indexFile)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            // Lu dans le tas et non projeté : une projection resterait ouverte jusqu'au GC et
+            // empêcherait de remplacer le fichier au prochain compactage (Windows)
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("index trop grand");
+            }
+            ByteBuffer in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("index tronqué");
+                }
+            }
+            in.flip();
+            if (in.remaining() < INDEX_HEADER || in.getInt() != INDEX_MAGIC || in.getInt() != VERSION) {
+                throw new IOException("en-tête invalide");
+            }
+            long covered = in.getLong();
+            if (covered < 0 || covered > available) {
+                throw new IOException("l'index couvre " + covered + " parties, le journal en a " + available);
+            }
+            long[][] keys = new long[DIFFICULTIES.length][];
+            for (int d = 0; d < DIFFICULTIES.length; d++) {
+                int count = in.getInt();
+                if (count < 0 || (long) count * Long.BYTES > in.remaining()) {
+                    throw new IOException("nombre de clés invalide");
+                }
+                keys[d] = new long[count];
+                LongBuffer view = in.asLongBuffer();
+                view.get(keys[d]);
+                in.position(in.position() + count * Long.BYTES);
+            }
+            for (int d = 0; d < DIFFICULTIES.length; d++) {
+                indexes[d].load(keys[d]);
+            }
+            return (int) covered;
+        } catch (IOException | RuntimeException e) {
+            // L'index n'est qu'un cache : on le reconstruit depuis le journal
+            System.err.println("Index des scores ignoré (" + e.getMessage() + "), reconstruction depuis le journal");
+            for (ScoreIndex index : indexes) {
+                index.load(new long[0]);
+            }
+            return 0;
+        }
+    }
+
+    // Lit les enregistrements [from, records) d'un bloc et les fusionne dans la base de chaque index
+    private void appendTail(int from) throws IOException {
+        long[][] keys = new long[DIFFICULTIES.length][16];
+        int[] counts = new int[DIFFICULTIES.length];
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD * 4096);
+        long position = HEADER + (long) from * RECORD;
+        int record = from;
+        while (record < records) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), (long) (records - record) * RECORD));
+            readFully(chunk, position);
+            position += chunk.limit();
+            for (int offset = 0; offset < chunk.limit(); offset += RECORD, record++) {
+                int score = chunk.getInt(offset);
+                int difficulty = chunk.get(offset + 12);
+                if (difficulty < 0 || difficulty >= DIFFICULTIES.length) {
+                    continue;
+                }
+                if (counts[difficulty] == keys[difficulty].length) {
+                    keys[difficulty] = Arrays.copyOf(keys[difficulty], counts[difficulty] * 2);
+                }
+                keys[difficulty][counts[difficulty]++] = ScoreIndex.key(score, record);
+            }
+        }
+        for (int d = 0; d < DIFFICULTIES.length; d++) {
+            long[] tail = Arrays.copyOf(keys[d], counts[d]);
+            Arrays.sort(tail);
+            indexes[d].load(ScoreIndex.merge(indexes[d].base(), tail));
+        }
+    }
+
+    /**
+     * Ajoute une partie au journal, sur le thread d'écriture ; elle apparaît
+     * dans les classements une fois écrite.
+     */
+    public void submit(Entry entry) {
+        if (!writer.isShutdown()) {
+            writer.execute(() -> append(entry));
+        }
+    }
+
+    private void append(Entry entry) {
+        int record = records;
+        appendBuffer.clear();
+        appendBuffer.putInt(entry.score).putInt(entry.length).putInt(entry.durationMillis)
+                .put((byte) entry.difficulty.ordinal()).put((byte) 0).putShort((short) 0)
+                .putLong(entry.timestampMillis).putLong(entry.replay);
+        appendBuffer.flip();
+        try {
+            writeFully(appendBuffer, HEADER + (long) record * RECORD);
+            if (writer.getQueue().isEmpty()) {
+                log.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'enregistrement de la partie: " + e.getMessage());
+            return;
+        }
+        records = record + 1;
+        ScoreIndex index = indexes[entry.difficulty.ordinal()];
+        index.add(entry.score, record);
+        if (index.recentSize() >= COMPACT_THRESHOLD && compacting.compareAndSet(false, true)) {
+            startCompaction();
+        }
+    }
+
+    // Sur le thread d'écriture : tout ce qui précède `covered` est gelé, la fusion part sur le thread de compactage
+    private void startCompaction() {
+        int covered = records;
+        for (ScoreIndex index : indexes) {
+            index.freeze();
+        }
+        compactor.execute(() -> {
+            try {
+                for (ScoreIndex index : indexes) {
+                    index.publish(index.mergeFrozen());
+                }
+                writeIndex(covered);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    // Les bases couvrent exactement les enregistrements [0, covered) au moment de l'appel
+    private void writeIndex(int covered) {
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(INDEX_CHUNK);
+            out.putInt(INDEX_MAGIC).putInt(VERSION).putLong(covered);
+            for (ScoreIndex index : indexes) {
+                long[] keys = index.base();
+                out.putInt(keys.length);
+                for (long key : keys) {
+                    if (out.remaining() < Long.BYTES) {
+                        drain(channel, out);
+                    }
+                    out.putLong(key);
+                }
+                if (out.remaining() < Integer.BYTES) {
+                    drain(channel, out);
+                }
+            }
+            drain(channel, out);
+            channel.force(true);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture de l'index des scores: " + e.getMessage());
+            return;
+        }
+        try {
+            try {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture de l'index des scores: " + e.getMessage());
+        }
+    }
+
+    public long count(Difficulty difficulty) {
+        return indexes[difficulty.ordinal()].count();
+    }
+
+    // Rang (à partir de 1) qu'obtiendrait ce score dans sa difficulté
+    public long rank(Difficulty difficulty, int score) {
+        return indexes[difficulty.ordinal()].rank(score);
+    }
+
+    // Les k meilleures parties de la difficulté, relues dans le journal à leur position
+    public List<Entry> top(Difficulty difficulty, int k) throws IOException {
+        int[] found = new int[k];
+        int n = indexes[difficulty.ordinal()].top(k, found);
+        List<Entry> entries = new ArrayList<>(n);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD);
+        for (int i = 0; i < n; i++) {
+            buffer.clear();
+            readFully(buffer, HEADER + (long) found[i] * RECORD);
+            entries.add(new Entry(DIFFICULTIES[buffer.get(12)], buffer.getInt(0), buffer.getInt(4),
+                    buffer.getInt(8), buffer.getLong(16), buffer.getLong(24)));
+        }
+        return entries;
+    }
+
+    // Attend que les parties déjà signalées soient écrites
+    public void flush() throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Termine les écritures et le compactage en cours, puis ferme le journal (fermeture du jeu)
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+            compactor.shutdown();
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            log.force(true);
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture de l'historique des scores: " + e.getMessage());
+        }
+    }
+
+    // Écrit le contenu du tampon à la suite dans le fichier, puis le vide
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = log.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Fin inattendue de l'historique des scores");
+            }
+            position += n;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage : Leaderboard fichier [parties aléatoires à ajouter]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        int added = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+        long start = System.nanoTime();
+        Leaderboard board = open(file);
+        System.out.printf("Ouverture : %d parties en %.1f ms%n", board.records, (System.nanoTime() - start) / 1e6);
+
+        if (added > 0) {
+            SplittableRandom random = new SplittableRandom(42);
+            long now = System.currentTimeMillis();
+            start = System.nanoTime();
+            for (int i = 0; i < added; i++) {
+                // Scores à queue longue, comme ceux des vraies parties
+                int score = (int) (-Math.log(1 - random.nextDouble()) * 40);
+                board.submit(new Entry(DIFFICULTIES[random.nextInt(DIFFICULTIES.length)], score, score + 3,
+                        random.nextInt(600_000), now + i, -1));
+            }
+            board.flush();
+            System.out.printf("Ajout : %d parties en %.1f ms%n", added, (System.nanoTime() - start) / 1e6);
+        }
+
+        for (Difficulty difficulty : DIFFICULTIES) {
+            start = System.nanoTime();
+            List<Entry> top = board.top(difficulty, 10);
+            long topNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long rank = board.rank(difficulty, 100);
+            long rankNanos = System.nanoTime() - start;
+            System.out.printf("%-10s %d parties, meilleur %d, score 100 au rang %d (top 10 %.1f µs, rang %.1f µs)%n",
+                    difficulty.label, board.count(difficulty), top.isEmpty() ? 0 : top.get(0).score, rank,
+                    topNanos / 1000.0, rankNanos / 1000.0);
+        }
+        board.close();
+    }
+}
@@ -0,0 +1,418 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Niveau à obstacles, compilé au chargement : les murs fixes deviennent un
+ * bitset d'une case par bit, lu en temps constant par la collision et par le
+ * placement des pommes. Les obstacles mobiles sont des rectangles qui font
+ * des allers-retours en ligne droite, un pas toutes les {@code ticksPerStep}
+ * ticks : leur position ne dépend que du tick, ce qui garde les replays
+ * déterministes.
+ *
+ * Format texte :
+ * <pre>
+ * # commentaire
+ * name Croix
+ * mover 10 20 1 6 1 0 30 8   # colonne ligne largeur hauteur dx dy pas ticks-par-pas
+ * map
+ * ############...
+ * #..........>...
+ * </pre>
+ * Dans la carte, '#' est un mur, '.' ou ' ' une case libre et l'une des
+ * flèches {@code > < ^ v} la tête du serpent au départ (par défaut au centre,
+ * vers la droite). Le format binaire (voir {@link #write(ByteBuffer)}) donne
+ * les murs en longueurs de plages alternées libres / murs.
+ */
+public final class Level {
+    // Cases libres exigées devant la tête au départ
+    private static final int SPAWN_CLEARANCE = 4;
+
+    // Rectangle mobile : position de départ, direction et nombre de pas de l'aller
+    static final class Mover {
+        final int col;
+        final int row;
+        final int width;
+        final int height;
+        final int dx;
+        final int dy;
+        final int steps;
+        final int ticksPerStep;
+
+        Mover(int col, int row, int width, int height, int dx, int dy, int steps, int ticksPerStep) {
+            this.col = col;
+            this.row = row;
+            this.width = width;
+            this.height = height;
+            this.dx = dx;
+            this.dy = dy;
+            this.steps = steps;
+            this.ticksPerStep = ticksPerStep;
+        }
+
+        // Pas effectués au tick donné : 0, 1, ... steps, puis retour
+        int offset(long tick) {
+            if (steps == 0) {
+                return 0;
+            }
+            int phase = (int) ((tick / ticksPerStep) % (2L * steps));
+            return phase <= steps ? phase : 2 * steps - phase;
+        }
+    }
+
+    private final String name;
+    private final int cols;
+    private final int rows;
+    private final int spawnCol;
+    private final int spawnRow;
+    private final Direction spawnDirection;
+    private final long[] walls;
+    private final int wallCount;
+    private final Mover[] movers;
+
+    private Level(String name, int cols, int rows, int spawnCol, int spawnRow, Direction spawnDirection,
+                  long[] walls, Mover[] movers) {
+        this.name = name;
+        this.cols = cols;
+        this.rows = rows;
+        this.spawnCol = spawnCol;
+        this.spawnRow = spawnRow;
+        this.spawnDirection = spawnDirection;
+        this.walls = walls;
+        this.movers = movers;
+        int count = 0;
+        for (long word : walls) {
+            count += Long.bitCount(word);
+        }
+        this.wallCount = count;
+        validate();
+    }
+
+    public static Level load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static Level parse(String text) throws IOException {
+        return parse(new StringReader(text));
+    }
+
+    public static Level parse(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String name = "Sans nom";
+        List<Mover> movers = new ArrayList<>();
+        List<String> map = new ArrayList<>();
+        boolean inMap = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (inMap) {
+                map.add(line);
+                continue;
+            }
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (content.isEmpty()) {
+                continue;
+            }
+            String[] parts = content.split("\\s+");
+            switch (parts[0]) {
+                case "name":
+                    name = content.substring(4).trim();
+                    break;
+                case "mover":
+                    if (parts.length != 9) {
+                        throw new IllegalArgumentException("Obstacle mobile : 8 nombres attendus dans « " + content + " »");
+                    }
+                    int[] v = new int[8];
+                    for (int i = 0; i < 8; i++) {
+                        v[i] = Integer.parseInt(parts[i + 1]);
+                    }
+                    movers.add(new Mover(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7]));
+                    break;
+                case "map":
+                    inMap = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Mot-clé inconnu dans le niveau : " + parts[0]);
+            }
+        }
+        // Les lignes vides en fin de fichier ne comptent pas
+        while (!map.isEmpty() && map.get(map.size() - 1).isEmpty()) {
+            map.remove(map.size() - 1);
+        }
+        if (map.isEmpty()) {
+            throw new IllegalArgumentException("Niveau « " + name + " » sans carte");
+        }
+
+        int rows = map.size();
+        int cols = 0;
+        for (String row : map) {
+            cols = Math.max(cols, row.length());
+        }
+        long[] walls = new long[(cols * rows + 63) >>> 6];
+        int spawnCol = cols / 2;
+        int spawnRow = rows / 2;
+        Direction spawnDirection = Direction.RIGHT;
+        for (int r = 0; r < rows; r++) {
+            String row = map.get(r);
+            for (int c = 0; c < row.length(); c++) {
+                int cell = r * cols + c;
+                char ch = row.charAt(c);
+                switch (ch) {
+                    case '#':
+                        walls[cell >>> 6] |= 1L << cell;
+                        break;
+                    case '.':
+                    case ' ':
+                        break;
+                    case '>': case '<': case '^': case 'v':
+                        spawnCol = c;
+                        spawnRow = r;
+                        spawnDirection = ch == '>' ? Direction.RIGHT : ch == '<' ? Direction.LEFT
+                                : ch == '^' ? Direction.UP : Direction.DOWN;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Caractère inconnu '" + ch + "' ligne " + (r + 1) + " de la carte");
+                }
+            }
+        }
+        return new Level(name, cols, rows, spawnCol, spawnRow, spawnDirection, walls, movers.toArray(new Mover[0]));
+    }
+
+    /**
+     * Écrit le niveau au format binaire : nom (longueur sur un short puis
+     * UTF-8), dimensions, départ, plages de murs, obstacles mobiles. Les
+     * nombres sont des varints.
+     */
+    void write(ByteBuffer out) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) nameBytes.length);
+        out.put(nameBytes);
+        putVarInt(out, cols);
+        putVarInt(out, rows);
+        putVarInt(out, spawnCol);
+        putVarInt(out, spawnRow);
+        out.put((byte) spawnDirection.ordinal());
+
+        // Plages alternées, en commençant par des cases libres (éventuellement zéro)
+        int cells = cols * rows;
+        List<Integer> runs = new ArrayList<>();
+        boolean wall = false;
+        int run = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (isWall(cell) != wall) {
+                runs.add(run);
+                wall = !wall;
+                run = 0;
+            }
+            run++;
+        }
+        runs.add(run);
+        putVarInt(out, runs.size());
+        for (int value : runs) {
+            putVarInt(out, value);
+        }
+
+        putVarInt(out, movers.length);
+        for (Mover mover : movers) {
+            putVarInt(out, mover.col);
+            putVarInt(out, mover.row);
+            putVarInt(out, mover.width);
+            putVarInt(out, mover.height);
+            out.put((byte) mover.dx);
+            out.put((byte) mover.dy);
+            putVarInt(out, mover.steps);
+            putVarInt(out, mover.ticksPerStep);
+        }
+    }
+
+    // Taille maximale de l'écriture binaire, pour dimensionner le tampon
+    int maxBinarySize() {
+        return 2 + name.length() * 3 + 5 * 5 + 5 + (cols * rows + 1) * 5 + 5 + movers.length * 32;
+    }
+
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(maxBinarySize());
+        write(buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // Relit (et compile) un niveau binaire à la position courante du tampon
+    static Level read(ByteBuffer in) throws IOException {
+        try {
+            byte[] nameBytes = new byte[in.getShort() & 0xFFFF];
+            in.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            int cols = getVarInt(in);
+            int rows = getVarInt(in);
+            int spawnCol = getVarInt(in);
+            int spawnRow = getVarInt(in);
+            Direction spawnDirection = Direction.values()[in.get()];
+            long cells = (long) cols * rows;
+            if (cols <= 0 || rows <= 0 || cells > OccupancyGrid.DENSE_LIMIT) {
+                throw new IOException("Dimensions de niveau invalides : " + cols + " x " + rows);
+            }
+
+            long[] walls = new long[(int) ((cells + 63) >>> 6)];
+            int runCount = getVarInt(in);
+            int cell = 0;
+            for (int i = 0; i < runCount; i++) {
+                int run = getVarInt(in);
+                if (run < 0 || cell + run > cells) {
+                    throw new IOException("Plages de murs plus longues que le niveau « " + name + " »");
+                }
+                if ((i & 1) == 1) {
+                    setRange(walls, cell, cell + run);
+                }
+                cell += run;
+            }
+
+            Mover[] movers = new Mover[getVarInt(in)];
+            for (int i = 0; i < movers.length; i++) {
+                int col = getVarInt(in);
+                int row = getVarInt(in);
+                int width = getVarInt(in);
+                int height = getVarInt(in);
+                int dx = in.get();
+                int dy = in.get();
+                movers[i] = new Mover(col, row, width, height, dx, dy, getVarInt(in), getVarInt(in));
+            }
+            return new Level(name, cols, rows, spawnCol, spawnRow, spawnDirection, walls, movers);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Niveau binaire invalide : " + e.getMessage(), e);
+        }
+    }
+
+    // Positionne les bits [from, to)
+    private static void setRange(long[] bits, int from, int to) {
+        for (int cell = from; cell < to; cell++) {
+            bits[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    private void validate() {
+        if (spawnCol < 0 || spawnCol >= cols || spawnRow < 0 || spawnRow >= rows) {
+            throw new IllegalArgumentException("Départ hors du niveau « " + name + " »");
+        }
+        for (Mover mover : movers) {
+            if (mover.width <= 0 || mover.height <= 0 || mover.steps < 0 || mover.ticksPerStep <= 0
+                    || Math.abs(mover.dx) > 1 || Math.abs(mover.dy) > 1) {
+                throw new IllegalArgumentException("Obstacle mobile invalide dans « " + name + " »");
+            }
+            int endCol = mover.col + mover.dx * mover.steps;
+            int endRow = mover.row + mover.dy * mover.steps;
+            if (Math.min(mover.col, endCol) < 0 || Math.max(mover.col, endCol) + mover.width > cols
+                    || Math.min(mover.row, endRow) < 0 || Math.max(mover.row, endRow) + mover.height > rows) {
+                throw new IllegalArgumentException("Obstacle mobile hors du niveau « " + name + " »");
+            }
+        }
+        // Le corps de départ et quelques cases devant la tête doivent être libres au tick 0
+        for (int i = -(SnakeEngine.INITIAL_DOTS - 1); i <= SPAWN_CLEARANCE; i++) {
+            int c = spawnCol + spawnDirection.dx * i;
+            int r = spawnRow + spawnDirection.dy * i;
+            if (c < 0 || c >= cols || r < 0 || r >= rows || isWall(r * cols + c) || isMoverAt(c, r, 0)) {
+                throw new IllegalArgumentException("Le départ du niveau « " + name + " » n'est pas dégagé");
+            }
+        }
+    }
+
+    private boolean isMoverAt(int col, int row, long tick) {
+        for (int i = 0; i < movers.length; i++) {
+            int c = moverCol(i, tick);
+            int r = moverRow(i, tick);
+            if (col >= c && col < c + movers[i].width && row >= r && row < r + movers[i].height) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isWall(int cell) {
+        return (walls[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    // Bitset des murs, une case par bit (cellule = ligne * cols + colonne) ; ne pas modifier
+    long[] walls() {
+        return walls;
+    }
+
+    int getMoverCount() {
+        return movers.length;
+    }
+
+    Mover getMover(int i) {
+        return movers[i];
+    }
+
+    int moverCol(int i, long tick) {
+        Mover mover = movers[i];
+        return mover.col + mover.dx * mover.offset(tick);
+    }
+
+    int moverRow(int i, long tick) {
+        Mover mover = movers[i];
+        return mover.row + mover.dy * mover.offset(tick);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSpawnCol() {
+        return spawnCol;
+    }
+
+    public int getSpawnRow() {
+        return spawnRow;
+    }
+
+    public Direction getSpawnDirection() {
+        return spawnDirection;
+    }
+
+    public int getWallCount() {
+        return wallCount;
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
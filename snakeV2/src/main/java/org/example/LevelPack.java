@@ -0,0 +1,189 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recueil de niveaux binaires. Le fichier est projeté en mémoire
+ * ({@link FileChannel#map}) et seul le sommaire (noms et positions) est lu à
+ * l'ouverture : un niveau n'est décodé et compilé qu'à sa première
+ * demande, puis gardé. Ouvrir un gros recueil ou passer d'un niveau à
+ * l'autre ne coûte donc que le niveau choisi.
+ *
+ * Format : en-tête "SNKL", version, nombre de niveaux, puis pour chacun sa
+ * position et sa longueur (int) et son nom (UTF modifié) ; les niveaux
+ * suivent, au format de {@link Level#write(ByteBuffer)}.
+ *
+ * Usage : LevelPack sortie.pack niveau1.txt [niveau2.txt ...]
+ */
+public final class LevelPack {
+    private static final int MAGIC = 0x534E4B4C; // "SNKL"
+    private static final int VERSION = 1;
+    // Niveaux fournis avec le jeu, listés dans levels/index.txt
+    private static final String BUILT_IN_INDEX = "/levels/index.txt";
+
+    private final ByteBuffer data;
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final Level[] compiled;
+
+    private LevelPack(ByteBuffer data) throws IOException {
+        this.data = data;
+        ByteBuffer in = data.duplicate();
+        if (in.remaining() < 9 || in.getInt() != MAGIC) {
+            throw new IOException("Ce fichier n'est pas un recueil de niveaux Snake");
+        }
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Version de recueil non supportée : " + version);
+        }
+        int count = in.getInt();
+        names = new String[count];
+        offsets = new int[count];
+        lengths = new int[count];
+        compiled = new Level[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = in.getInt();
+            lengths[i] = in.getInt();
+            byte[] name = new byte[in.getShort() & 0xFFFF];
+            in.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            if (offsets[i] < 0 || lengths[i] < 0 || (long) offsets[i] + lengths[i] > data.limit()) {
+                throw new IOException("Sommaire du recueil invalide (niveau " + i + ")");
+            }
+        }
+    }
+
+    // Projette le fichier en mémoire ; la projection reste valable après la fermeture du canal
+    public static LevelPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Recueil en mémoire des niveaux texte fournis avec le jeu
+    public static LevelPack builtIn() throws IOException {
+        List<Level> levels = new ArrayList<>();
+        try (InputStream index = LevelPack.class.getResourceAsStream(BUILT_IN_INDEX)) {
+            if (index == null) {
+                throw new IOException("ressource introuvable " + BUILT_IN_INDEX);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(index, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try (InputStream level = LevelPack.class.getResourceAsStream("/levels/" + line)) {
+                    if (level == null) {
+                        throw new IOException("ressource introuvable /levels/" + line);
+                    }
+                    levels.add(Level.parse(new InputStreamReader(level, StandardCharsets.UTF_8)));
+                }
+            }
+        }
+        return new LevelPack(encode(levels));
+    }
+
+    public static void write(Path file, List<Level> levels) throws IOException {
+        ByteBuffer buffer = encode(levels);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static ByteBuffer encode(List<Level> levels) {
+        int size = 9;
+        List<byte[]> bodies = new ArrayList<>();
+        List<byte[]> names = new ArrayList<>();
+        for (Level level : levels) {
+            byte[] body = level.toBytes();
+            byte[] name = level.getName().getBytes(StandardCharsets.UTF_8);
+            bodies.add(body);
+            names.add(name);
+            size += 10 + name.length + body.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC);
+        out.put((byte) VERSION);
+        out.putInt(levels.size());
+        int offset = 9;
+        for (byte[] name : names) {
+            offset += 10 + name.length;
+        }
+        for (int i = 0; i < levels.size(); i++) {
+            out.putInt(offset);
+            out.putInt(bodies.get(i).length);
+            out.putShort((short) names.get(i).length);
+            out.put(names.get(i));
+            offset += bodies.get(i).length;
+        }
+        for (byte[] body : bodies) {
+            out.put(body);
+        }
+        out.flip();
+        return out;
+    }
+
+    public int getCount() {
+        return names.length;
+    }
+
+    // Lu dans le sommaire : ne compile pas le niveau
+    public String getName(int i) {
+        return names[i];
+    }
+
+    // Compile le niveau à la première demande ; appelable depuis plusieurs threads
+    public synchronized Level level(int i) throws IOException {
+        if (compiled[i] == null) {
+            ByteBuffer in = data.duplicate();
+            in.position(offsets[i]);
+            in.limit(offsets[i] + lengths[i]);
+            compiled[i] = Level.read(in);
+        }
+        return compiled[i];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : LevelPack sortie.pack niveau1.txt [niveau2.txt ...]");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[0]);
+        List<Level> levels = new ArrayList<>();
+        long textBytes = 0;
+        for (int i = 1; i < args.length; i++) {
+            Path file = Paths.get(args[i]);
+            levels.add(Level.load(file));
+            textBytes += Files.size(file);
+        }
+        write(output, levels);
+        System.out.printf("%d niveaux : %d octets de texte -> %d octets dans %s%n",
+                levels.size(), textBytes, Files.size(output), output);
+
+        long start = System.nanoTime();
+        LevelPack pack = open(output);
+        long opened = System.nanoTime();
+        Level last = pack.level(pack.getCount() - 1);
+        long compiledAt = System.nanoTime();
+        System.out.printf("Ouverture %.1f µs, compilation de « %s » %.1f µs (%d murs)%n",
+                (opened - start) / 1000.0, last.getName(), (compiledAt - opened) / 1000.0, last.getWallCount());
+    }
+}
@@ -0,0 +1,88 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Client de charge pour {@link GameServer} : ouvre N connexions en local,
+ * joue au hasard sur chacune et en rouvre une dès qu'une partie se termine,
+ * pour garder N sessions actives. Les images reçues sont lues et ignorées.
+ * Usage : LoadClient [connexions] [difficulté] [port]
+ */
+public class LoadClient {
+    public static void main(String[] args) throws IOException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Difficulty difficulty = args.length > 1 ? Difficulty.valueOf(args[1]) : Difficulty.MEDIUM;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : GameServer.DEFAULT_PORT;
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+
+        Selector selector = Selector.open();
+        for (int i = 0; i < connections; i++) {
+            connect(selector, address, difficulty);
+        }
+        System.out.printf("%d connexions ouvertes vers le port %d%n", connections, port);
+
+        ByteBuffer incoming = ByteBuffer.allocateDirect(64 * 1024);
+        ByteBuffer turn = ByteBuffer.allocate(1);
+        SplittableRandom random = new SplittableRandom();
+        Direction[] directions = Direction.values();
+        long games = 0;
+        long bytes = 0;
+        long lastReport = System.nanoTime();
+
+        while (true) {
+            selector.select(1000);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                SocketChannel channel = (SocketChannel) key.channel();
+                incoming.clear();
+                int n;
+                try {
+                    n = channel.read(incoming);
+                } catch (IOException e) {
+                    n = -1;
+                }
+                if (n < 0) {
+                    // Partie terminée (ou connexion perdue) : on en relance une
+                    key.cancel();
+                    channel.close();
+                    connect(selector, address, difficulty);
+                    games++;
+                    continue;
+                }
+                bytes += n;
+                // Joueur aléatoire : tourne en moyenne une fois toutes les 20 images
+                if (n > 0 && random.nextInt(20) == 0) {
+                    turn.clear();
+                    turn.put((byte) directions[random.nextInt(directions.length)].ordinal());
+                    turn.flip();
+                    channel.write(turn);
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now - lastReport >= 5_000_000_000L) {
+                double seconds = (now - lastReport) / 1e9;
+                System.out.printf("%d parties terminées, %.1f Mo/s reçus%n", games, bytes / seconds / 1e6);
+                bytes = 0;
+                lastReport = now;
+            }
+        }
+    }
+
+    private static void connect(Selector selector, InetSocketAddress address, Difficulty difficulty) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.write(ByteBuffer.wrap(new byte[] {(byte) difficulty.ordinal()}));
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+}
@@ -0,0 +1,318 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Grille d'occupation du plateau, une case par DOT_SIZE pixels.
+ * Chaque case compte les segments qui s'y trouvent ; une seconde table ne
+ * compte que les segments « solides » (hors cou) pour la collision. Un index
+ * des cases libres permet de tirer une case libre uniformément en O(1).
+ *
+ * Au-delà de DENSE_LIMIT cases (grand monde, jusqu'à 10 000 × 10 000), les
+ * compteurs sont rangés par blocs de CHUNK_SIZE × CHUNK_SIZE cases, créés à
+ * l'arrivée du premier segment et recyclés quand le dernier s'en va : la
+ * mémoire suit la taille du serpent, pas celle du monde. Il n'y a alors pas
+ * d'index des cases libres ; le serpent n'occupant qu'une infime partie du
+ * monde, un tirage au hasard tombe presque toujours sur une case libre.
+ */
+public class OccupancyGrid {
+    static final int DENSE_LIMIT = 1 << 20;
+    static final int CHUNK_BITS = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int CHUNK_POOL = 32;
+    // Tirages rejetés avant de passer à un parcours de la zone
+    private static final int MAX_REJECTIONS = 64;
+
+    private final int cols;
+    private final int rows;
+    private final boolean chunked;
+
+    // Mode dense
+    private final int[] counts;
+    private final int[] solidCounts;
+
+    // Cases libres : freeCells[0..freeCount) et position de chaque case dans ce tableau
+    private final int[] freeCells;
+    private final int[] freeIndex;
+    private int freeCount;
+
+    // Mode par blocs : compteurs de chaque bloc (null tant qu'il est vide)
+    private final int chunkCols;
+    private final int[][] chunkCounts;
+    private final int[][] chunkSolidCounts;
+    private final int[] chunkOccupied;
+    private final int[][] spareCounts = new int[CHUNK_POOL][];
+    private final int[][] spareSolidCounts = new int[CHUNK_POOL][];
+    private int spareCount;
+    private long occupiedCells;
+
+    public OccupancyGrid(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        long total = (long) cols * rows;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Plateau trop grand : " + cols + " x " + rows);
+        }
+        int cells = (int) total;
+        chunked = cells > DENSE_LIMIT;
+        if (chunked) {
+            counts = null;
+            solidCounts = null;
+            freeCells = null;
+            freeIndex = null;
+            chunkCols = (cols + CHUNK_MASK) >> CHUNK_BITS;
+            int chunks = chunkCols * ((rows + CHUNK_MASK) >> CHUNK_BITS);
+            chunkCounts = new int[chunks][];
+            chunkSolidCounts = new int[chunks][];
+            chunkOccupied = new int[chunks];
+            return;
+        }
+        chunkCols = 0;
+        chunkCounts = null;
+        chunkSolidCounts = null;
+        chunkOccupied = null;
+        counts = new int[cells];
+        solidCounts = new int[cells];
+        freeCells = new int[cells];
+        freeIndex = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            freeCells[i] = i;
+            freeIndex[i] = i;
+        }
+        freeCount = cells;
+    }
+
+    // Case contenant le point (x, y), ou -1 hors du plateau
+    public int cellAt(double x, double y) {
+        if (x < 0 || y < 0) {
+            return -1;
+        }
+        int col = (int) (x / SnakeEngine.DOT_SIZE);
+        int row = (int) (y / SnakeEngine.DOT_SIZE);
+        if (col >= cols || row >= rows) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+
+    public void add(int cell, boolean solid) {
+        if (cell < 0) {
+            return;
+        }
+        if (chunked) {
+            addChunked(cell, solid);
+            return;
+        }
+        if (counts[cell]++ == 0) {
+            removeFree(cell);
+        }
+        if (solid) {
+            solidCounts[cell]++;
+        }
+    }
+
+    public void remove(int cell, boolean solid) {
+        if (cell < 0) {
+            return;
+        }
+        if (chunked) {
+            removeChunked(cell, solid);
+            return;
+        }
+        if (--counts[cell] == 0) {
+            addFree(cell);
+        }
+        if (solid) {
+            solidCounts[cell]--;
+        }
+    }
+
+    // Rend solide une occupation déjà comptée (un échantillon qui sort du cou)
+    public void solidify(int cell) {
+        if (cell < 0) {
+            return;
+        }
+        if (chunked) {
+            chunkSolidCounts[chunkOf(cell)][offsetOf(cell)]++;
+        } else {
+            solidCounts[cell]++;
+        }
+    }
+
+    public boolean isOccupied(int cell) {
+        if (chunked) {
+            int[] chunk = chunkCounts[chunkOf(cell)];
+            return chunk != null && chunk[offsetOf(cell)] > 0;
+        }
+        return counts[cell] > 0;
+    }
+
+    public boolean isSolid(int cell) {
+        if (cell < 0) {
+            return false;
+        }
+        if (chunked) {
+            int[] chunk = chunkSolidCounts[chunkOf(cell)];
+            return chunk != null && chunk[offsetOf(cell)] > 0;
+        }
+        return solidCounts[cell] > 0;
+    }
+
+    // Case libre tirée uniformément, ou -1 si le plateau est plein
+    public int randomFreeCell(SplittableRandom random) {
+        if (chunked) {
+            return randomFreeCellIn(random, 0, 0, cols, rows);
+        }
+        if (freeCount == 0) {
+            return -1;
+        }
+        return freeCells[random.nextInt(freeCount)];
+    }
+
+    /**
+     * Case libre tirée dans le carré de côté 2 * radius + 1 centré sur
+     * (col, row), rogné aux bords du plateau ; à défaut, n'importe où.
+     */
+    public int randomFreeCellNear(SplittableRandom random, int col, int row, int radius) {
+        int fromCol = Math.max(0, col - radius);
+        int fromRow = Math.max(0, row - radius);
+        int toCol = Math.min(cols, col + radius + 1);
+        int toRow = Math.min(rows, row + radius + 1);
+        if (fromCol >= toCol || fromRow >= toRow) {
+            return randomFreeCell(random);
+        }
+        int cell = randomFreeCellIn(random, fromCol, fromRow, toCol, toRow);
+        return cell >= 0 ? cell : randomFreeCell(random);
+    }
+
+    public int getFreeCount() {
+        if (chunked) {
+            return (int) ((long) cols * rows - occupiedCells);
+        }
+        return freeCount;
+    }
+
+    // Compteurs rangés par blocs (grand monde)
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public int cellX(int cell) {
+        return (cell % cols) * SnakeEngine.DOT_SIZE;
+    }
+
+    public int cellY(int cell) {
+        return (cell / cols) * SnakeEngine.DOT_SIZE;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // Tirages au hasard dans la zone, puis parcours complet à partir d'une case au hasard
+    private int randomFreeCellIn(SplittableRandom random, int fromCol, int fromRow, int toCol, int toRow) {
+        int width = toCol - fromCol;
+        int height = toRow - fromRow;
+        for (int i = 0; i < MAX_REJECTIONS; i++) {
+            int cell = (fromRow + random.nextInt(height)) * cols + fromCol + random.nextInt(width);
+            if (!isOccupied(cell)) {
+                return cell;
+            }
+        }
+        long area = (long) width * height;
+        long start = random.nextLong(area);
+        for (long i = 0; i < area; i++) {
+            long k = (start + i) % area;
+            int cell = (fromRow + (int) (k / width)) * cols + fromCol + (int) (k % width);
+            if (!isOccupied(cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private int chunkOf(int cell) {
+        int col = cell % cols;
+        int row = cell / cols;
+        return (row >> CHUNK_BITS) * chunkCols + (col >> CHUNK_BITS);
+    }
+
+    private int offsetOf(int cell) {
+        int col = cell % cols;
+        int row = cell / cols;
+        return ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+    }
+
+    private void addChunked(int cell, boolean solid) {
+        int chunk = chunkOf(cell);
+        int offset = offsetOf(cell);
+        int[] chunkCount = chunkCounts[chunk];
+        if (chunkCount == null) {
+            // Premier segment dans ce bloc : on reprend un bloc libéré s'il y en a
+            if (spareCount > 0) {
+                spareCount--;
+                chunkCount = spareCounts[spareCount];
+                chunkSolidCounts[chunk] = spareSolidCounts[spareCount];
+                spareCounts[spareCount] = null;
+                spareSolidCounts[spareCount] = null;
+            } else {
+                chunkCount = new int[CHUNK_CELLS];
+                chunkSolidCounts[chunk] = new int[CHUNK_CELLS];
+            }
+            chunkCounts[chunk] = chunkCount;
+        }
+        if (chunkCount[offset]++ == 0) {
+            chunkOccupied[chunk]++;
+            occupiedCells++;
+        }
+        if (solid) {
+            chunkSolidCounts[chunk][offset]++;
+        }
+    }
+
+    private void removeChunked(int cell, boolean solid) {
+        int chunk = chunkOf(cell);
+        int offset = offsetOf(cell);
+        if (solid) {
+            chunkSolidCounts[chunk][offset]--;
+        }
+        if (--chunkCounts[chunk][offset] == 0) {
+            occupiedCells--;
+            if (--chunkOccupied[chunk] == 0) {
+                // Bloc vide (tous ses compteurs sont à zéro) : il retourne à la réserve
+                if (spareCount < CHUNK_POOL) {
+                    spareCounts[spareCount] = chunkCounts[chunk];
+                    spareSolidCounts[spareCount] = chunkSolidCounts[chunk];
+                    spareCount++;
+                }
+                chunkCounts[chunk] = null;
+                chunkSolidCounts[chunk] = null;
+            }
+        }
+    }
+
+    private void removeFree(int cell) {
+        int index = freeIndex[cell];
+        int last = freeCells[--freeCount];
+        freeCells[index] = last;
+        freeIndex[last] = index;
+        freeCells[freeCount] = cell;
+        freeIndex[cell] = freeCount;
+    }
+
+    private void addFree(int cell) {
+        int index = freeIndex[cell];
+        int first = freeCells[freeCount];
+        freeCells[index] = first;
+        freeIndex[first] = index;
+        freeCells[freeCount] = cell;
+        freeIndex[cell] = freeCount;
+        freeCount++;
+    }
+}
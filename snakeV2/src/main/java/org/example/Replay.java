@@ -0,0 +1,243 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Enregistrement compact d'une partie : graine, difficulté, taille du plateau
+ * et changements de direction indexés par tick. Le moteur étant déterministe,
+ * rejouer ces entrées reproduit exactement la partie ; le score, la longueur
+ * et le tick final sont conservés pour vérifier le résultat.
+ *
+ * Format binaire : en-tête "SNKR", version, puis les entrées sous forme
+ * (écart de tick en varint, direction sur un octet, position du virage dans
+ * le tick sur un octet). Depuis la version 3, la taille du plateau tient sur
+ * un entier (grands mondes). Depuis la version 4, un octet indique si la
+ * partie se joue sur un niveau, suivi du niveau complet au format binaire de
+ * {@link Level} (longueur sur un int) : le replay ne dépend pas du recueil
+ * d'où vient le niveau. Depuis la version 5, le moteur balaye les collisions
+ * et les pommes le long du trajet de la tête ; depuis la version 6, le corps
+ * est touché à moins de DOT_SIZE / 2 d'un échantillon de la trace et non plus
+ * case par case. Un replay plus ancien est rejoué avec la règle de collision
+ * de sa version ({@link SnakeEngine.CollisionRule}), sans quoi il pourrait
+ * diverger. Les versions 1 à 5 se relisent encore.
+ */
+public class Replay {
+    private static final int MAGIC = 0x534E4B52; // "SNKR"
+    private static final int VERSION = 6;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final long seed;
+    private final Difficulty difficulty;
+    private final int width;
+    private final int height;
+    private final Level level;
+    // Version du format (et donc du moteur) qui a enregistré la partie
+    private final int version;
+
+    private long[] ticks = new long[64];
+    private byte[] directions = new byte[64];
+    // Position du virage dans le tick, en SnakeEngine.SUB_TICKS
+    private byte[] subTicks = new byte[64];
+    private int count;
+
+    private long finalTick = -1;
+    private int finalScore;
+    private int finalLength;
+
+    public Replay(long seed, Difficulty difficulty, int width, int height) {
+        this(seed, difficulty, width, height, null);
+    }
+
+    public Replay(long seed, Difficulty difficulty, int width, int height, Level level) {
+        this(seed, difficulty, width, height, level, VERSION);
+    }
+
+    private Replay(long seed, Difficulty difficulty, int width, int height, Level level, int version) {
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.version = version;
+    }
+
+    public SnakeEngine newEngine() {
+        SnakeEngine engine = new SnakeEngine(width, height, difficulty, seed, GameRules.DEFAULT, level);
+        if (version < 5) {
+            engine.useCollisionRule(SnakeEngine.CollisionRule.END_OF_TICK_CELL);
+        } else if (version == 5) {
+            engine.useCollisionRule(SnakeEngine.CollisionRule.SWEPT_CELLS);
+        }
+        return engine;
+    }
+
+    // Entrée passée à step() alors que le moteur avait terminé `tick` ticks
+    public void record(long tick, Direction direction) {
+        record(tick, direction, 0);
+    }
+
+    // Virage accepté par turnAt() alors que le moteur avait terminé `tick` ticks
+    public void record(long tick, Direction direction, int subTick) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            directions = Arrays.copyOf(directions, count * 2);
+            subTicks = Arrays.copyOf(subTicks, count * 2);
+        }
+        ticks[count] = tick;
+        directions[count] = (byte) direction.ordinal();
+        subTicks[count] = (byte) subTick;
+        count++;
+    }
+
+    public void finish(SnakeEngine engine) {
+        finalTick = engine.getTick();
+        finalScore = engine.getScore();
+        finalLength = engine.getLength();
+    }
+
+    public Player player() {
+        return new Player();
+    }
+
+    // Relit les entrées dans l'ordre, au fil des ticks du moteur
+    public class Player {
+        private int index;
+
+        // Transmet au moteur les virages enregistrés pour son prochain tick
+        public void apply(SnakeEngine engine) {
+            long tick = engine.getTick();
+            while (index < count && ticks[index] == tick) {
+                engine.turnAt(DIRECTIONS[directions[index]], subTicks[index] & 0xFF);
+                index++;
+            }
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeByte(difficulty.ordinal());
+        out.writeInt(width);
+        out.writeInt(height);
+        if (level == null) {
+            out.writeByte(0);
+        } else {
+            byte[] levelBytes = level.toBytes();
+            out.writeByte(1);
+            out.writeInt(levelBytes.length);
+            out.write(levelBytes);
+        }
+        writeVarLong(out, count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarLong(out, ticks[i] - previous);
+            out.writeByte(directions[i]);
+            out.writeByte(subTicks[i]);
+            previous = ticks[i];
+        }
+        out.writeLong(finalTick);
+        out.writeInt(finalScore);
+        out.writeInt(finalLength);
+        out.flush();
+    }
+
+    public static Replay read(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    public static Replay read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Ce fichier n'est pas un replay Snake");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Version de replay non supportée : " + version);
+        }
+        long seed = in.readLong();
+        Difficulty difficulty = Difficulty.values()[in.readUnsignedByte()];
+        int width = version >= 3 ? in.readInt() : in.readUnsignedShort();
+        int height = version >= 3 ? in.readInt() : in.readUnsignedShort();
+        Level level = null;
+        if (version >= 4 && in.readUnsignedByte() != 0) {
+            byte[] levelBytes = new byte[in.readInt()];
+            in.readFully(levelBytes);
+            level = Level.read(ByteBuffer.wrap(levelBytes));
+        }
+        Replay replay = new Replay(seed, difficulty, width, height, level, version);
+
+        long entries = readVarLong(in);
+        long tick = 0;
+        for (long i = 0; i < entries; i++) {
+            tick += readVarLong(in);
+            Direction direction = Direction.values()[in.readUnsignedByte()];
+            replay.record(tick, direction, version >= 2 ? in.readUnsignedByte() : 0);
+        }
+        replay.finalTick = in.readLong();
+        replay.finalScore = in.readInt();
+        replay.finalLength = in.readInt();
+        return replay;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getInputCount() {
+        return count;
+    }
+
+    public long getFinalTick() {
+        return finalTick;
+    }
+
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    public int getFinalLength() {
+        return finalLength;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Rejoue un replay sans affichage, aussi vite que possible, et vérifie que
+ * la partie se termine exactement comme lors de l'enregistrement.
+ * Usage : ReplayRunner fichier [répétitions]
+ */
+public class ReplayRunner {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage : ReplayRunner fichier [répétitions]");
+            System.exit(2);
+        }
+        Replay replay = Replay.read(Paths.get(args[0]));
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        SnakeEngine engine = null;
+        long start = System.nanoTime();
+        for (int r = 0; r < repetitions; r++) {
+            engine = run(replay);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long ticks = engine.getTick() * (long) repetitions;
+        double realTimeSeconds = ticks * SnakeEngine.TICK_MILLIS / 1000.0;
+
+        System.out.printf("%d ticks en %.3f s (%.0f ticks/s, x%.0f temps réel)%n",
+                ticks, seconds, ticks / seconds, realTimeSeconds / seconds);
+        System.out.printf("Tick final %d, score %d, longueur %d%n",
+                engine.getTick(), engine.getScore(), engine.getLength());
+
+        if (replay.getFinalTick() >= 0 && (engine.getTick() != replay.getFinalTick()
+                || engine.getScore() != replay.getFinalScore()
+                || engine.getLength() != replay.getFinalLength())) {
+            System.err.printf("Divergence ! Attendu : tick %d, score %d, longueur %d%n",
+                    replay.getFinalTick(), replay.getFinalScore(), replay.getFinalLength());
+            System.exit(1);
+        }
+        System.out.println("Résultat identique à l'enregistrement");
+    }
+
+    static SnakeEngine run(Replay replay) {
+        SnakeEngine engine = replay.newEngine();
+        Replay.Player player = replay.player();
+        long limit = replay.getFinalTick() >= 0 ? replay.getFinalTick() : Long.MAX_VALUE;
+        while (engine.isAlive() && engine.getTick() < limit) {
+            player.apply(engine);
+            engine.step();
+        }
+        return engine;
+    }
+}
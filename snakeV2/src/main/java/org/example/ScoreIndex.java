@@ -0,0 +1,169 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Index en mémoire des scores d'une difficulté, pour le classement.
+ *
+ * Chaque entrée tient dans un long : le score inversé dans les 32 bits de
+ * poids fort, le numéro de l'enregistrement dans le journal dans ceux de
+ * poids faible. Trier les clés dans l'ordre croissant classe donc par score
+ * décroissant puis, à égalité, du plus ancien au plus récent.
+ *
+ * Les clés sont réparties en trois tableaux triés : la base, gros et
+ * immuable ; les entrées récentes, petites, recopiées à chaque ajout ; et
+ * entre les deux, pendant un compactage, les récentes gelées en cours de
+ * fusion dans une nouvelle base. Le rang d'un score et les K premiers se
+ * lisent par recherche dichotomique dans chacun, sans verrou : les
+ * tableaux publiés ne changent plus.
+ */
+final class ScoreIndex {
+    private static final long[] EMPTY = new long[0];
+
+    // Instantané publié en bloc ; frozen n'est non vide que pendant un compactage
+    private static final class Levels {
+        final long[] base;
+        final long[] frozen;
+        final long[] recent;
+
+        Levels(long[] base, long[] frozen, long[] recent) {
+            this.base = base;
+            this.frozen = frozen;
+            this.recent = recent;
+        }
+    }
+
+    private volatile Levels levels = new Levels(EMPTY, EMPTY, EMPTY);
+
+    static long key(int score, int record) {
+        return ((long) (Integer.MAX_VALUE - score) << 32) | (record & 0xFFFFFFFFL);
+    }
+
+    static int record(long key) {
+        return (int) key;
+    }
+
+    // Remplace tout le contenu par des clés déjà triées (chargement)
+    synchronized void load(long[] sortedKeys) {
+        levels = new Levels(sortedKeys, EMPTY, EMPTY);
+    }
+
+    synchronized void add(int score, int record) {
+        Levels current = levels;
+        long key = key(score, record);
+        long[] recent = current.recent;
+        int at = insertionPoint(recent, key);
+        long[] grown = new long[recent.length + 1];
+        System.arraycopy(recent, 0, grown, 0, at);
+        grown[at] = key;
+        System.arraycopy(recent, at, grown, at + 1, recent.length - at);
+        levels = new Levels(current.base, current.frozen, grown);
+    }
+
+    int recentSize() {
+        return levels.recent.length;
+    }
+
+    long count() {
+        Levels current = levels;
+        return (long) current.base.length + current.frozen.length + current.recent.length;
+    }
+
+    /**
+     * Gèle les entrées récentes pour les fusionner dans la base ; les ajouts
+     * suivants repartent d'un tableau vide. Un seul compactage à la fois :
+     * les entrées gelées restent visibles jusqu'à {@link #publish}.
+     */
+    synchronized void freeze() {
+        Levels current = levels;
+        levels = new Levels(current.base, merge(current.frozen, current.recent), EMPTY);
+    }
+
+    // Fusion de la base et des entrées gelées, hors verrou : les ajouts continuent pendant ce temps
+    long[] mergeFrozen() {
+        Levels current = levels;
+        return merge(current.base, current.frozen);
+    }
+
+    synchronized void publish(long[] merged) {
+        levels = new Levels(merged, EMPTY, levels.recent);
+    }
+
+    // Base seule, telle qu'écrite dans le fichier d'index
+    long[] base() {
+        return levels.base;
+    }
+
+    // Rang (à partir de 1) qu'obtiendrait ce score : un de plus que le nombre de scores strictement meilleurs
+    long rank(int score) {
+        Levels current = levels;
+        long key = key(score, 0);
+        return 1L + insertionPoint(current.base, key) + insertionPoint(current.frozen, key)
+                + insertionPoint(current.recent, key);
+    }
+
+    /**
+     * Numéros d'enregistrement des k meilleurs scores, du premier au
+     * dernier, fusionnés à la volée depuis les trois tableaux.
+     *
+     * @return le nombre de numéros écrits dans records
+     */
+    int top(int k, int[] records) {
+        Levels current = levels;
+        long[] a = current.base;
+        long[] b = current.frozen;
+        long[] c = current.recent;
+        int i = 0;
+        int j = 0;
+        int l = 0;
+        int n = 0;
+        while (n < k) {
+            long ka = i < a.length ? a[i] : Long.MAX_VALUE;
+            long kb = j < b.length ? b[j] : Long.MAX_VALUE;
+            long kc = l < c.length ? c[l] : Long.MAX_VALUE;
+            long min = Math.min(ka, Math.min(kb, kc));
+            if (min == Long.MAX_VALUE) {
+                break;
+            }
+            if (min == ka) {
+                i++;
+            } else if (min == kb) {
+                j++;
+            } else {
+                l++;
+            }
+            records[n++] = record(min);
+        }
+        return n;
+    }
+
+    static long[] merge(long[] a, long[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            merged[n++] = a[i] <= b[j] ? a[i++] : b[j++];
+        }
+        System.arraycopy(a, i, merged, n, a.length - i);
+        n += a.length - i;
+        System.arraycopy(b, j, merged, n, b.length - j);
+        return merged;
+    }
+
+    // Nombre de clés strictement inférieures à key
+    private static int insertionPoint(long[] keys, long key) {
+        int at = Arrays.binarySearch(keys, key);
+        if (at < 0) {
+            return -at - 1;
+        }
+        // Clé déjà présente (même score, même enregistrement) : impossible en pratique, on se place avant
+        while (at > 0 && keys[at - 1] == key) {
+            at--;
+        }
+        return at;
+    }
+}
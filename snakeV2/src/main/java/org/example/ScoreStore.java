@@ -0,0 +1,168 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Meilleurs scores par difficulté, écrits en différé sur un thread d'arrière-plan.
+ *
+ * Les mises à jour rapprochées sont regroupées en une seule écriture. Le
+ * fichier est réécrit de façon atomique (fichier temporaire, fsync, puis
+ * renommage) : un arrêt brutal laisse soit l'ancienne version, soit la
+ * nouvelle, jamais un fichier tronqué.
+ */
+public class ScoreStore {
+    // Période de la tâche d'écriture : délai de regroupement des écritures pendant une partie
+    private static final long WRITE_DELAY_MILLIS = 2000;
+
+    private final Path file;
+    private final int[] bestScores = new int[Difficulty.values().length];
+    private final AtomicBoolean writePending = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "snake-score-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Créée une fois : signaler un score ne doit rien allouer
+    private final Runnable writeTask = this::writeNow;
+
+    public ScoreStore(Path file) {
+        this.file = file;
+        // À la fermeture, l'écriture différée est faite tout de suite par close()
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        // Une seule tâche périodique, planifiée ici : submit() ne fait que lever writePending
+        writer.scheduleWithFixedDelay(writeTask, WRITE_DELAY_MILLIS, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lit le fichier de scores. Format : une ligne {@code DIFFICULTE=score}
+     * par difficulté ; un ancien fichier ne contenant qu'un nombre est repris
+     * comme meilleur score en difficulté Normal.
+     */
+    public synchronized void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line.trim());
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors du chargement du meilleur score: " + e.getMessage());
+        }
+    }
+
+    /**
+     * load() sur le thread d'écriture : une écriture demandée entre-temps
+     * passe après la lecture et ne peut pas écraser le fichier avec des
+     * scores incomplets. Un record signalé avant la fin de la lecture est
+     * gardé s'il dépasse celui du fichier.
+     */
+    public CompletableFuture<Void> loadAsync() {
+        return CompletableFuture.runAsync(this::load, writer);
+    }
+
+    private void parseLine(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        try {
+            int separator = line.indexOf('=');
+            if (separator < 0) {
+                bestScores[Difficulty.MEDIUM.ordinal()] = Math.max(bestScores[Difficulty.MEDIUM.ordinal()], Integer.parseInt(line));
+                return;
+            }
+            Difficulty difficulty = Difficulty.valueOf(line.substring(0, separator).trim());
+            int score = Integer.parseInt(line.substring(separator + 1).trim());
+            bestScores[difficulty.ordinal()] = Math.max(bestScores[difficulty.ordinal()], score);
+        } catch (IllegalArgumentException e) {
+            // Une ligne illisible ne fait pas perdre les autres scores
+            System.err.println("Ligne de score ignorée: " + line);
+        }
+    }
+
+    public synchronized int getBest(Difficulty difficulty) {
+        return bestScores[difficulty.ordinal()];
+    }
+
+    /**
+     * Enregistre un score ; n'écrit rien tout de suite, l'écriture part au
+     * prochain passage de la tâche périodique avec toutes les mises à jour
+     * suivantes. Appelé pendant le tick : ne planifie rien et n'alloue rien.
+     *
+     * @return true si c'est un nouveau record pour cette difficulté
+     */
+    public boolean submit(Difficulty difficulty, int score) {
+        synchronized (this) {
+            if (score <= bestScores[difficulty.ordinal()]) {
+                return false;
+            }
+            bestScores[difficulty.ordinal()] = score;
+        }
+        writePending.set(true);
+        return true;
+    }
+
+    // Demande une écriture immédiate sans attendre (fin de partie)
+    public void flushAsync() {
+        if (writePending.get() && !writer.isShutdown()) {
+            writer.execute(writeTask);
+        }
+    }
+
+    // Écrit ce qui reste et arrête le thread d'écriture (fermeture du jeu)
+    public void close() {
+        // Abandonne l'écriture différée et attend celle qui serait en cours
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeNow();
+    }
+
+    private void writeNow() {
+        if (!writePending.getAndSet(false)) {
+            return;
+        }
+        StringBuilder content = new StringBuilder();
+        synchronized (this) {
+            for (Difficulty difficulty : Difficulty.values()) {
+                content.append(difficulty.name()).append('=').append(bestScores[difficulty.ordinal()]).append('\n');
+            }
+        }
+        try {
+            writeAtomically(content.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la sauvegarde du meilleur score: " + e.getMessage());
+        }
+    }
+
+    private void writeAtomically(byte[] bytes) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Avance toutes les sessions du serveur au même rythme, à pas fixe.
+ *
+ * Un thread maître cadence les ticks avec une {@link GameLoop} ; à chaque
+ * tick, les threads d'un pool fixe se partagent les sessions par lots de
+ * BATCH_SIZE (chaque thread prend le lot suivant tant qu'il en reste), puis
+ * le maître attend la fin de tous les lots avant de passer au tick suivant.
+ * Les sessions ajoutées ou terminées ne sont prises en compte qu'entre deux
+ * ticks, par le maître seul. Une session terminée reste en place, et continue
+ * d'envoyer, jusqu'à ce que son image de fin soit partie, ou au plus
+ * DRAIN_TIMEOUT_NANOS si le client ne lit plus.
+ */
+public class SessionScheduler {
+    private static final int BATCH_SIZE = 32;
+    private static final long DRAIN_TIMEOUT_NANOS = 2_000_000_000L;
+
+    private final int workerCount;
+    private final Thread[] workers;
+    private final TickStats[] workerSessionStats;
+    private final Thread master;
+    private final Phaser phaser;
+
+    private final ConcurrentLinkedQueue<GameSession> added = new ConcurrentLinkedQueue<>();
+    // Modifié uniquement par le maître entre deux ticks
+    private GameSession[] sessions = new GameSession[64];
+    private volatile int sessionCount;
+    private final AtomicInteger nextBatch = new AtomicInteger();
+
+    // Durée d'un tick complet, toutes sessions confondues
+    private final TickStats tickStats = new TickStats();
+    private volatile long overruns;
+    private volatile long finishedSessions;
+
+    private volatile boolean running;
+
+    public SessionScheduler(int workerCount) {
+        this.workerCount = workerCount;
+        this.workers = new Thread[workerCount];
+        this.workerSessionStats = new TickStats[workerCount];
+        this.phaser = new Phaser(workerCount + 1);
+        for (int w = 0; w < workerCount; w++) {
+            TickStats stats = new TickStats();
+            workerSessionStats[w] = stats;
+            workers[w] = new Thread(() -> workerLoop(stats), "snake-session-worker-" + w);
+            workers[w].setDaemon(true);
+        }
+        master = new Thread(this::masterLoop, "snake-session-scheduler");
+        master.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        master.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            master.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Utilisable depuis n'importe quel thread ; la session joue dès le tick suivant
+    public void add(GameSession session) {
+        added.add(session);
+    }
+
+    private void masterLoop() {
+        GameLoop loop = new GameLoop(new GameClock());
+        Runnable tickAll = this::tickAll;
+        try {
+            while (running) {
+                loop.advance(tickAll);
+                long remaining = GameLoop.TICK_NANOS - (long) (loop.alpha() * GameLoop.TICK_NANOS);
+                LockSupport.parkNanos(remaining);
+            }
+        } finally {
+            phaser.forceTermination();
+            for (int i = 0; i < sessionCount; i++) {
+                sessions[i].close();
+            }
+        }
+    }
+
+    private void tickAll() {
+        long start = System.nanoTime();
+        admitNewSessions();
+        nextBatch.set(0);
+
+        // Premier point de rendez-vous : les threads démarrent ; second : ils ont fini
+        phaser.arriveAndAwaitAdvance();
+        phaser.arriveAndAwaitAdvance();
+
+        long elapsed = System.nanoTime() - start;
+        tickStats.record(elapsed);
+        if (elapsed > GameLoop.TICK_NANOS) {
+            overruns++;
+        }
+        removeFinishedSessions(System.nanoTime());
+    }
+
+    private void workerLoop(TickStats stats) {
+        while (phaser.arriveAndAwaitAdvance() >= 0) {
+            GameSession[] current = sessions;
+            int count = sessionCount;
+            int from;
+            while ((from = nextBatch.getAndAdd(BATCH_SIZE)) < count) {
+                int to = Math.min(count, from + BATCH_SIZE);
+                for (int i = from; i < to; i++) {
+                    stats.record(current[i].tick());
+                }
+            }
+            if (phaser.arriveAndAwaitAdvance() < 0) {
+                return;
+            }
+        }
+    }
+
+    private void admitNewSessions() {
+        GameSession session;
+        while ((session = added.poll()) != null) {
+            if (sessionCount == sessions.length) {
+                sessions = Arrays.copyOf(sessions, sessions.length * 2);
+            }
+            sessions[sessionCount++] = session;
+        }
+    }
+
+    private void removeFinishedSessions(long now) {
+        int kept = 0;
+        int count = sessionCount;
+        for (int i = 0; i < count; i++) {
+            GameSession session = sessions[i];
+            if (session.isFinished()
+                    && (session.isDrained() || now - session.getFinishedNanos() > DRAIN_TIMEOUT_NANOS)) {
+                session.close();
+                finishedSessions++;
+            } else {
+                sessions[kept++] = session;
+            }
+        }
+        Arrays.fill(sessions, kept, count, null);
+        sessionCount = kept;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public TickStats getTickStats() {
+        return tickStats;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public long getFinishedSessions() {
+        return finishedSessions;
+    }
+
+    // Durées de tick de toutes les sessions, cumulées sur l'ensemble des threads
+    public TickStats sessionTickStats() {
+        TickStats total = new TickStats();
+        for (TickStats stats : workerSessionStats) {
+            total.add(stats);
+        }
+        return total;
+    }
+
+    // Session la plus lente en moyenne, pour repérer une partie anormale
+    public GameSession slowestSession() {
+        GameSession[] current = sessions;
+        GameSession slowest = null;
+        for (int i = 0; i < Math.min(sessionCount, current.length); i++) {
+            GameSession session = current[i];
+            if (session != null && (slowest == null || session.getAverageTickNanos() > slowest.getAverageTickNanos())) {
+                slowest = session;
+            }
+        }
+        return slowest;
+    }
+}
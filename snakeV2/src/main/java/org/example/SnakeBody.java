@@ -0,0 +1,378 @@
+package org.example;
+
+/**
+ * Corps du serpent sous forme de trace : la tête dépose un échantillon de
+ * position à chaque déplacement dans un tampon circulaire extensible, et
+ * chaque segment est lu sur cette trace à une distance fixe derrière la tête
+ * (i * DOT_SIZE). Avancer coûte O(1) quelle que soit la longueur du corps.
+ *
+ * Les échantillons de la trace sont aussi comptés dans la grille d'occupation :
+ * ceux qui sont plus loin que le cou deviennent solides pour la collision.
+ * Les échantillons solides sont de plus rangés par case (celle de leur
+ * centre) : {@link #touchesSolid} ne lit que ceux des cases voisines de la
+ * zone testée, puis fait le test exact à DOT_SIZE / 2 près.
+ */
+public class SnakeBody {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SEQUENTIAL_SCAN = 8;
+    private static final double NECK_DISTANCE = SnakeEngine.NECK_SEGMENTS * SnakeEngine.DOT_SIZE;
+
+    private final OccupancyGrid grid;
+
+    // Tampon circulaire, indexé par des compteurs croissants masqués par (capacité - 1)
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] distances = new double[INITIAL_CAPACITY];
+    private int[] cells = new int[INITIAL_CAPACITY];
+    // Échantillon solide précédent dans la même case, ou -1
+    private long[] sameCell = new long[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+
+    // Case -> plus récent échantillon solide ; une colonne et une ligne de plus de chaque côté
+    // du plateau, pour les centres qui le dépassent
+    private final CellSampleMap solidSamples = new CellSampleMap(INITIAL_CAPACITY);
+    private final int keyCols;
+
+    private long tailIndex;
+    private long headIndex = -1;
+    // Les échantillons [tailIndex, solidIndex) sont solides
+    private long solidIndex;
+
+    private int length;
+    private double previousHeadDistance;
+
+    // Dernière position calculée par locate()
+    private double lastArc = Double.NaN;
+    private double lastX, lastY;
+    private long lastLo = -1;
+
+    public SnakeBody(OccupancyGrid grid) {
+        this.grid = grid;
+        this.keyCols = grid.getCols() + 2;
+    }
+
+    // Serpent droit de `length` segments dont la tête est en (x, y) et regarde vers `direction`
+    public void reset(double x, double y, Direction direction, int length) {
+        clear();
+        this.length = length;
+
+        for (int i = length - 1; i >= 0; i--) {
+            append(x - direction.dx * i * SnakeEngine.DOT_SIZE,
+                    y - direction.dy * i * SnakeEngine.DOT_SIZE);
+        }
+        previousHeadDistance = headDistance();
+        solidify();
+    }
+
+    // Corps posé sur une trace donnée, de la queue vers la tête (état reçu du serveur)
+    void resetPath(double[] pathX, double[] pathY, int count, int length) {
+        clear();
+        this.length = length;
+        for (int i = 0; i < count; i++) {
+            append(pathX[i], pathY[i]);
+        }
+        previousHeadDistance = headDistance();
+        solidify();
+    }
+
+    // Retire tout le corps de la grille ; reset() ou resetPath() le replacent
+    void clear() {
+        for (long i = tailIndex; i <= headIndex; i++) {
+            int slot = (int) (i & mask);
+            grid.remove(cells[slot], i < solidIndex);
+        }
+        tailIndex = 0;
+        headIndex = -1;
+        solidIndex = 0;
+        solidSamples.clear();
+        lastArc = Double.NaN;
+    }
+
+    // Marque le début d'un tick : la position actuelle devient l'état « précédent » du rendu
+    public void beginStep() {
+        previousHeadDistance = headDistance();
+    }
+
+    /**
+     * Avance la tête en ligne droite jusqu'à (x, y). Un déplacement de plus
+     * d'une case est découpé en échantillons intermédiaires, alignés sur le
+     * même segment, distants d'au plus DOT_SIZE : les cases du corps restent
+     * contiguës dans la grille et une tête rapide ne peut pas passer entre
+     * deux d'entre elles.
+     */
+    public void moveHead(double x, double y) {
+        int previous = (int) (headIndex & mask);
+        double fromX = xs[previous];
+        double fromY = ys[previous];
+        double dx = x - fromX;
+        double dy = y - fromY;
+        int pieces = (int) Math.ceil(Math.sqrt(dx * dx + dy * dy) / SnakeEngine.DOT_SIZE);
+        for (int i = 1; i < pieces; i++) {
+            append(fromX + dx * i / pieces, fromY + dy * i / pieces);
+        }
+        append(x, y);
+        solidify();
+        trimTail();
+        lastArc = Double.NaN;
+    }
+
+    public void grow() {
+        length++;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public double headX() {
+        return xs[(int) (headIndex & mask)];
+    }
+
+    public double headY() {
+        return ys[(int) (headIndex & mask)];
+    }
+
+    public int headCell() {
+        return cells[(int) (headIndex & mask)];
+    }
+
+    // Case du bout de la queue (dernier échantillon encore sur la trace)
+    public int tailCell() {
+        return cells[(int) (tailIndex & mask)];
+    }
+
+    // Taille du tampon de la trace ; ne change qu'en cas d'agrandissement
+    int getCapacity() {
+        return xs.length;
+    }
+
+    public double headDistance() {
+        return distances[(int) (headIndex & mask)];
+    }
+
+    public double getPreviousHeadDistance() {
+        return previousHeadDistance;
+    }
+
+    public int getSampleCount() {
+        return (int) (headIndex - tailIndex + 1);
+    }
+
+    public double segmentX(int i) {
+        locate(headDistance() - i * SnakeEngine.DOT_SIZE);
+        return lastX;
+    }
+
+    public double segmentY(int i) {
+        locate(headDistance() - i * SnakeEngine.DOT_SIZE);
+        return lastY;
+    }
+
+    // Abscisse du point de la trace situé à la distance curviligne `arc`
+    public double xAt(double arc) {
+        locate(arc);
+        return lastX;
+    }
+
+    public double yAt(double arc) {
+        locate(arc);
+        return lastY;
+    }
+
+    /**
+     * Position des `count` derniers segments derrière `headArc`, de la queue
+     * (indice 0) vers la tête (indice count - 1) : outX[j] est le point de la
+     * trace à headArc - (count - 1 - j) * DOT_SIZE, au bit près comme
+     * xAt(). Un seul parcours de la trace trouve l'intervalle de chaque
+     * segment et l'interpole au passage.
+     */
+    public void sampleSegments(double headArc, int count, double[] outX, double[] outY) {
+        long lo = tailIndex;
+        for (int j = 0; j < count; j++) {
+            double arc = headArc - (count - 1 - j) * SnakeEngine.DOT_SIZE;
+            while (lo < headIndex && distances[(int) ((lo + 1) & mask)] <= arc) {
+                lo++;
+            }
+            int a = (int) (lo & mask);
+            // Avant la queue ou après la tête : le segment reste sur l'échantillon du bout
+            int b = lo < headIndex && distances[a] <= arc ? (int) ((lo + 1) & mask) : a;
+            double span = distances[b] - distances[a];
+            double t = span > 0 ? (arc - distances[a]) / span : 0;
+            outX[j] = xs[a] + (xs[b] - xs[a]) * t;
+            outY[j] = ys[a] + (ys[b] - ys[a]) * t;
+        }
+    }
+
+    /**
+     * Un échantillon solide est-il à moins de DOT_SIZE / 2 (sur chaque axe)
+     * d'un point du rectangle [minX, maxX] x [minY, maxY] ? Les coordonnées
+     * sont celles du coin haut gauche, comme celles de la tête ; un
+     * rectangle plat est le trajet de la tête le long d'un tronçon droit.
+     */
+    public boolean touchesSolid(double minX, double minY, double maxX, double maxY) {
+        double half = SnakeEngine.DOT_SIZE / 2;
+        // Centre de l'échantillon dans ]min, max + DOT_SIZE[ : ses cases suffisent
+        int fromCol = keyIndex(minX);
+        int toCol = keyIndex(maxX + SnakeEngine.DOT_SIZE);
+        int fromRow = keyIndex(minY);
+        int toRow = keyIndex(maxY + SnakeEngine.DOT_SIZE);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                for (long i = solidSamples.get(row * keyCols + col); i >= tailIndex; i = sameCell[(int) (i & mask)]) {
+                    int slot = (int) (i & mask);
+                    if (xs[slot] > minX - half && xs[slot] < maxX + half
+                            && ys[slot] > minY - half && ys[slot] < maxY + half) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Case de l'échantillon dans la table des solides (celle de son centre)
+    private int sampleKey(int slot) {
+        double half = SnakeEngine.DOT_SIZE / 2.0;
+        return keyIndex(ys[slot] + half) * keyCols + keyIndex(xs[slot] + half);
+    }
+
+    // Colonne ou ligne d'une coordonnée, décalée d'une case et bornée au cadre de la table
+    private int keyIndex(double position) {
+        int index = (int) Math.floor(position / SnakeEngine.DOT_SIZE) + 1;
+        return Math.max(0, Math.min(keyCols - 1, index));
+    }
+
+    private void locate(double arc) {
+        if (arc == lastArc) {
+            return;
+        }
+        lastArc = arc;
+
+        int tail = (int) (tailIndex & mask);
+        if (arc <= distances[tail]) {
+            // Segments tout juste ajoutés : ils s'empilent sur le bout de la queue
+            lastX = xs[tail];
+            lastY = ys[tail];
+            return;
+        }
+        int head = (int) (headIndex & mask);
+        if (arc >= distances[head]) {
+            lastX = xs[head];
+            lastY = ys[head];
+            return;
+        }
+
+        long lo = tailIndex;
+        long hi = headIndex;
+        if (lastLo >= tailIndex && lastLo < headIndex && distances[(int) (lastLo & mask)] <= arc) {
+            // Parcours séquentiel (rendu du corps) : on repart de l'intervalle précédent
+            long scanEnd = Math.min(headIndex, lastLo + SEQUENTIAL_SCAN);
+            long i = lastLo;
+            while (i < scanEnd && distances[(int) ((i + 1) & mask)] <= arc) {
+                i++;
+            }
+            if (i < scanEnd) {
+                lo = i;
+                hi = i + 1;
+            } else {
+                lo = i;
+            }
+        }
+
+        // Recherche dichotomique du dernier échantillon avant `arc`
+        while (hi - lo > 1) {
+            long mid = (lo + hi) >>> 1;
+            if (distances[(int) (mid & mask)] <= arc) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        lastLo = lo;
+        int a = (int) (lo & mask);
+        int b = (int) (hi & mask);
+        double span = distances[b] - distances[a];
+        double t = span > 0 ? (arc - distances[a]) / span : 0;
+        lastX = xs[a] + (xs[b] - xs[a]) * t;
+        lastY = ys[a] + (ys[b] - ys[a]) * t;
+    }
+
+    private void append(double x, double y) {
+        if (headIndex - tailIndex + 1 == xs.length) {
+            growBuffer();
+        }
+        double distance = 0;
+        if (headIndex >= tailIndex) {
+            int previous = (int) (headIndex & mask);
+            double dx = x - xs[previous];
+            double dy = y - ys[previous];
+            distance = distances[previous] + Math.sqrt(dx * dx + dy * dy);
+        }
+        headIndex++;
+        int slot = (int) (headIndex & mask);
+        xs[slot] = x;
+        ys[slot] = y;
+        distances[slot] = distance;
+        cells[slot] = grid.cellAt(x + SnakeEngine.DOT_SIZE/2.0, y + SnakeEngine.DOT_SIZE/2.0);
+        grid.add(cells[slot], false);
+    }
+
+    private void solidify() {
+        double limit = headDistance() - NECK_DISTANCE;
+        while (solidIndex <= headIndex && distances[(int) (solidIndex & mask)] <= limit) {
+            int slot = (int) (solidIndex & mask);
+            grid.solidify(cells[slot]);
+            int key = sampleKey(slot);
+            sameCell[slot] = solidSamples.get(key);
+            solidSamples.put(key, solidIndex);
+            solidIndex++;
+        }
+    }
+
+    // Oublie les échantillons devenus inutiles, même pour le rendu interpolé du tick précédent
+    private void trimTail() {
+        double minArc = previousHeadDistance - (length - 1) * SnakeEngine.DOT_SIZE;
+        while (headIndex - tailIndex >= 1 && distances[(int) ((tailIndex + 1) & mask)] <= minArc) {
+            int slot = (int) (tailIndex & mask);
+            boolean solid = tailIndex < solidIndex;
+            grid.remove(cells[slot], solid);
+            if (solid) {
+                // Le plus ancien de sa case : s'il en était aussi le plus récent, la case est vide
+                int key = sampleKey(slot);
+                if (solidSamples.get(key) == tailIndex) {
+                    solidSamples.remove(key);
+                }
+            }
+            tailIndex++;
+        }
+        if (solidIndex < tailIndex) {
+            solidIndex = tailIndex;
+        }
+    }
+
+    private void growBuffer() {
+        int capacity = xs.length * 2;
+        double[] newXs = new double[capacity];
+        double[] newYs = new double[capacity];
+        double[] newDistances = new double[capacity];
+        int[] newCells = new int[capacity];
+        long[] newSameCell = new long[capacity];
+        int newMask = capacity - 1;
+        for (long i = tailIndex; i <= headIndex; i++) {
+            int from = (int) (i & mask);
+            int to = (int) (i & newMask);
+            newXs[to] = xs[from];
+            newYs[to] = ys[from];
+            newDistances[to] = distances[from];
+            newCells[to] = cells[from];
+            newSameCell[to] = sameCell[from];
+        }
+        xs = newXs;
+        ys = newYs;
+        distances = newDistances;
+        cells = newCells;
+        sameCell = newSameCell;
+        mask = newMask;
+        solidSamples.ensureCapacity(capacity);
+    }
+}
@@ -0,0 +1,595 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Moteur de jeu sans Swing : toute la logique du serpent (déplacement,
+ * collisions, pommes, effets) avancée tick par tick via {@link #step(Direction)}.
+ * Aucune dépendance AWT, le hasard est initialisé avec une graine pour que
+ * deux moteurs créés avec la même graine jouent exactement la même partie.
+ *
+ * Avec un {@link Level}, les obstacles (murs et obstacles mobiles) sont
+ * tenus dans un bitset d'une case par bit : la collision les lit en temps
+ * constant. Ils occupent aussi leurs cases dans la grille d'occupation, ce
+ * qui les retire de l'index des cases libres où sont tirées les pommes.
+ */
+public class SnakeEngine {
+    // Événements renvoyés par step()
+    public static final int EVENT_TURN = 1;
+    public static final int EVENT_EAT = 2;
+    public static final int EVENT_CRASH = 4;
+
+    public static final int DOT_SIZE = 10;
+    static final int INITIAL_DOTS = 3;
+    // Durée d'un tick de simulation (celle de l'ancien Timer Swing)
+    public static final int TICK_MILLIS = 16;
+    // Les premiers segments derrière la tête ne comptent pas pour la collision
+    static final int NECK_SEGMENTS = 4;
+    // La pomme SPEED multiplie la vitesse par tant (GameRules refuse de dépasser le cou)
+    static final int SPEED_BOOST = 2;
+    // Résolution des virages à l'intérieur d'un tick
+    public static final int SUB_TICKS = 256;
+    static final int MAX_TURNS_PER_TICK = 2;
+    // Grand monde : les pommes apparaissent à moins de tant de cases de la tête
+    static final int NEARBY_APPLE_CELLS = 25;
+
+    private final int width;
+    private final int height;
+
+    // Corps sans limite de longueur, lu le long de la trace de la tête
+    private final SnakeBody body;
+    private final OccupancyGrid grid;
+
+    // Pomme courante : toujours la même instance, ou null si le plateau est plein
+    private final Apple apple = new Apple(0, 0, AppleType.BASIC, 0);
+    private Apple currentApple;
+    // Nombre de pommes placées depuis le début : change à chaque nouvelle pomme
+    private int appleSerial;
+    private final Difficulty difficulty;
+    private final GameRules rules;
+    private final double baseSpeed;
+    private double currentSpeed;
+    private long speedEffectEndTick;
+    private long rainbowEffectEndTick;
+    private boolean isRainbowEffect = false;
+
+    private Direction currentDirection = Direction.RIGHT;
+    private boolean alive = true;
+    private long tick = 0;
+    private int score = 0;
+
+    private final SplittableRandom random;
+
+    // Niveau en cours (null : plateau vide), murs et obstacles mobiles à leur position actuelle
+    private final Level level;
+    private final long[] obstacles;
+    private final int[] moverCols;
+    private final int[] moverRows;
+
+    // Virages demandés pour le prochain tick, par position croissante dans le tick
+    private final Direction[] turnDirections = new Direction[MAX_TURNS_PER_TICK];
+    private final int[] turnSubTicks = new int[MAX_TURNS_PER_TICK];
+    private int pendingTurns;
+
+    // Trajet de la tête pendant le dernier tick : départ, points de virage, arrivée
+    private final double[] pathX = new double[MAX_TURNS_PER_TICK + 2];
+    private final double[] pathY = new double[MAX_TURNS_PER_TICK + 2];
+    private int pathPoints;
+    private CollisionRule collisionRule = CollisionRule.SWEPT_SAMPLES;
+
+    public SnakeEngine(int width, int height, Difficulty difficulty, long seed) {
+        this(width, height, difficulty, seed, GameRules.DEFAULT);
+    }
+
+    public SnakeEngine(int width, int height, Difficulty difficulty, long seed, GameRules rules) {
+        this(width, height, difficulty, seed, rules, null);
+    }
+
+    public SnakeEngine(int width, int height, Difficulty difficulty, long seed, GameRules rules, Level level) {
+        this.width = width;
+        this.height = height;
+        this.difficulty = difficulty;
+        this.rules = rules;
+        this.baseSpeed = rules.speed(difficulty);
+        this.random = new SplittableRandom(seed);
+        this.grid = new OccupancyGrid(width / DOT_SIZE, height / DOT_SIZE);
+        this.body = new SnakeBody(grid);
+        this.level = level;
+
+        currentSpeed = baseSpeed;
+        if (level == null) {
+            obstacles = null;
+            moverCols = null;
+            moverRows = null;
+            body.reset(width/2, height/2, currentDirection, INITIAL_DOTS);
+        } else {
+            if (level.getCols() != grid.getCols() || level.getRows() != grid.getRows()) {
+                throw new IllegalArgumentException("Le niveau « " + level.getName() + " » fait " + level.getCols()
+                        + " x " + level.getRows() + " cases, le plateau " + grid.getCols() + " x " + grid.getRows());
+            }
+            currentDirection = level.getSpawnDirection();
+            body.reset(level.getSpawnCol() * DOT_SIZE, level.getSpawnRow() * DOT_SIZE, currentDirection, INITIAL_DOTS);
+            obstacles = level.walls().clone();
+            for (int word = 0; word < obstacles.length; word++) {
+                for (long bits = obstacles[word]; bits != 0; bits &= bits - 1) {
+                    grid.add((word << 6) + Long.numberOfTrailingZeros(bits), false);
+                }
+            }
+            moverCols = new int[level.getMoverCount()];
+            moverRows = new int[level.getMoverCount()];
+            for (int i = 0; i < moverCols.length; i++) {
+                moverCols[i] = level.moverCol(i, 0);
+                moverRows[i] = level.moverRow(i, 0);
+                occupyMover(i, true);
+            }
+            markMovers();
+        }
+
+        locateNewApple();
+    }
+
+    /**
+     * Avance la partie d'un tick. {@code input} est la direction demandée au
+     * début de ce tick, ou {@code null} pour continuer tout droit.
+     *
+     * @return combinaison des drapeaux EVENT_* survenus pendant ce tick
+     */
+    public int step(Direction input) {
+        if (input != null) {
+            turnAt(input, 0);
+        }
+        return step();
+    }
+
+    /**
+     * Demande un virage pendant le prochain tick, une fois parcourus
+     * {@code subTick / SUB_TICKS} du déplacement : la tête tourne au point
+     * exact de sa trajectoire où la touche a été pressée. Au plus
+     * MAX_TURNS_PER_TICK virages par tick, dans l'ordre où ils sont demandés.
+     *
+     * @return false si le tick a déjà son compte de virages
+     */
+    public boolean turnAt(Direction direction, int subTick) {
+        if (pendingTurns == MAX_TURNS_PER_TICK) {
+            return false;
+        }
+        int at = Math.max(0, Math.min(SUB_TICKS - 1, subTick));
+        if (pendingTurns > 0) {
+            at = Math.max(at, turnSubTicks[pendingTurns - 1]);
+        }
+        turnDirections[pendingTurns] = direction;
+        turnSubTicks[pendingTurns] = at;
+        pendingTurns++;
+        return true;
+    }
+
+    // Avance d'un tick avec les virages demandés par turnAt()
+    public int step() {
+        if (!alive) {
+            pendingTurns = 0;
+            return 0;
+        }
+        tick++;
+
+        int events = move();
+        if (moverCols != null && moverCols.length > 0) {
+            updateMovers();
+        }
+        if (checkCollision()) {
+            alive = false;
+            return events | EVENT_CRASH;
+        }
+        if (currentApple == null) {
+            // Le plateau était plein au dernier repas : on réessaie dès qu'une case se libère
+            locateNewApple();
+        }
+        if (checkApple()) {
+            events |= EVENT_EAT;
+        }
+        updateEffects();
+        return events;
+    }
+
+    int move(Direction input) {
+        if (input != null) {
+            turnAt(input, 0);
+        }
+        return move();
+    }
+
+    // Seule la tête avance : le reste du corps suit la trace qu'elle laisse
+    int move() {
+        int events = 0;
+        int done = 0;
+        body.beginStep();
+        pathPoints = 0;
+        recordPathPoint();
+        for (int i = 0; i < pendingTurns; i++) {
+            Direction turn = turnDirections[i];
+            turnDirections[i] = null;
+            if (!canChangeDirection(turn)) {
+                continue;
+            }
+            events |= EVENT_TURN;
+            if (turn == currentDirection) {
+                continue;
+            }
+            // Virage en cours de tick : la tête va d'abord jusqu'au point du virage
+            int at = turnSubTicks[i];
+            if (at > done) {
+                advanceHead(at - done);
+                done = at;
+            }
+            currentDirection = turn;
+        }
+        pendingTurns = 0;
+        advanceHead(SUB_TICKS - done);
+        return events;
+    }
+
+    private void advanceHead(int subTicks) {
+        double distance = currentSpeed * subTicks / SUB_TICKS;
+        body.moveHead(body.headX() + currentDirection.dx * distance,
+                body.headY() + currentDirection.dy * distance);
+        recordPathPoint();
+    }
+
+    private void recordPathPoint() {
+        pathX[pathPoints] = body.headX();
+        pathY[pathPoints] = body.headY();
+        pathPoints++;
+    }
+
+    // Les obstacles mobiles avancent selon le tick ; le bitset n'est refait que si l'un d'eux a bougé
+    private void updateMovers() {
+        boolean moved = false;
+        for (int i = 0; i < moverCols.length; i++) {
+            int col = level.moverCol(i, tick);
+            int row = level.moverRow(i, tick);
+            if (col != moverCols[i] || row != moverRows[i]) {
+                occupyMover(i, false);
+                moverCols[i] = col;
+                moverRows[i] = row;
+                occupyMover(i, true);
+                moved = true;
+            }
+        }
+        if (moved) {
+            System.arraycopy(level.walls(), 0, obstacles, 0, obstacles.length);
+            markMovers();
+        }
+    }
+
+    private void occupyMover(int i, boolean add) {
+        Level.Mover mover = level.getMover(i);
+        int cols = grid.getCols();
+        for (int r = moverRows[i]; r < moverRows[i] + mover.height; r++) {
+            for (int c = moverCols[i]; c < moverCols[i] + mover.width; c++) {
+                if (add) {
+                    grid.add(r * cols + c, false);
+                } else {
+                    grid.remove(r * cols + c, false);
+                }
+            }
+        }
+    }
+
+    private void markMovers() {
+        int cols = grid.getCols();
+        for (int i = 0; i < moverCols.length; i++) {
+            Level.Mover mover = level.getMover(i);
+            for (int r = moverRows[i]; r < moverRows[i] + mover.height; r++) {
+                for (int c = moverCols[i]; c < moverCols[i] + mover.width; c++) {
+                    int cell = r * cols + c;
+                    obstacles[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    // Mur ou obstacle mobile sur cette case, en temps constant
+    public boolean isObstacle(int cell) {
+        return obstacles != null && cell >= 0 && (obstacles[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    void locateNewApple() {
+        int cell;
+        if (grid.isChunked()) {
+            // Une pomme tirée n'importe où dans un monde géant serait introuvable
+            int head = body.headCell();
+            cell = head < 0 ? grid.randomFreeCell(random) : grid.randomFreeCellNear(random,
+                    grid.cellX(head) / DOT_SIZE, grid.cellY(head) / DOT_SIZE, NEARBY_APPLE_CELLS);
+        } else {
+            // Toute case libre, dernière ligne et dernière colonne comprises : le jeu d'origine
+            // (RAND_POS = (WIDTH - DOT_SIZE) / DOT_SIZE avec nextInt) ne les tirait jamais.
+            // Le tirage est gardé tel quel pour que les replays enregistrés se rejouent.
+            cell = grid.randomFreeCell(random);
+        }
+        if (cell < 0) {
+            currentApple = null;
+            return;
+        }
+        int x = grid.cellX(cell);
+        int y = grid.cellY(cell);
+
+        // Tirage pondéré selon les règles (60/15/10/10/5 par défaut)
+        AppleType type = rules.appleFor(random.nextInt(rules.getTotalAppleWeight()));
+
+        apple.set(x, y, type, tick);
+        currentApple = apple;
+        appleSerial++;
+    }
+
+    private boolean checkApple() {
+        if (currentApple != null && currentApple.isActive && pathTouches(currentApple.x, currentApple.y)) {
+
+            score += currentApple.type.points * rules.scoreMultiplier(difficulty);
+            applyAppleEffect(currentApple.type);
+            body.grow();
+
+            locateNewApple();
+            return true;
+        }
+        return false;
+    }
+
+    private void updateEffects() {
+        if (tick >= speedEffectEndTick) {
+            currentSpeed = baseSpeed;
+        }
+        if (tick >= rainbowEffectEndTick) {
+            isRainbowEffect = false;
+        }
+    }
+
+    private void applyAppleEffect(AppleType type) {
+        switch (type) {
+            case SPEED:
+                currentSpeed = baseSpeed * SPEED_BOOST;
+                speedEffectEndTick = tick + rules.effectTicks(type);
+                break;
+            case SLOW:
+                currentSpeed = baseSpeed / 2;
+                speedEffectEndTick = tick + rules.effectTicks(type);
+                break;
+            case RAINBOW:
+                isRainbowEffect = true;
+                rainbowEffectEndTick = tick + rules.effectTicks(type);
+                break;
+        }
+    }
+
+    /**
+     * Règle de collision avec le corps. Les replays sont rejoués avec celle
+     * de la version qui les a enregistrés (voir {@link Replay}).
+     */
+    enum CollisionRule {
+        // Versions 1 à 4 : case du centre de la tête, en fin de tick ; pommes en fin de tick
+        END_OF_TICK_CELL,
+        // Version 5 : cases traversées par le centre de la tête pendant le tick
+        SWEPT_CELLS,
+        // Échantillons solides à moins de DOT_SIZE / 2 du trajet de la tête
+        SWEPT_SAMPLES
+    }
+
+    /**
+     * Collision balayée le long du trajet de la tête pendant le tick. Le
+     * corps garde la règle du jeu d'origine : la tête le touche quand un
+     * échantillon solide de la trace est à moins de DOT_SIZE / 2 d'elle sur
+     * chaque axe. Les positions ne sont pas alignées sur les cases (vitesse
+     * continue, virages en cours de tick) : la grille ne sert qu'à trouver
+     * les échantillons proches, le test exact est fait sur leur position.
+     * Les obstacles, eux, occupent des cases entières : chaque case traversée
+     * par le centre de la tête est lue dans le bitset. Une tête qui avance
+     * d'une case ou plus par tick ne traverse donc ni corps ni obstacle.
+     *
+     * Le bord du plateau garde la règle d'origine, sur la position
+     * d'arrivée : la tête (coin haut gauche) sort dès qu'elle quitte
+     * [0, largeur) x [0, hauteur), et en ligne droite elle ne peut pas sortir
+     * puis revenir dans le même tick. Le corps n'est solide qu'au-delà du cou
+     * (NECK_SEGMENTS cases derrière la tête) : GameRules refuse les vitesses
+     * qui l'atteignent.
+     */
+    boolean checkCollision() {
+        double headX = body.headX();
+        double headY = body.headY();
+        if (headX >= width || headX < 0 || headY >= height || headY < 0) {
+            return true;
+        }
+
+        int half = DOT_SIZE / 2;
+        boolean bodyCells = collisionRule != CollisionRule.SWEPT_SAMPLES;
+        if (cellHits(cellIndex(headX + half), cellIndex(headY + half), bodyCells)) {
+            return true;
+        }
+        if (collisionRule == CollisionRule.END_OF_TICK_CELL) {
+            return false;
+        }
+        for (int i = 1; i < pathPoints; i++) {
+            if (sweepHits(pathX[i - 1] + half, pathY[i - 1] + half, pathX[i] + half, pathY[i] + half, bodyCells)) {
+                return true;
+            }
+        }
+        if (bodyCells) {
+            return false;
+        }
+        for (int i = 1; i < pathPoints; i++) {
+            if (body.touchesSolid(Math.min(pathX[i - 1], pathX[i]), Math.min(pathY[i - 1], pathY[i]),
+                    Math.max(pathX[i - 1], pathX[i]), Math.max(pathY[i - 1], pathY[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cases traversées par le centre de la tête le long d'un tronçon droit
+     * (horizontal ou vertical), sans celle de départ : elle a été lue au
+     * tronçon ou au tick précédent, et peut contenir un échantillon du corps
+     * déjà solide.
+     */
+    private boolean sweepHits(double fromX, double fromY, double toX, double toY, boolean bodyCells) {
+        int col = cellIndex(fromX);
+        int row = cellIndex(fromY);
+        int endCol = cellIndex(toX);
+        int endRow = cellIndex(toY);
+        while (col != endCol || row != endRow) {
+            if (col != endCol) {
+                col += Integer.signum(endCol - col);
+            } else {
+                row += Integer.signum(endRow - row);
+            }
+            if (cellHits(col, row, bodyCells)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int cellIndex(double position) {
+        return (int) Math.floor(position / DOT_SIZE);
+    }
+
+    // Une case hors de la grille est vide : le bord est jugé par checkCollision
+    private boolean cellHits(int col, int row, boolean bodyCells) {
+        int cols = grid.getCols();
+        if (col < 0 || row < 0 || col >= cols || row >= grid.getRows()) {
+            return false;
+        }
+        int cell = row * cols + col;
+        return isObstacle(cell) || bodyCells && grid.isSolid(cell);
+    }
+
+    // La tête a recouvert la case (x, y) à un moment du tick : le carré balayé le long de chaque tronçon la touche
+    private boolean pathTouches(int x, int y) {
+        if (pathPoints < 2 || collisionRule == CollisionRule.END_OF_TICK_CELL) {
+            return Math.abs(body.headX() - x) < DOT_SIZE && Math.abs(body.headY() - y) < DOT_SIZE;
+        }
+        for (int i = 1; i < pathPoints; i++) {
+            double minX = Math.min(pathX[i - 1], pathX[i]);
+            double maxX = Math.max(pathX[i - 1], pathX[i]);
+            double minY = Math.min(pathY[i - 1], pathY[i]);
+            double maxY = Math.max(pathY[i - 1], pathY[i]);
+            if (x > minX - DOT_SIZE && x < maxX + DOT_SIZE && y > minY - DOT_SIZE && y < maxY + DOT_SIZE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Pour rejouer un replay d'une version antérieure ; à appeler avant le premier tick
+    void useCollisionRule(CollisionRule rule) {
+        collisionRule = rule;
+    }
+
+    public boolean canChangeDirection(Direction newDirection) {
+        return newDirection != currentDirection.opposite();
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLength() {
+        return body.getLength();
+    }
+
+    public double segmentX(int i) {
+        return body.segmentX(i);
+    }
+
+    public double segmentY(int i) {
+        return body.segmentY(i);
+    }
+
+    // Position interpolée entre le tick précédent (alpha = 0) et le tick courant (alpha = 1)
+    public double segmentX(int i, double alpha) {
+        return body.xAt(headDistance(alpha) - i * DOT_SIZE);
+    }
+
+    public double segmentY(int i, double alpha) {
+        return body.yAt(headDistance(alpha) - i * DOT_SIZE);
+    }
+
+    // Distance curviligne de la tête, interpolée comme segmentX(i, alpha)
+    public double headDistance(double alpha) {
+        double previous = body.getPreviousHeadDistance();
+        return previous + (body.headDistance() - previous) * alpha;
+    }
+
+    // Point de la trace à une distance curviligne donnée
+    public double trailX(double arc) {
+        return body.xAt(arc);
+    }
+
+    public double trailY(double arc) {
+        return body.yAt(arc);
+    }
+
+    SnakeBody getBody() {
+        return body;
+    }
+
+    OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    // Position actuelle (en cases) d'un obstacle mobile du niveau
+    int getMoverCol(int i) {
+        return moverCols[i];
+    }
+
+    int getMoverRow(int i) {
+        return moverRows[i];
+    }
+
+    public Apple getApple() {
+        return currentApple;
+    }
+
+    // L'instance de getApple() est réutilisée : ce numéro distingue une nouvelle pomme
+    public int getAppleSerial() {
+        return appleSerial;
+    }
+
+    public Direction getDirection() {
+        return currentDirection;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public GameRules getRules() {
+        return rules;
+    }
+
+    // Pixels parcourus par tick, effets de pomme compris
+    public double getCurrentSpeed() {
+        return currentSpeed;
+    }
+
+    public boolean isRainbowEffect() {
+        return isRainbowEffect;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -1,682 +1,736 @@
-import javax.sound.sampled.*;
-import javax.swing.*;
-import javax.swing.Timer;
-import java.awt.*;
-import java.awt.event.*;
-import java.io.*;
-import java.util.*;
-public class SnakeGame extends JPanel implements ActionListener {
-    // États du jeu
-    private enum GameState {
-        MENU,
-        PLAYING,
-        PAUSED,
-        GAME_OVER
-    }
-
-    // Niveaux de difficulté
-    public enum Difficulty {
-        EASY(2.0, 1.0, "Facile"),
-        MEDIUM(3.0, 1.2, "Normal"),
-        HARD(4.0, 1.5, "Difficile"),
-        EXPERT(5.0, 2.0, "Expert");
-
-        final double speed;
-        final double scoreMultiplier;
-        final String label;
-
-        Difficulty(double speed, double scoreMultiplier, String label) {
-            this.speed = speed;
-            this.scoreMultiplier = scoreMultiplier;
-            this.label = label;
-        }
-    }
-
-    // Types de pommes
-    private enum AppleType {
-        BASIC(Color.RED, 1, "Normal (+1 point)"),
-        GOLDEN(Color.YELLOW, 3, "Or (+3 points)"),
-        SPEED(Color.GREEN, 1, "Vitesse (+1 point, vitesse x2)"),
-        SLOW(Color.BLUE, 1, "Ralenti (+1 point, vitesse /2)"),
-        RAINBOW(Color.MAGENTA, 2, "Arc-en-ciel (+2 points, score x2)");
-
-        final Color color;
-        final int points;
-        final String description;
-
-        AppleType(Color color, int points, String description) {
-            this.color = color;
-            this.points = points;
-            this.description = description;
-        }
-    }
-
-    private class Apple {
-        int x, y;
-        AppleType type;
-        long spawnTime;
-        boolean isActive;
-
-        Apple(int x, int y, AppleType type) {
-            this.x = x;
-            this.y = y;
-            this.type = type;
-            this.spawnTime = System.currentTimeMillis();
-            this.isActive = true;
-        }
-    }
-
-    private class SoundManager {
-        private Map<String, Clip> clips = new HashMap<>();
-        float volume = 1.0f;
-
-        public void loadSounds() {
-            try {
-                loadSound("move", "/sounds/move.wav");
-                loadSound("eat", "/sounds/eat.wav");
-                loadSound("crash", "/sounds/crash.wav");
-                loadSound("start", "/sounds/start.wav");
-            } catch (Exception e) {
-                System.err.println("Erreur lors du chargement des sons: " + e.getMessage());
-            }
-        }
-
-        private void loadSound(String name, String path) {
-            try {
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(
-                        getClass().getResource(path)
-                );
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioIn);
-                clips.put(name, clip);
-                setVolume(clip, volume);
-            } catch (Exception e) {
-                System.err.println("Erreur lors du chargement du son " + name + ": " + e.getMessage());
-            }
-        }
-
-        public void playSound(String name) {
-            if (!soundEnabled) return;
-
-            Clip clip = clips.get(name);
-            if (clip != null) {
-                if (clip.isRunning()) {
-                    clip.stop();
-                }
-                clip.setFramePosition(0);
-                clip.start();
-            }
-        }
-
-        public void stopAll() {
-            for (Clip clip : clips.values()) {
-                if (clip.isRunning()) {
-                    clip.stop();
-                }
-            }
-        }
-
-        public void setVolume(float newVolume) {
-            volume = Math.max(0.0f, Math.min(1.0f, newVolume));
-            for (Clip clip : clips.values()) {
-                setVolume(clip, volume);
-            }
-        }
-
-        private void setVolume(Clip clip, float volume) {
-            try {
-                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                float dB = (float) (Math.log10(volume) * 20.0f);
-                gainControl.setValue(Math.max(gainControl.getMinimum(),
-                        Math.min(gainControl.getMaximum(), dB)));
-            } catch (Exception e) {
-                System.err.println("Erreur lors du réglage du volume: " + e.getMessage());
-            }
-        }
-
-        public void toggleSound() {
-            soundEnabled = !soundEnabled;
-            if (!soundEnabled) {
-                stopAll();
-            }
-        }
-    }
-
-    // Variables du jeu
-    private final int WIDTH = 600;
-    private final int HEIGHT = 600;
-    private final int DOT_SIZE = 10;
-    private final int DELAY = 16;
-    private final int ALL_DOTS = 900;
-
-    private final double[][] positions = new double[ALL_DOTS][2];
-    private final double[][] velocities = new double[ALL_DOTS][2];
-    private int dots;
-
-    private Apple currentApple;
-    private double baseSpeed = 3.0;
-    private double currentSpeed;
-    private long speedEffectEndTime;
-    private long rainbowEffectEndTime;
-    private boolean isRainbowEffect = false;
-
-    private Queue<Integer> directionQueue = new LinkedList<>();
-    private int currentDirection = KeyEvent.VK_RIGHT;
-
-    private boolean inGame = true;
-    private Timer timer;
-    private Random random = new Random();
-
-    private int currentScore = 0;
-    private int bestScore = 0;
-    private final String SCORE_FILE = "snake_best_score.txt";
-
-    private GameState gameState = GameState.MENU;
-    private Difficulty currentDifficulty = Difficulty.MEDIUM;
-    private int selectedMenuItem = 0;
-    private final String[] menuItems = {"Nouvelle Partie", "Difficulté", "Quitter"};
-    private boolean showDifficultyMenu = false;
-
-    private SoundManager soundManager;
-    private boolean soundEnabled = true;
-
-    public SnakeGame() {
-        addKeyListener(new TAdapter());
-        setBackground(Color.BLACK);
-        setFocusable(true);
-        setPreferredSize(new Dimension(WIDTH, HEIGHT));
-
-        soundManager = new SoundManager();
-        soundManager.loadSounds();
-
-        loadBestScore();
-    }
-
-    private void loadBestScore() {
-        try {
-            File file = new File(SCORE_FILE);
-            if (file.exists()) {
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                String line = reader.readLine();
-                if (line != null) {
-                    bestScore = Integer.parseInt(line.trim());
-                }
-                reader.close();
-            }
-        } catch (IOException | NumberFormatException e) {
-            System.err.println("Erreur lors du chargement du meilleur score: " + e.getMessage());
-            bestScore = 0;
-        }
-    }
-
-    private void saveBestScore() {
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(SCORE_FILE));
-            writer.write(String.valueOf(bestScore));
-            writer.close();
-        } catch (IOException e) {
-            System.err.println("Erreur lors de la sauvegarde du meilleur score: " + e.getMessage());
-        }
-    }
-
-    private void initGame() {
-        if (timer != null) {
-            timer.stop();
-        }
-
-        dots = 3;
-        currentScore = 0;
-        currentSpeed = baseSpeed;
-        inGame = true;
-        isRainbowEffect = false;
-
-        for (int i = 0; i < dots; i++) {
-            positions[i][0] = WIDTH/2 - i * DOT_SIZE;
-            positions[i][1] = HEIGHT/2;
-            velocities[i][0] = currentSpeed;
-            velocities[i][1] = 0;
-        }
-
-        currentDirection = KeyEvent.VK_RIGHT;
-        directionQueue.clear();
-
-        locateNewApple();
-        soundManager.playSound("start");
-
-        timer = new Timer(DELAY, this);
-        timer.start();
-    }
-
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        switch (gameState) {
-            case MENU:
-                drawMenu(g2d);
-                break;
-            case PLAYING:
-                drawGame(g2d);
-                break;
-            case PAUSED:
-                drawGame(g2d);
-                drawPauseScreen(g2d);
-                break;
-            case GAME_OVER:
-                drawGame(g2d);
-                drawGameOver(g2d);
-                break;
-        }
-    }
-
-    private void drawMenu(Graphics2D g) {
-        g.setColor(Color.GREEN);
-        g.setFont(new Font("Arial", Font.BOLD, 48));
-        String title = "SNAKE";
-        FontMetrics metrics = g.getFontMetrics();
-        g.drawString(title, (WIDTH - metrics.stringWidth(title))/2, HEIGHT/4);
-
-        g.setFont(new Font("Arial", Font.PLAIN, 24));
-        metrics = g.getFontMetrics();
-        int y = HEIGHT/2;
-
-        if (!showDifficultyMenu) {
-            for (int i = 0; i < menuItems.length; i++) {
-                if (i == selectedMenuItem) {
-                    g.setColor(Color.GREEN);
-                    g.drawString("> " + menuItems[i], (WIDTH - metrics.stringWidth(menuItems[i]))/2 - 20, y);
-                } else {
-                    g.setColor(Color.WHITE);
-                    g.drawString(menuItems[i], (WIDTH - metrics.stringWidth(menuItems[i]))/2, y);
-                }
-                y += 40;
-            }
-        } else {
-            for (int i = 0; i < Difficulty.values().length; i++) {
-                String diffText = Difficulty.values()[i].label;
-                if (i == selectedMenuItem) {
-                    g.setColor(Color.GREEN);
-                    g.drawString("> " + diffText, (WIDTH - metrics.stringWidth(diffText))/2 - 20, y);
-                } else {
-                    g.setColor(Color.WHITE);
-                    g.drawString(diffText, (WIDTH - metrics.stringWidth(diffText))/2, y);
-                }
-                y += 40;
-            }
-        }
-    }
-
-    private void drawGame(Graphics2D g) {
-        if (inGame) {
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 14));
-            g.drawString("Score: " + currentScore, 10, 20);
-            g.drawString("Meilleur: " + bestScore, WIDTH - 100, 20);
-            g.drawString("Difficulté: " + currentDifficulty.label, WIDTH/2 - 50, 20);
-
-            if (currentApple != null && currentApple.isActive) {
-                if (currentApple.type == AppleType.RAINBOW) {
-                    float hue = (System.currentTimeMillis() % 1000) / 1000f;
-                    g.setColor(Color.getHSBColor(hue, 1, 1));
-                } else {
-                    g.setColor(currentApple.type.color);
-                }
-                g.fillOval(currentApple.x, currentApple.y, DOT_SIZE, DOT_SIZE);
-            }
-
-            for (int i = dots - 1; i >= 0; i--) {
-                if (i == 0) {
-                    g.setColor(Color.GREEN);
-                } else {
-                    if (isRainbowEffect) {
-                        float hue = ((System.currentTimeMillis() + i * 100) % 1000) / 1000f;
-                        g.setColor(Color.getHSBColor(hue, 1, 1));
-                    } else {
-                        g.setColor(Color.YELLOW);
-                    }
-                }
-                g.fillOval((int)positions[i][0], (int)positions[i][1], DOT_SIZE, DOT_SIZE);
-            }
-        }
-    }
-
-    private void drawPauseScreen(Graphics2D g) {
-        g.setColor(new Color(0, 0, 0, 180));
-        g.fillRect(0, 0, WIDTH, HEIGHT);
-
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 36));
-        String pauseText = "PAUSE";
-        FontMetrics metrics = g.getFontMetrics();
-        g.drawString(pauseText, (WIDTH - metrics.stringWidth(pauseText))/2, HEIGHT/2);
-
-        g.setFont(new Font("Arial", Font.PLAIN, 18));
-        String resumeText = "Appuyez sur ESPACE pour continuer";
-        metrics = g.getFontMetrics();
-        g.drawString(resumeText, (WIDTH - metrics.stringWidth(resumeText))/2, HEIGHT/2 + 40);
-    }
-
-    private void drawGameOver(Graphics2D g) {
-        g.setColor(new Color(0, 0, 0, 180));
-        g.fillRect(0, 0, WIDTH, HEIGHT);
-
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 36));
-        String msg = "Game Over - Score: " + currentScore;
-        FontMetrics metrics = g.getFontMetrics();
-        g.drawString(msg, (WIDTH - metrics.stringWidth(msg))/2, HEIGHT/2 - 40);
-
-        String bestMsg = "Meilleur Score: " + bestScore;
-        g.drawString(bestMsg, (WIDTH - metrics.stringWidth(bestMsg))/2, HEIGHT/2);
-
-        g.setFont(new Font("Arial", Font.PLAIN, 18));
-        String restartText = "Appuyez sur ESPACE pour retourner au menu";
-        metrics = g.getFontMetrics();
-        g.drawString(restartText, (WIDTH - metrics.stringWidth(restartText))/2, HEIGHT/2 + 40);
-    }
-
-    private void move() {
-        if (!directionQueue.isEmpty() && canChangeDirection(directionQueue.peek())) {
-            currentDirection = directionQueue.poll();
-            updateHeadVelocity();
-            soundManager.playSound("move");
-        }
-
-        for (int i = 0; i < dots; i++) {
-            positions[i][0] += velocities[i][0];
-            positions[i][1] += velocities[i][1];
-
-            if (i > 0) {
-                double dx = positions[i-1][0] - positions[i][0];
-                double dy = positions[i-1][1] - positions[i][1];
-                double distance = Math.sqrt(dx * dx + dy * dy);
-
-                if (distance > DOT_SIZE) {
-                    velocities[i][0] = (dx / distance) * currentSpeed;
-                    velocities[i][1] = (dy / distance) * currentSpeed;
-                }
-            }
-        }
-    }
-
-    private void updateHeadVelocity() {
-        velocities[0][0] = 0;
-        velocities[0][1] = 0;
-
-        switch (currentDirection) {
-            case KeyEvent.VK_LEFT: velocities[0][0] = -currentSpeed; break;
-            case KeyEvent.VK_RIGHT: velocities[0][0] = currentSpeed; break;
-            case KeyEvent.VK_UP: velocities[0][1] = -currentSpeed; break;
-            case KeyEvent.VK_DOWN: velocities[0][1] = currentSpeed; break;
-        }
-    }
-
-    private void locateNewApple() {
-        int RAND_POS = (WIDTH - DOT_SIZE) / DOT_SIZE;
-        int x, y;
-        boolean validLocation;
-
-        do {
-            validLocation = true;
-            x = random.nextInt(RAND_POS) * DOT_SIZE;
-            y = random.nextInt(RAND_POS) * DOT_SIZE;
-
-            for (int i = 0; i < dots; i++) {
-                if (Math.abs(positions[i][0] - x) < DOT_SIZE &&
-                        Math.abs(positions[i][1] - y) < DOT_SIZE) {
-                    validLocation = false;
-                    break;
-                }
-            }
-        } while (!validLocation);
-
-        int rand = random.nextInt(100);
-        AppleType type;
-        if (rand < 60) {           // 60% chance
-            type = AppleType.BASIC;
-        } else if (rand < 75) {    // 15% chance
-            type = AppleType.GOLDEN;
-        } else if (rand < 85) {    // 10% chance
-            type = AppleType.SPEED;
-        } else if (rand < 95) {    // 10% chance
-            type = AppleType.SLOW;
-        } else {                   // 5% chance
-            type = AppleType.RAINBOW;
-        }
-
-        currentApple = new Apple(x, y, type);
-    }
-
-    private void checkApple() {
-        if (currentApple != null && currentApple.isActive &&
-                Math.abs(positions[0][0] - currentApple.x) < DOT_SIZE &&
-                Math.abs(positions[0][1] - currentApple.y) < DOT_SIZE) {
-
-            soundManager.playSound("eat");
-
-            currentScore += currentApple.type.points * currentDifficulty.scoreMultiplier;
-            applyAppleEffect(currentApple.type);
-
-            if (currentScore > bestScore) {
-                bestScore = currentScore;
-                saveBestScore();
-            }
-
-            positions[dots][0] = positions[dots-1][0];
-            positions[dots][1] = positions[dots-1][1];
-            velocities[dots][0] = velocities[dots-1][0];
-            velocities[dots][1] = velocities[dots-1][1];
-            dots++;
-
-            locateNewApple();
-        }
-
-        long currentTime = System.currentTimeMillis();
-        if (currentTime >= speedEffectEndTime) {
-            currentSpeed = baseSpeed;
-        }
-        if (currentTime >= rainbowEffectEndTime) {
-            isRainbowEffect = false;
-        }
-    }
-
-    private void applyAppleEffect(AppleType type) {
-        long currentTime = System.currentTimeMillis();
-
-        switch (type) {
-            case SPEED:
-                currentSpeed = baseSpeed * 2;
-                speedEffectEndTime = currentTime + 5000; // 5 secondes
-                break;
-            case SLOW:
-                currentSpeed = baseSpeed / 2;
-                speedEffectEndTime = currentTime + 3000; // 3 secondes
-                break;
-            case RAINBOW:
-                isRainbowEffect = true;
-                rainbowEffectEndTime = currentTime + 10000; // 10 secondes
-                break;
-        }
-
-        updateHeadVelocity();
-    }
-
-    private void checkCollision() {
-        if (positions[0][0] >= WIDTH || positions[0][0] < 0 ||
-                positions[0][1] >= HEIGHT || positions[0][1] < 0) {
-            gameState = GameState.GAME_OVER;
-            inGame = false;
-            return;
-        }
-
-        for (int i = 4; i < dots; i++) {
-            if (Math.abs(positions[0][0] - positions[i][0]) < DOT_SIZE/2 &&
-                    Math.abs(positions[0][1] - positions[i][1]) < DOT_SIZE/2) {
-                gameState = GameState.GAME_OVER;
-                inGame = false;
-                return;
-            }
-        }
-    }
-
-    private boolean canChangeDirection(int newDirection) {
-        switch (newDirection) {
-            case KeyEvent.VK_LEFT: return currentDirection != KeyEvent.VK_RIGHT;
-            case KeyEvent.VK_RIGHT: return currentDirection != KeyEvent.VK_LEFT;
-            case KeyEvent.VK_UP: return currentDirection != KeyEvent.VK_DOWN;
-            case KeyEvent.VK_DOWN: return currentDirection != KeyEvent.VK_UP;
-            default: return false;
-        }
-    }
-
-    private boolean isValidDirectionChange(int currentDir, int newDir) {
-        return (currentDir == KeyEvent.VK_UP || currentDir == KeyEvent.VK_DOWN) &&
-                (newDir == KeyEvent.VK_LEFT || newDir == KeyEvent.VK_RIGHT) ||
-                (currentDir == KeyEvent.VK_LEFT || currentDir == KeyEvent.VK_RIGHT) &&
-                        (newDir == KeyEvent.VK_UP || newDir == KeyEvent.VK_DOWN);
-    }
-
-    private class TAdapter extends KeyAdapter {
-        @Override
-        public void keyPressed(KeyEvent e) {
-            int key = e.getKeyCode();
-
-            // Contrôles globaux
-            if (key == KeyEvent.VK_M) {
-                soundManager.toggleSound();
-                return;
-            }
-
-            // Gestion selon l'état du jeu
-            switch (gameState) {
-                case MENU:
-                    handleMenuInput(key);
-                    break;
-                case PLAYING:
-                    if (key == KeyEvent.VK_P || key == KeyEvent.VK_ESCAPE) {
-                        gameState = GameState.PAUSED;
-                        timer.stop();
-                    } else {
-                        handleGameInput(key);
-                    }
-                    break;
-                case PAUSED:
-                    if (key == KeyEvent.VK_SPACE || key == KeyEvent.VK_ESCAPE) {
-                        gameState = GameState.PLAYING;
-                        timer.start();
-                    }
-                    break;
-                case GAME_OVER:
-                    if (key == KeyEvent.VK_SPACE) {
-                        gameState = GameState.MENU;
-                        selectedMenuItem = 0;
-                    }
-                    break;
-            }
-            repaint();
-        }
-    }
-
-    private void handleMenuInput(int key) {
-        System.out.println("Menu key pressed: " + key); // Pour déboguer
-
-        if (!showDifficultyMenu) {
-            switch (key) {
-                case KeyEvent.VK_UP:
-                    selectedMenuItem--;
-                    if (selectedMenuItem < 0) selectedMenuItem = menuItems.length - 1;
-                    break;
-                case KeyEvent.VK_DOWN:
-                    selectedMenuItem++;
-                    if (selectedMenuItem >= menuItems.length) selectedMenuItem = 0;
-                    break;
-                case KeyEvent.VK_ENTER:
-                    handleMenuSelection();
-                    break;
-            }
-        } else {
-            switch (key) {
-                case KeyEvent.VK_UP:
-                    selectedMenuItem--;
-                    if (selectedMenuItem < 0) selectedMenuItem = Difficulty.values().length - 1;
-                    break;
-                case KeyEvent.VK_DOWN:
-                    selectedMenuItem++;
-                    if (selectedMenuItem >= Difficulty.values().length) selectedMenuItem = 0;
-                    break;
-                case KeyEvent.VK_ENTER:
-                    currentDifficulty = Difficulty.values()[selectedMenuItem];
-                    showDifficultyMenu = false;
-                    selectedMenuItem = 0;
-                    break;
-                case KeyEvent.VK_ESCAPE:
-                    showDifficultyMenu = false;
-                    selectedMenuItem = 0;
-                    break;
-            }
-        }
-        repaint();
-    }
-    private void handleMenuSelection() {
-        switch (selectedMenuItem) {
-            case 0: // Nouvelle Partie
-                startNewGame();
-                break;
-            case 1: // Difficulté
-                showDifficultyMenu = true;
-                selectedMenuItem = 0;
-                break;
-            case 2: // Quitter
-                System.exit(0);
-                break;
-        }
-    }
-
-    private void handleGameInput(int key) {
-        if (key == KeyEvent.VK_P || key == KeyEvent.VK_ESCAPE) {
-            gameState = GameState.PAUSED;
-            timer.stop();
-            return;
-        }
-
-        if ((key == KeyEvent.VK_LEFT || key == KeyEvent.VK_RIGHT ||
-                key == KeyEvent.VK_UP || key == KeyEvent.VK_DOWN) &&
-                directionQueue.size() < 2) {
-
-            int lastDirection = directionQueue.isEmpty() ? currentDirection : directionQueue.peek();
-            if (isValidDirectionChange(lastDirection, key)) {
-                directionQueue.offer(key);
-            }
-        }
-    }
-
-    private void startNewGame() {
-        gameState = GameState.PLAYING;
-        baseSpeed = currentDifficulty.speed;
-        currentSpeed = baseSpeed;
-        initGame();
-    }
-
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (gameState == GameState.PLAYING && inGame) {
-            move();
-            checkCollision();
-            checkApple();
-        }
-        repaint();
-    }
-
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            JFrame frame = new JFrame("Snake");
-            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.add(new SnakeGame());
-            frame.pack();
-            frame.setLocationRelativeTo(null);
-            frame.setVisible(true);
-        });
-    }
-}
+package org.example;
+
+import javax.swing.*;
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+public class SnakeGame extends JPanel implements ActionListener {
+    private static final long serialVersionUID = 1L;
+
+    // États du jeu
+    private enum GameState {
+        MENU,
+        PLAYING,
+        PAUSED,
+        GAME_OVER
+    }
+
+    // Variables du jeu
+    private final int WIDTH = 600;
+    private final int HEIGHT = 600;
+    private final int DOT_SIZE = SnakeEngine.DOT_SIZE;
+    // Cadence d'affichage ; la simulation, elle, avance à pas fixe (GameLoop.TICK_NANOS)
+    private final int FRAME_DELAY = 8;
+
+    // Toute la logique de partie vit dans le moteur, ce panneau ne fait que l'afficher
+    private SnakeEngine engine;
+
+    // Touches horodatées (System.nanoTime) : le virage est placé dans le tick à l'instant exact de l'appui
+    private final EventRing inputs = new EventRing(8);
+    private final Direction[] directions = Direction.values();
+    private final Difficulty[] difficulties = Difficulty.values();
+    private Direction lastQueuedDirection;
+
+    // Pilote automatique (touche A, ou -Dsnake.autopilot=true) ; ses parties ne comptent pas pour les records
+    private final Autopilot autopilot = new Autopilot();
+    private boolean autopilotEnabled = Boolean.getBoolean("snake.autopilot");
+    private boolean autopilotUsed;
+
+    private boolean inGame = true;
+    private Timer timer;
+    private final GameClock gameClock = new GameClock();
+    private final GameLoop gameLoop = new GameLoop(gameClock);
+    private final Runnable tickAction = this::tick;
+    private final Random seedRandom = new Random();
+
+    // Chaque partie est enregistrée ; en relecture, les entrées viennent du replay
+    private final String REPLAY_FILE = "snake_last_replay.bin";
+    private Replay recording;
+    private Replay.Player replayPlayer;
+    private Replay lastReplay;
+
+    private int currentScore = 0;
+    private int bestScore = 0;
+    private final String SCORE_FILE = "snake_best_score.txt";
+    private final ScoreStore scoreStore = new ScoreStore(Paths.get(SCORE_FILE));
+
+    // Historique de toutes les parties ; les replays des parties du top 10 sont gardés à part
+    private final String LEADERBOARD_FILE = "snake_scores.log";
+    private final String REPLAY_ARCHIVE_DIR = "snake_replays";
+    private final int LEADERBOARD_SIZE = 10;
+    private Leaderboard leaderboard;
+    private boolean showLeaderboard;
+    private Difficulty leaderboardDifficulty = Difficulty.MEDIUM;
+    private List<Leaderboard.Entry> leaderboardEntries = Collections.emptyList();
+
+    private GameState gameState = GameState.MENU;
+    private Difficulty currentDifficulty = Difficulty.MEDIUM;
+    private int selectedMenuItem = 0;
+    private final String[] menuItems = {"Nouvelle Partie", "Difficulté", "Monde: Normal", "Niveau: Aucun", "Revoir la partie", "Classement", "Quitter"};
+
+    // Grand monde : la fenêtre devient une caméra qui suit la tête (-Dsnake.worldCells pour la taille)
+    private final int LARGE_WORLD_CELLS = Integer.getInteger("snake.worldCells", 10_000);
+    private boolean largeWorld;
+    private boolean showDifficultyMenu = false;
+
+    // Recueil de niveaux projeté en mémoire (-Dsnake.levels), sinon les niveaux fournis avec le jeu
+    private final String LEVEL_PACK_FILE = System.getProperty("snake.levels", "snake_levels.pack");
+    private LevelPack levelPack;
+    // -1 : plateau sans obstacles ; le niveau choisi est compilé en arrière-plan dès sa sélection
+    private int selectedLevel = -1;
+    private CompletableFuture<Level> pendingLevel = CompletableFuture.completedFuture(null);
+
+    // Mixeur sur son propre thread : jouer un son ne coûte qu'un dépôt dans sa file
+    private final AudioEngine audio = new AudioEngine();
+
+    // Mesures de la boucle d'affichage (JMX, JFR), incrustées à l'écran avec F3
+    private final Telemetry telemetry = new Telemetry(FRAME_DELAY * 1_000_000L);
+    private boolean showTelemetry = Boolean.getBoolean("snake.telemetry");
+
+    // Chargement des ressources lancé par le constructeur
+    private final CompletableFuture<Void> assetsLoaded;
+    private boolean firstFramePainted;
+
+    private final GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+    private final DirtyRegion dirtyRegion = new DirtyRegion(WIDTH, HEIGHT);
+    // Rendu actif optionnel : -Dsnake.activeRendering=true
+    private final boolean activeRendering;
+    private VolatileImage backBuffer;
+
+    public SnakeGame() {
+        this(Boolean.getBoolean("snake.activeRendering"));
+    }
+
+    public SnakeGame(boolean activeRendering) {
+        this.activeRendering = activeRendering;
+        addKeyListener(new TAdapter());
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+
+        assetsLoaded = loadAssets();
+        Runtime.getRuntime().addShutdownHook(new Thread(scoreStore::close, "snake-score-flush"));
+        StartupTimer.mark("panneau");
+    }
+
+    /**
+     * Sons, sortie audio, scores, niveaux et MBean se chargent en parallèle
+     * en arrière-plan : le menu s'affiche sans les attendre. Le son arrive
+     * quand il est prêt ; les scores et les niveaux sont repris sur le thread
+     * Swing.
+     */
+    private CompletableFuture<Void> loadAssets() {
+        long start = System.nanoTime();
+        CompletableFuture<Void> sounds = audio.startAsync()
+                .thenRun(() -> StartupTimer.mark("audio", start));
+        CompletableFuture<Void> scores = scoreStore.loadAsync()
+                .thenRun(() -> SwingUtilities.invokeLater(() -> {
+                    bestScore = scoreStore.getBest(currentDifficulty);
+                    StartupTimer.mark("scores", start);
+                }));
+        CompletableFuture<Void> levels = CompletableFuture.supplyAsync(this::openLevels)
+                .thenAccept(pack -> SwingUtilities.invokeLater(() -> {
+                    levelPack = pack;
+                    StartupTimer.mark("niveaux", start);
+                }));
+        CompletableFuture<Void> history = CompletableFuture.supplyAsync(this::openLeaderboard)
+                .thenAccept(board -> SwingUtilities.invokeLater(() -> {
+                    leaderboard = board;
+                    StartupTimer.mark("classement", start);
+                }));
+        CompletableFuture<Void> jmx = CompletableFuture.runAsync(telemetry::register)
+                .thenRun(() -> StartupTimer.mark("jmx", start));
+        return CompletableFuture.allOf(sounds, scores, levels, history, jmx);
+    }
+
+    private Leaderboard openLeaderboard() {
+        try {
+            Leaderboard board = Leaderboard.open(Paths.get(LEADERBOARD_FILE));
+            Runtime.getRuntime().addShutdownHook(new Thread(board::close, "snake-leaderboard-close"));
+            return board;
+        } catch (IOException e) {
+            System.err.println("Erreur lors du chargement de l'historique des scores: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Relit les meilleures parties de la difficulté affichée : quelques lectures à leur position dans le journal
+    private void refreshLeaderboard() {
+        leaderboardEntries = Collections.emptyList();
+        if (leaderboard == null) {
+            return;
+        }
+        try {
+            leaderboardEntries = leaderboard.top(leaderboardDifficulty, LEADERBOARD_SIZE);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du classement: " + e.getMessage());
+        }
+    }
+
+    private LevelPack openLevels() {
+        Path path = Paths.get(LEVEL_PACK_FILE);
+        try {
+            return Files.exists(path) ? LevelPack.open(path) : LevelPack.builtIn();
+        } catch (IOException e) {
+            System.err.println("Erreur lors du chargement des niveaux: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Fin du chargement d'arrière-plan (les reprises sur le thread Swing peuvent rester en file)
+    CompletableFuture<Void> assetsLoaded() {
+        return assetsLoaded;
+    }
+
+    // Niveau suivant du recueil, puis retour au plateau sans obstacles
+    private void selectNextLevel() {
+        if (levelPack == null || levelPack.getCount() == 0) {
+            return;
+        }
+        selectedLevel = selectedLevel + 1 < levelPack.getCount() ? selectedLevel + 1 : -1;
+        menuItems[3] = "Niveau: " + (selectedLevel < 0 ? "Aucun" : levelPack.getName(selectedLevel));
+        if (selectedLevel < 0) {
+            pendingLevel = CompletableFuture.completedFuture(null);
+            return;
+        }
+        LevelPack pack = levelPack;
+        int index = selectedLevel;
+        pendingLevel = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pack.level(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Niveau de la prochaine partie ; normalement déjà compilé pendant que le joueur était dans le menu
+    private Level currentLevel() {
+        if (largeWorld) {
+            return null;
+        }
+        try {
+            return pendingLevel.join();
+        } catch (CompletionException e) {
+            System.err.println("Erreur lors du chargement du niveau: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private void initGame(Replay source) {
+        if (timer != null) {
+            timer.stop();
+        }
+
+        if (source == null) {
+            int worldWidth = largeWorld ? LARGE_WORLD_CELLS * DOT_SIZE : WIDTH;
+            int worldHeight = largeWorld ? LARGE_WORLD_CELLS * DOT_SIZE : HEIGHT;
+            recording = new Replay(seedRandom.nextLong(), currentDifficulty, worldWidth, worldHeight, currentLevel());
+            engine = recording.newEngine();
+            replayPlayer = null;
+        } else {
+            recording = null;
+            engine = source.newEngine();
+            replayPlayer = source.player();
+        }
+        currentScore = 0;
+        inGame = true;
+
+        inputs.clear();
+        autopilot.reset();
+        if (!autopilotAvailable()) {
+            autopilotEnabled = false;
+        }
+        autopilotUsed = autopilotEnabled && source == null;
+
+        audio.play(AudioEngine.Sound.START);
+
+        gameClock.setScale(1.0);
+        gameClock.resume();
+        gameLoop.reset();
+        telemetry.resetPacing();
+        timer = new Timer(FRAME_DELAY, this);
+        timer.start();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        renderFrame((Graphics2D) g);
+        if (!firstFramePainted) {
+            firstFramePainted = true;
+            StartupTimer.mark("première image");
+        }
+    }
+
+    private void renderFrame(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        switch (gameState) {
+            case MENU:
+                if (showLeaderboard) {
+                    renderer.drawLeaderboard(g2d, leaderboardDifficulty, leaderboardEntries,
+                            leaderboard == null ? 0 : leaderboard.count(leaderboardDifficulty));
+                } else {
+                    renderer.drawMenu(g2d, menuItems, selectedMenuItem, showDifficultyMenu);
+                }
+                break;
+            case PLAYING:
+                drawGame(g2d);
+                break;
+            case PAUSED:
+                drawGame(g2d);
+                renderer.drawPauseScreen(g2d);
+                break;
+            case GAME_OVER:
+                drawGame(g2d);
+                renderer.drawGameOver(g2d, currentScore, bestScore);
+                break;
+        }
+        if (showTelemetry && gameState != GameState.MENU) {
+            renderer.drawTelemetry(g2d, telemetry);
+        }
+    }
+
+    private void drawGame(Graphics2D g) {
+        if (inGame) {
+            renderer.drawGame(g, engine, gameLoop.alpha(), gameClock.now() / 1_000_000, bestScore);
+        }
+    }
+
+    // Pendant la partie, seules les zones modifiées depuis l'image précédente sont redessinées
+    private void renderPlayingFrame() {
+        renderer.collectDirty(engine, gameLoop.alpha(), bestScore, dirtyRegion);
+        if (showTelemetry) {
+            renderer.addTelemetryRegion(telemetry, dirtyRegion);
+        }
+        if (dirtyRegion.isEmpty()) {
+            return;
+        }
+        if (activeRendering) {
+            renderActive();
+        } else {
+            for (int i = 0; i < dirtyRegion.size(); i++) {
+                paintImmediately(dirtyRegion.get(i));
+            }
+        }
+    }
+
+    /**
+     * Rendu actif : on dessine dans une VolatileImage persistante puis on
+     * recopie à l'écran uniquement les rectangles modifiés.
+     */
+    private void renderActive() {
+        do {
+            GraphicsConfiguration config = getGraphicsConfiguration();
+            if (config == null) {
+                return;
+            }
+            int status = backBuffer == null ? VolatileImage.IMAGE_INCOMPATIBLE : backBuffer.validate(config);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                backBuffer = createVolatileImage(WIDTH, HEIGHT);
+                dirtyRegion.markAll();
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                dirtyRegion.markAll();
+            }
+
+            Graphics2D g = backBuffer.createGraphics();
+            for (int i = 0; i < dirtyRegion.size(); i++) {
+                Rectangle r = dirtyRegion.get(i);
+                g.setClip(r);
+                g.setColor(Color.BLACK);
+                g.fillRect(r.x, r.y, r.width, r.height);
+                renderFrame(g);
+            }
+            g.dispose();
+
+            Graphics screen = getGraphics();
+            if (screen != null) {
+                for (int i = 0; i < dirtyRegion.size(); i++) {
+                    Rectangle r = dirtyRegion.get(i);
+                    screen.drawImage(backBuffer, r.x, r.y, r.x + r.width, r.y + r.height,
+                            r.x, r.y, r.x + r.width, r.y + r.height, null);
+                }
+                screen.dispose();
+            }
+        } while (backBuffer.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private boolean isValidDirectionChange(Direction currentDir, Direction newDir) {
+        return currentDir.isHorizontal() != newDir.isHorizontal();
+    }
+
+    private static Direction toDirection(int key) {
+        switch (key) {
+            case KeyEvent.VK_LEFT: return Direction.LEFT;
+            case KeyEvent.VK_RIGHT: return Direction.RIGHT;
+            case KeyEvent.VK_UP: return Direction.UP;
+            case KeyEvent.VK_DOWN: return Direction.DOWN;
+            default: return null;
+        }
+    }
+
+    private class TAdapter extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            int key = e.getKeyCode();
+            GameState previousState = gameState;
+
+            // Contrôles globaux
+            if (key == KeyEvent.VK_M) {
+                audio.setEnabled(!audio.isEnabled());
+                return;
+            }
+            if (key == KeyEvent.VK_F3) {
+                showTelemetry = !showTelemetry;
+                renderer.invalidate();
+                repaint();
+                return;
+            }
+
+            // Gestion selon l'état du jeu
+            switch (gameState) {
+                case MENU:
+                    handleMenuInput(key);
+                    break;
+                case PLAYING:
+                    if (key == KeyEvent.VK_P || key == KeyEvent.VK_ESCAPE) {
+                        pauseGame();
+                    } else {
+                        handleGameInput(key);
+                    }
+                    break;
+                case PAUSED:
+                    if (key == KeyEvent.VK_SPACE || key == KeyEvent.VK_ESCAPE) {
+                        resumeGame();
+                    }
+                    break;
+                case GAME_OVER:
+                    if (key == KeyEvent.VK_SPACE) {
+                        gameState = GameState.MENU;
+                        selectedMenuItem = 0;
+                    }
+                    break;
+            }
+            // En jeu, les changements de direction sont dessinés par la boucle d'affichage
+            if (gameState != GameState.PLAYING || previousState != GameState.PLAYING) {
+                renderer.invalidate();
+                repaint();
+            }
+        }
+    }
+
+    private void handleMenuInput(int key) {
+        if (showLeaderboard) {
+            handleLeaderboardInput(key);
+        } else if (!showDifficultyMenu) {
+            switch (key) {
+                case KeyEvent.VK_UP:
+                    selectedMenuItem--;
+                    if (selectedMenuItem < 0) selectedMenuItem = menuItems.length - 1;
+                    break;
+                case KeyEvent.VK_DOWN:
+                    selectedMenuItem++;
+                    if (selectedMenuItem >= menuItems.length) selectedMenuItem = 0;
+                    break;
+                case KeyEvent.VK_ENTER:
+                    handleMenuSelection();
+                    break;
+            }
+        } else {
+            switch (key) {
+                case KeyEvent.VK_UP:
+                    selectedMenuItem--;
+                    if (selectedMenuItem < 0) selectedMenuItem = difficulties.length - 1;
+                    break;
+                case KeyEvent.VK_DOWN:
+                    selectedMenuItem++;
+                    if (selectedMenuItem >= difficulties.length) selectedMenuItem = 0;
+                    break;
+                case KeyEvent.VK_ENTER:
+                    currentDifficulty = difficulties[selectedMenuItem];
+                    bestScore = scoreStore.getBest(currentDifficulty);
+                    showDifficultyMenu = false;
+                    selectedMenuItem = 0;
+                    break;
+                case KeyEvent.VK_ESCAPE:
+                    showDifficultyMenu = false;
+                    selectedMenuItem = 0;
+                    break;
+            }
+        }
+        repaint();
+    }
+    private void handleMenuSelection() {
+        switch (selectedMenuItem) {
+            case 0: // Nouvelle Partie
+                startNewGame();
+                break;
+            case 1: // Difficulté
+                showDifficultyMenu = true;
+                selectedMenuItem = 0;
+                break;
+            case 2: // Monde
+                largeWorld = !largeWorld;
+                menuItems[2] = largeWorld ? "Monde: Géant" : "Monde: Normal";
+                break;
+            case 3: // Niveau
+                selectNextLevel();
+                break;
+            case 4: // Revoir la partie
+                startReplay();
+                break;
+            case 5: // Classement
+                showLeaderboard = true;
+                leaderboardDifficulty = currentDifficulty;
+                refreshLeaderboard();
+                break;
+            case 6: // Quitter
+                System.exit(0);
+                break;
+        }
+    }
+
+    private void handleLeaderboardInput(int key) {
+        switch (key) {
+            case KeyEvent.VK_LEFT:
+                leaderboardDifficulty = difficulties[(leaderboardDifficulty.ordinal() + difficulties.length - 1) % difficulties.length];
+                refreshLeaderboard();
+                break;
+            case KeyEvent.VK_RIGHT:
+                leaderboardDifficulty = difficulties[(leaderboardDifficulty.ordinal() + 1) % difficulties.length];
+                refreshLeaderboard();
+                break;
+            case KeyEvent.VK_ENTER:
+            case KeyEvent.VK_ESCAPE:
+                showLeaderboard = false;
+                break;
+        }
+    }
+
+    private void handleGameInput(int key) {
+        if (key == KeyEvent.VK_P || key == KeyEvent.VK_ESCAPE) {
+            pauseGame();
+            return;
+        }
+
+        if (replayPlayer != null) {
+            // En relecture, les flèches gauche/droite règlent la vitesse
+            if (key == KeyEvent.VK_RIGHT) {
+                gameClock.setScale(Math.min(16.0, gameClock.getScale() * 2));
+            } else if (key == KeyEvent.VK_LEFT) {
+                gameClock.setScale(Math.max(0.25, gameClock.getScale() / 2));
+            }
+            return;
+        }
+
+        if (key == KeyEvent.VK_A && autopilotAvailable()) {
+            autopilotEnabled = !autopilotEnabled;
+            autopilotUsed |= autopilotEnabled;
+            inputs.clear();
+            return;
+        }
+        if (!autopilotEnabled) {
+            queueDirection(toDirection(key), System.nanoTime());
+        }
+    }
+
+    // Les tableaux de recherche du pilote couvriraient tout le plateau : pas de pilote dans un grand monde
+    private boolean autopilotAvailable() {
+        return !engine.getGrid().isChunked();
+    }
+
+    // Un virage n'est valable que par rapport au dernier virage déjà en file
+    private void queueDirection(Direction direction, long nanos) {
+        if (direction != null && inputs.size() < 2) {
+            Direction lastDirection = inputs.isEmpty() ? engine.getDirection() : lastQueuedDirection;
+            if (isValidDirectionChange(lastDirection, direction) && inputs.offer(direction.ordinal(), nanos)) {
+                lastQueuedDirection = direction;
+            }
+        }
+    }
+
+    // Transmet au moteur les touches pressées avant la fin du tick, à leur position dans le tick
+    private void applyInputs(long tickStart, long now) {
+        long tickEnd = tickStart + GameLoop.TICK_NANOS;
+        while (!inputs.isEmpty() && inputs.peekTime() < tickEnd) {
+            long pressed = inputs.peekTime();
+            Direction direction = directions[inputs.peekValue()];
+            int subTick = pressed <= tickStart ? 0
+                    : (int) ((pressed - tickStart) * SnakeEngine.SUB_TICKS / GameLoop.TICK_NANOS);
+            if (!engine.turnAt(direction, subTick)) {
+                // Ce tick a déjà son compte de virages : la suite attend le tick suivant
+                break;
+            }
+            inputs.remove();
+            if (recording != null) {
+                recording.record(engine.getTick(), direction, subTick);
+            }
+            if (!autopilotEnabled) {
+                telemetry.recordInputLatency(now - pressed);
+            }
+        }
+    }
+
+    // La pause gèle l'horloge de jeu : les effets en cours ne s'écoulent plus
+    private void pauseGame() {
+        gameState = GameState.PAUSED;
+        gameClock.pause();
+        timer.stop();
+    }
+
+    private void resumeGame() {
+        gameState = GameState.PLAYING;
+        gameClock.resume();
+        telemetry.resetPacing();
+        timer.start();
+    }
+
+    private void startNewGame() {
+        gameState = GameState.PLAYING;
+        initGame(null);
+    }
+
+    private void startReplay() {
+        if (lastReplay == null) {
+            Path path = Paths.get(REPLAY_FILE);
+            if (!Files.exists(path)) {
+                return;
+            }
+            try {
+                lastReplay = Replay.read(path);
+            } catch (IOException e) {
+                System.err.println("Erreur lors du chargement du replay: " + e.getMessage());
+                return;
+            }
+        }
+        gameState = GameState.PLAYING;
+        initGame(lastReplay);
+    }
+
+    // archive : référence du replay à garder dans snake_replays, -1 pour seulement écraser le dernier replay
+    private void saveReplay(Replay finished, long archive) {
+        lastReplay = finished;
+        CompletableFuture.runAsync(() -> {
+            try {
+                finished.write(Paths.get(REPLAY_FILE));
+                if (archive >= 0) {
+                    Path directory = Files.createDirectories(Paths.get(REPLAY_ARCHIVE_DIR));
+                    finished.write(directory.resolve(archive + ".bin"));
+                }
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la sauvegarde du replay: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Ajoute la partie terminée à l'historique, avec les mêmes règles que les
+     * records (plateau normal, sans pilote). Une partie qui entre dans le top
+     * 10 de sa difficulté garde son replay, référencé par sa date.
+     *
+     * @return la référence du replay à archiver, ou -1
+     */
+    private long recordRun() {
+        if (leaderboard == null || autopilotUsed || engine.getGrid().isChunked()) {
+            return -1;
+        }
+        Difficulty difficulty = engine.getDifficulty();
+        long now = System.currentTimeMillis();
+        long archive = leaderboard.rank(difficulty, engine.getScore()) <= LEADERBOARD_SIZE ? now : -1;
+        int durationMillis = (int) Math.min(Integer.MAX_VALUE, engine.getTick() * SnakeEngine.TICK_MILLIS);
+        leaderboard.submit(new Leaderboard.Entry(difficulty, engine.getScore(), engine.getLength(),
+                durationMillis, now, archive));
+        return archive;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (gameState == GameState.PLAYING && inGame) {
+            telemetry.beginFrame();
+            gameLoop.advance(tickAction);
+            if (gameState == GameState.PLAYING) {
+                telemetry.beginPaint();
+                renderPlayingFrame();
+                telemetry.endPaint();
+                telemetry.endFrame(engine.getLength());
+                return;
+            }
+            telemetry.endFrame(engine.getLength());
+        }
+        renderer.invalidate();
+        repaint();
+    }
+
+    private void tick() {
+        if (!inGame) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (replayPlayer != null) {
+            replayPlayer.apply(engine);
+        } else {
+            // Début du tick en temps System.nanoTime, comme les horodatages des touches
+            long tickStart = gameLoop.tickStartNanos() + (start - gameClock.now());
+            if (autopilotEnabled) {
+                // Le virage du pilote est horodaté à son sous-tick, arrondi au-dessus pour le retrouver tel quel
+                Direction turn = autopilot.next(engine);
+                queueDirection(turn, tickStart + (autopilot.turnSubTick() * GameLoop.TICK_NANOS
+                        + SnakeEngine.SUB_TICKS - 1) / SnakeEngine.SUB_TICKS);
+            }
+            applyInputs(tickStart, start);
+        }
+        int events = engine.step();
+        handleEngineEvents(events);
+        telemetry.recordTick(System.nanoTime() - start);
+    }
+
+    private void handleEngineEvents(int events) {
+        if ((events & SnakeEngine.EVENT_TURN) != 0) {
+            audio.play(AudioEngine.Sound.MOVE);
+        }
+        if ((events & SnakeEngine.EVENT_EAT) != 0) {
+            audio.play(AudioEngine.Sound.EAT);
+            currentScore = engine.getScore();
+            // Les records ne comptent que sur le plateau normal, sans pilote
+            if (recording != null && !autopilotUsed && !engine.getGrid().isChunked()
+                    && scoreStore.submit(engine.getDifficulty(), currentScore)) {
+                bestScore = currentScore;
+            }
+        }
+        if ((events & SnakeEngine.EVENT_CRASH) != 0) {
+            gameState = GameState.GAME_OVER;
+            inGame = false;
+            scoreStore.flushAsync();
+            if (recording != null) {
+                recording.finish(engine);
+                saveReplay(recording, recordRun());
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        StartupTimer.expect("fenêtre", "première image", "audio", "scores", "niveaux", "classement", "jmx");
+        StartupTimer.mark("main");
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Snake");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new SnakeGame());
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            StartupTimer.mark("fenêtre");
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chronologie du démarrage : chaque étape (entrée dans main, fenêtre
+ * affichée, première image, sons, scores...) est datée en millisecondes
+ * depuis le lancement du processus, donc temps de démarrage de la JVM
+ * compris. Les étapes chargées en arrière-plan notent aussi leur propre
+ * durée.
+ *
+ * Le résumé est écrit sur une ligne une fois toutes les étapes attendues
+ * ({@link #expect}) franchies ; -Dsnake.startupLog=false le fait taire.
+ * Appelable depuis n'importe quel thread.
+ */
+final class StartupTimer {
+    private static final boolean LOG = !"false".equals(System.getProperty("snake.startupLog"));
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    // Millisecondes entre le lancement du processus et le chargement de cette classe
+    private static final long ORIGIN_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(start -> Math.max(0, System.currentTimeMillis() - start.toEpochMilli()))
+            .orElse(0L);
+
+    private static final List<String> marks = new ArrayList<>();
+    private static final Set<String> pending = new HashSet<>();
+
+    private StartupTimer() {
+    }
+
+    // Étapes à attendre avant d'écrire le résumé
+    static synchronized void expect(String... phases) {
+        pending.addAll(Arrays.asList(phases));
+    }
+
+    static void mark(String phase) {
+        record(phase, String.format("%s %d ms", phase, sinceLaunch(System.nanoTime())));
+    }
+
+    // Étape de fond commencée à startNanos (System.nanoTime) : sa durée propre est notée entre parenthèses
+    static void mark(String phase, long startNanos) {
+        long now = System.nanoTime();
+        record(phase, String.format("%s %d ms (%d ms)", phase, sinceLaunch(now), (now - startNanos) / 1_000_000));
+    }
+
+    static long sinceLaunch(long nanos) {
+        return ORIGIN_MILLIS + (nanos - ORIGIN_NANOS) / 1_000_000;
+    }
+
+    private static synchronized void record(String phase, String text) {
+        marks.add(text);
+        if (pending.remove(phase) && pending.isEmpty() && LOG) {
+            System.out.println("Démarrage : " + String.join(", ", marks));
+        }
+    }
+}
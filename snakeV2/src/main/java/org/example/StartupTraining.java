@@ -0,0 +1,69 @@
+package org.example;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Démarrage type, joué par Maven à la phase package pour enregistrer
+ * l'archive AppCDS du jeu (-XX:ArchiveClassesAtExit) : il construit le
+ * panneau du jeu et attend le chargement de ses ressources, dessine le menu,
+ * puis joue et dessine une courte partie avec le pilote automatique.
+ *
+ * Si la machine du build a un affichage, le panneau est montré dans une
+ * vraie fenêtre et dessiné à l'écran, comme au lancement du jeu. Sans
+ * affichage, AWT passe en mode headless : la fenêtre et le rendu à l'écran
+ * sont sautés, et l'archive ne contient pas les classes de la boîte à
+ * outils graphique (X11, surfaces d'écran), qui restent chargées une à une.
+ *
+ * Usage : StartupTraining [ticks joués]
+ */
+public class StartupTraining {
+    private static final int SIDE = 600;
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+
+        BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        SnakeGame game = new SnakeGame();
+        game.assetsLoaded().join();
+        game.setSize(SIDE, SIDE);
+        game.paint(graphics);
+        if (!GraphicsEnvironment.isHeadless()) {
+            showWindow(game);
+        }
+
+        GameRenderer renderer = new GameRenderer(SIDE, SIDE);
+        Autopilot pilot = new Autopilot();
+        SnakeEngine engine = new SnakeEngine(SIDE, SIDE, Difficulty.MEDIUM, 42L);
+        for (int t = 0; t < ticks && engine.isAlive(); t++) {
+            pilot.step(engine);
+            if (t % 100 == 0) {
+                graphics.clearRect(0, 0, SIDE, SIDE);
+                renderer.drawGame(graphics, engine, 0.5, t, 0);
+            }
+        }
+        renderer.drawGameOver(graphics, engine.getScore(), 0);
+        graphics.dispose();
+        System.exit(0);
+    }
+
+    // Même fenêtre que SnakeGame.main, dessinée une fois à l'écran puis fermée
+    private static void showWindow(SnakeGame game) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            JFrame frame = new JFrame("Snake");
+            frame.add(game);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            game.paintImmediately(0, 0, game.getWidth(), game.getHeight());
+            frame.dispose();
+        });
+    }
+}
@@ -0,0 +1,248 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Mesures permanentes de la boucle d'affichage : durée des ticks et du rendu,
+ * gigue du timer, latence des touches, octets alloués par image et longueur
+ * du serpent.
+ *
+ * Tout est écrit depuis le thread Swing, sans verrou ni allocation en
+ * dehors du rafraîchissement des textes de l'affichage (quatre fois par
+ * seconde). Les mesures sont lisibles par JMX ({@link TelemetryMBean}),
+ * par JFR ({@link FrameEvent}) et dans l'incrustation affichée avec F3.
+ */
+public class Telemetry implements TelemetryMBean {
+    private static final long TEXT_REFRESH_NANOS = 250_000_000L;
+
+    private final long expectedFrameNanos;
+    private final TickStats tickStats = new TickStats();
+    private final TickStats paintStats = new TickStats();
+    private final TickStats jitterStats = new TickStats();
+    // Délai entre l'appui d'une touche et le tick qui fait tourner la tête
+    private final TickStats inputLatencyStats = new TickStats();
+    // Même histogramme logarithmique, en octets plutôt qu'en nanosecondes
+    private final TickStats allocationStats = new TickStats();
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    private volatile long frames;
+    private volatile int snakeLength;
+    private volatile boolean resetRequested;
+
+    // État de l'image en cours
+    private long lastFrameStart;
+    private long frameStart;
+    private long frameAllocatedStart;
+    private long frameTickNanos;
+    private int frameTicks;
+    private long paintStart;
+    private long framePaintNanos;
+    private long frameJitterNanos;
+
+    private final String[] lines = new String[6];
+    private long lastTextRefresh;
+
+    public Telemetry(long expectedFrameNanos) {
+        this.expectedFrameNanos = expectedFrameNanos;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean bean = null;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) threads;
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+                bean = null;
+            }
+        }
+        this.allocationBean = bean;
+        refreshText();
+    }
+
+    // Expose les mesures par JMX ; sans effet si le nom est déjà pris
+    public void register() {
+        try {
+            ObjectName name = new ObjectName("org.example:type=Telemetry");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Impossible d'enregistrer le MBean de télémétrie: " + e.getMessage());
+        }
+    }
+
+    public void beginFrame() {
+        long now = System.nanoTime();
+        if (resetRequested) {
+            resetRequested = false;
+            tickStats.reset();
+            paintStats.reset();
+            jitterStats.reset();
+            inputLatencyStats.reset();
+            allocationStats.reset();
+            frames = 0;
+        }
+        frameJitterNanos = 0;
+        if (lastFrameStart != 0) {
+            frameJitterNanos = Math.abs(now - lastFrameStart - expectedFrameNanos);
+            jitterStats.record(frameJitterNanos);
+        }
+        lastFrameStart = now;
+        frameStart = now;
+        frameAllocatedStart = allocatedBytes();
+        frameTickNanos = 0;
+        frameTicks = 0;
+        framePaintNanos = 0;
+    }
+
+    public void recordTick(long nanos) {
+        tickStats.record(nanos);
+        frameTickNanos += nanos;
+        frameTicks++;
+    }
+
+    public void recordInputLatency(long nanos) {
+        inputLatencyStats.record(nanos);
+    }
+
+    public void beginPaint() {
+        paintStart = System.nanoTime();
+    }
+
+    public void endPaint() {
+        framePaintNanos = System.nanoTime() - paintStart;
+        paintStats.record(framePaintNanos);
+    }
+
+    public void endFrame(int length) {
+        long allocated = allocationBean != null ? allocatedBytes() - frameAllocatedStart : 0;
+        allocationStats.record(allocated);
+        snakeLength = length;
+        frames++;
+
+        FrameEvent event = new FrameEvent();
+        if (event.shouldCommit()) {
+            event.ticks = frameTicks;
+            event.tickNanos = frameTickNanos;
+            event.paintNanos = framePaintNanos;
+            event.jitterNanos = frameJitterNanos;
+            event.allocatedBytes = allocated;
+            event.snakeLength = length;
+            event.commit();
+        }
+
+        if (frameStart - lastTextRefresh >= TEXT_REFRESH_NANOS) {
+            lastTextRefresh = frameStart;
+            refreshText();
+        }
+    }
+
+    // La prochaine image ne compte pas dans la gigue (reprise après pause, nouvelle partie)
+    public void resetPacing() {
+        lastFrameStart = 0;
+    }
+
+    // Lignes de l'incrustation, mises à jour quatre fois par seconde
+    String[] lines() {
+        return lines;
+    }
+
+    private void refreshText() {
+        lines[0] = String.format("tick   moy %5.1f  p99 %5d  max %5d µs",
+                tickStats.getAverageNanos() / 1000, tickStats.percentileNanos(99) / 1000, tickStats.getMaxNanos() / 1000);
+        lines[1] = String.format("rendu  moy %5.1f  p99 %5d  max %5d µs",
+                paintStats.getAverageNanos() / 1000, paintStats.percentileNanos(99) / 1000, paintStats.getMaxNanos() / 1000);
+        lines[2] = String.format("gigue  p50 %5d  p99 %5d  max %5d µs", jitterStats.percentileNanos(50) / 1000,
+                jitterStats.percentileNanos(99) / 1000, jitterStats.getMaxNanos() / 1000);
+        lines[3] = String.format("entrée p50 %5d  p99 %5d  max %5d µs", inputLatencyStats.percentileNanos(50) / 1000,
+                inputLatencyStats.percentileNanos(99) / 1000, inputLatencyStats.getMaxNanos() / 1000);
+        lines[4] = allocationBean == null ? "allocations : non mesurées"
+                : String.format("alloc  moy %7.0f  p99 %7d o/image",
+                        allocationStats.getAverageNanos(), allocationStats.percentileNanos(99));
+        lines[5] = String.format("longueur %d, %d images", snakeLength, frames);
+    }
+
+    private long allocatedBytes() {
+        return allocationBean != null ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    @Override
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public long getTicks() {
+        return tickStats.getCount();
+    }
+
+    @Override
+    public double getTickAverageMicros() {
+        return tickStats.getAverageNanos() / 1000;
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return tickStats.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getTickMaxMicros() {
+        return tickStats.getMaxNanos() / 1000;
+    }
+
+    @Override
+    public double getPaintAverageMicros() {
+        return paintStats.getAverageNanos() / 1000;
+    }
+
+    @Override
+    public long getPaintP99Micros() {
+        return paintStats.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getPaintMaxMicros() {
+        return paintStats.getMaxNanos() / 1000;
+    }
+
+    @Override
+    public long getJitterP99Micros() {
+        return jitterStats.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getJitterMaxMicros() {
+        return jitterStats.getMaxNanos() / 1000;
+    }
+
+    @Override
+    public long getInputLatencyP99Micros() {
+        return inputLatencyStats.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getInputLatencyMaxMicros() {
+        return inputLatencyStats.getMaxNanos() / 1000;
+    }
+
+    @Override
+    public double getAllocatedBytesPerFrame() {
+        return allocationStats.getAverageNanos();
+    }
+
+    @Override
+    public long getAllocatedBytesP99() {
+        return allocationStats.percentileNanos(99);
+    }
+
+    @Override
+    public int getSnakeLength() {
+        return snakeLength;
+    }
+
+    @Override
+    public void reset() {
+        resetRequested = true;
+    }
+}
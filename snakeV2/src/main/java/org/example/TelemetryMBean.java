@@ -0,0 +1,40 @@
+package org.example;
+
+/**
+ * Vue JMX des mesures de {@link Telemetry}, enregistrée sous
+ * {@code org.example:type=Telemetry}. Durées en microsecondes.
+ */
+public interface TelemetryMBean {
+    long getFrames();
+
+    long getTicks();
+
+    double getTickAverageMicros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    double getPaintAverageMicros();
+
+    long getPaintP99Micros();
+
+    long getPaintMaxMicros();
+
+    long getJitterP99Micros();
+
+    long getJitterMaxMicros();
+
+    long getInputLatencyP99Micros();
+
+    long getInputLatencyMaxMicros();
+
+    double getAllocatedBytesPerFrame();
+
+    long getAllocatedBytesP99();
+
+    int getSnakeLength();
+
+    // Remet les histogrammes à zéro (appliqué au début de l'image suivante)
+    void reset();
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Statistiques de durée (en nanosecondes) : dernière valeur, moyenne,
+ * maximum et histogramme logarithmique pour les percentiles.
+ *
+ * Chaque puissance de deux est découpée en SUB_BUCKETS intervalles égaux,
+ * soit une erreur relative d'au plus 25 % sur un percentile. Un seul thread
+ * écrit à la fois ; les lectures depuis un autre thread (affichage des
+ * statistiques) peuvent voir un état légèrement décalé.
+ */
+public class TickStats {
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] histogram = new long[BUCKETS];
+    private volatile long count;
+    private volatile long totalNanos;
+    private volatile long lastNanos;
+    private volatile long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        histogram[bucket(nanos)]++;
+        totalNanos += nanos;
+        lastNanos = nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+        count++;
+    }
+
+    public void reset() {
+        Arrays.fill(histogram, 0);
+        count = 0;
+        totalNanos = 0;
+        lastNanos = 0;
+        maxNanos = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getAverageNanos() {
+        long n = count;
+        return n == 0 ? 0 : (double) totalNanos / n;
+    }
+
+    // Borne haute de l'intervalle contenant le percentile demandé (0 < p <= 100)
+    public long percentileNanos(double p) {
+        long n = count;
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * p / 100.0);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[b];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(b), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    // Ajoute les mesures d'un autre compteur (agrégation entre sessions)
+    public void add(TickStats other) {
+        for (int b = 0; b < BUCKETS; b++) {
+            histogram[b] += other.histogram[b];
+        }
+        totalNanos += other.totalNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+        lastNanos = other.lastNanos;
+        count += other.count;
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}